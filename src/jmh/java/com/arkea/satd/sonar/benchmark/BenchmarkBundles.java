@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.FileMetadata;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.rule.CheckFactory;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.xml.Xml;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+
+import com.arkea.satd.sonar.generator.BundleGenerator;
+import com.arkea.satd.sonar.xml.CheckRepository;
+
+/**
+ * Bundles used by the benchmarks : the MyAwfulProxy test bundle, and synthetic bundles made by the BundleGenerator.
+ * @author Nicolas Tisserand
+ */
+final class BenchmarkBundles {
+
+	static final File MY_AWFUL_PROXY = new File("src/test/resources/MyAwfulProxy/apiproxy");
+
+	private BenchmarkBundles() {
+		// Private constructor
+	}
+
+	/**
+	 * Generates proxiesCount proxies and proxiesCount / 10 shared flows in baseDir (proxy-000/apiproxy, sharedflow-000/sharedflowbundle...)
+	 * @param baseDir
+	 * @param proxiesCount
+	 * @return the input files of all the bundles
+	 * @throws IOException
+	 */
+	static List<InputFile> createProxies(Path baseDir, int proxiesCount) throws IOException {
+		new BundleGenerator()
+			.proxies(proxiesCount)
+			.sharedFlows(proxiesCount / 10)
+			.generate(baseDir);
+		return inputFiles(baseDir, baseDir.toFile());
+	}
+
+	/**
+	 * Returns the input files of all the files of a directory
+	 * @param baseDir module base directory
+	 * @param dir
+	 * @return
+	 * @throws IOException
+	 */
+	static List<InputFile> inputFiles(Path baseDir, File dir) throws IOException {
+		List<InputFile> inputFiles = new ArrayList<>();
+		Collection<File> files = FileUtils.listFiles(dir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		for(File file : files) {
+			DefaultInputFile inputFile = TestInputFileBuilder.create("benchmark", baseDir.toFile(), file)
+					.setType(InputFile.Type.MAIN)
+					.setLanguage(Xml.KEY)
+					.setCharset(StandardCharsets.UTF_8)
+					.build();
+			try (InputStream stream = new FileInputStream(file)) {
+				inputFile.setMetadata(new FileMetadata().readMetadata(stream, StandardCharsets.UTF_8, inputFile.absolutePath()));
+			}
+			inputFiles.add(inputFile);
+		}
+		return inputFiles;
+	}
+
+	/**
+	 * Parses the files, ignoring the files which are not valid XML
+	 * @param inputFiles
+	 * @return
+	 */
+	static List<XmlFile> parse(List<InputFile> inputFiles) {
+		List<XmlFile> xmlFiles = new ArrayList<>();
+		for(InputFile inputFile : inputFiles) {
+			try {
+				xmlFiles.add(XmlFile.create(inputFile));
+			} catch (Exception e) {
+				// Not a valid XML file
+			}
+		}
+		return xmlFiles;
+	}
+
+	/**
+	 * Returns a CheckFactory with all the rules of the CheckRepository activated
+	 * @return
+	 */
+	@SuppressWarnings("rawtypes")
+	static CheckFactory allChecks() {
+		ActiveRulesBuilder activeRuleBuilder = new ActiveRulesBuilder();
+		for(Class check : CheckRepository.getCheckClasses()) {
+			activeRuleBuilder.addRule(new NewActiveRule.Builder()
+					.setRuleKey(RuleKey.of(CheckRepository.REPOSITORY_KEY, check.getSimpleName()))
+					.build());
+		}
+		return new CheckFactory(activeRuleBuilder.build());
+	}
+}
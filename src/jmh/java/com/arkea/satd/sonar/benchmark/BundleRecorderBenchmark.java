@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.benchmark;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Node;
+
+import com.arkea.satd.sonar.xml.BundleRecorder;
+
+/**
+ * BundleRecorder storage of one bundle, and each search method on the recorded bundle
+ * @author Nicolas Tisserand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BundleRecorderBenchmark {
+
+	private List<XmlFile> xmlFiles;
+	private BundleRecorder bundleRecorder;
+	private InputFile analysedFile;
+
+	@Setup
+	public void setup() throws Exception {
+		xmlFiles = BenchmarkBundles.parse(BenchmarkBundles.inputFiles(Paths.get("src/test/resources"), BenchmarkBundles.MY_AWFUL_PROXY));
+		bundleRecorder = new BundleRecorder();
+		xmlFiles.forEach(bundleRecorder::storeFile);
+		bundleRecorder.freeze();
+		analysedFile = xmlFiles.get(0).getInputFile();
+	}
+
+	@Benchmark
+	public BundleRecorder storeFile() {
+		BundleRecorder recorder = new BundleRecorder();
+		xmlFiles.forEach(recorder::storeFile);
+		return recorder;
+	}
+
+	@Benchmark
+	public List<XmlFile> searchByStepName() {
+		return bundleRecorder.searchByStepName(analysedFile, "Raise-Fault-1");
+	}
+
+	@Benchmark
+	public List<XmlFile> searchPoliciesByType() {
+		return bundleRecorder.searchPoliciesByType(analysedFile, "StatisticsCollector");
+	}
+
+	@Benchmark
+	public XmlFile searchPoliciesByName() {
+		return bundleRecorder.searchPoliciesByName(analysedFile, "theResponseCache");
+	}
+
+	@Benchmark
+	public Map<Node, XmlFile> searchStepsByName() {
+		return bundleRecorder.searchStepsByName(analysedFile, "Raise-Fault-1");
+	}
+
+	@Benchmark
+	public XmlFile searchTargetEndpointByName() {
+		return bundleRecorder.searchTargetEndpointByName(analysedFile, "default");
+	}
+
+	@Benchmark
+	public List<XmlFile> searchPoliciesByResourceURL() {
+		return bundleRecorder.searchPoliciesByResourceURL(analysedFile, "xsl://XSL-Transform-1.xsl");
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
+
+import com.arkea.satd.sonar.xml.AnalysisSession;
+import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CheckRepository;
+import com.arkea.satd.sonar.xml.checks.AbstractBundleCheck;
+
+/**
+ * SonarXmlCheck.scanFile of each check on all the files of one bundle
+ * @author Nicolas Tisserand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckBenchmark {
+
+	// All the checks of the CheckRepository
+	@Param({"AvoidPythonCheck",
+			"CacheCoherenceCheck",
+			"CatastrophicBacktrackingCheck",
+			"ConditionLengthCheck",
+			"ConnectionTimeoutsCheck",
+			"DescriptionCheck",
+			"DescriptionPatternCheck",
+			"EmptyRouteRuleLastCheck",
+			"EmptyStepCheck",
+			"ExpensiveConditionCheck",
+			"ExtractVariablesCheck",
+			"FaultRuleAndDefaultFaultRuleCheck",
+			"FaultRuleConditionCheck",
+			"IgnoreUnresolvedVariablesWithoutFaultRuleCheck",
+			"KeyValueMapCachingCheck",
+			"MessageLoggingInRequestPathCheck",
+			"MultipleStatsCollectorsCheck",
+			"NondistributedQuotaCheck",
+			"PolicyDisplayNameCheck",
+			"PolicyNameConventionCheck",
+			"QuotaPolicyReuseCheck",
+			"QuotaSynchronizationCheck",
+			"RegexLookAroundCheck",
+			"ResponseCacheErrorResponseCheck",
+			"RetryAmplificationCheck",
+			"RouteRulesToTargetCheck",
+			"ServiceCalloutRequestVariableNameCheck",
+			"ServiceCalloutResponseVariableNameCheck",
+			"ServiceCalloutWithoutCacheCheck",
+			"StreamingBufferingCheck",
+			"ThreatProtectionCheck",
+			"TooMuchPoliciesCheck",
+			"TooMuchProxyEndpointsCheck",
+			"TooMuchResourcesCheck",
+			"TooMuchTargetEndpointsCheck",
+			"UnattachedPolicyCheck",
+			"UnattachedResourceCheck",
+			"UnconditionalFlowCheck",
+			"UnknownResourceFlowCheck",
+			"UnreachableFlowCheck",
+			"UnreachableRouteRuleCheck",
+			"UseFaultRulesCheck",
+			"UseManagementServerCheck",
+			"UseTargetServersCheck"})
+	public String checkName;
+
+	private Path baseDir = Paths.get("src/test/resources");
+	private List<XmlFile> xmlFiles;
+	private BundleRecorder bundleRecorder;
+	private SonarXmlCheck check;
+	private RuleKey ruleKey;
+	private SensorContextTester context;
+
+	@Setup
+	public void setup() throws Exception {
+		xmlFiles = BenchmarkBundles.parse(BenchmarkBundles.inputFiles(baseDir, BenchmarkBundles.MY_AWFUL_PROXY));
+		bundleRecorder = new BundleRecorder();
+		xmlFiles.forEach(bundleRecorder::storeFile);
+		bundleRecorder.freeze();
+
+		check = (SonarXmlCheck) Class.forName("com.arkea.satd.sonar.xml.checks." + checkName).getDeclaredConstructor().newInstance();
+		ruleKey = RuleKey.of(CheckRepository.REPOSITORY_KEY, checkName);
+	}
+
+	/**
+	 * New context for each iteration, so that the reported issues do not pile up in memory
+	 */
+	@Setup(Level.Iteration)
+	public void newContext() {
+		context = SensorContextTester.create(baseDir);
+		if(check instanceof AbstractBundleCheck) {
+			((AbstractBundleCheck) check).setSession(new AnalysisSession(context, bundleRecorder));
+		}
+	}
+
+	@Benchmark
+	public void scanFile() {
+		for(XmlFile xmlFile : xmlFiles) {
+			check.scanFile(context, ruleKey, xmlFile);
+		}
+	}
+}
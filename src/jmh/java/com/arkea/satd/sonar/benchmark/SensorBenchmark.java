@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+
+import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
+
+/**
+ * End-to-end ApigeeXmlSensor.execute on generated bundles of 10, 100 and 1,000 proxies (see BundleGenerator)
+ * @author Nicolas Tisserand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SensorBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int proxiesCount;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private Path baseDir;
+	private ApigeeXmlSensor sensor;
+
+	@Setup
+	public void setup() throws IOException {
+		baseDir = Files.createTempDirectory("apigee-benchmark");
+		DefaultFileSystem fileSystem = new DefaultFileSystem(baseDir);
+		fileSystem.setWorkDir(baseDir.resolve(".work"));
+		BenchmarkBundles.createProxies(baseDir, proxiesCount).forEach(fileSystem::add);
+		sensor = new ApigeeXmlSensor(fileSystem, BenchmarkBundles.allChecks());
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(baseDir.toFile());
+	}
+
+	@Benchmark
+	public SensorContextTester execute() {
+		SensorContextTester context = SensorContextTester.create(baseDir);
+		context.settings().setProperty(ApigeeXmlSensor.THREADS_PROPERTY_KEY, threads);
+		sensor.execute(context);
+		return context;
+	}
+}
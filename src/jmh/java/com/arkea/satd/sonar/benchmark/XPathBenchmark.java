@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Document;
+
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
+/**
+ * XPath evaluations done by the checks on all the files of one bundle :
+ * a new XPathFactory per check and string expressions for each file (previous implementation) versus
+ * the shared CompiledXPath expressions
+ * @author Nicolas Tisserand
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XPathBenchmark {
+
+	// The expressions evaluated by each check on a file
+	private static final List<List<String>> CHECKS_EXPRESSIONS = Arrays.asList(
+			// FaultRuleAndDefaultFaultRuleCheck
+			Arrays.asList("//FaultRule", "//DefaultFaultRule", "//DefaultFaultRule/AlwaysEnforce/text()", "Condition"),
+			// RouteRulesToTargetCheck
+			Arrays.asList("//TargetEndpoint"),
+			// QuotaPolicyReuseCheck
+			Arrays.asList("/Quota/@name"),
+			// UnreachableRouteRuleCheck
+			Arrays.asList("//RouteRule[not(Condition) or Condition/text()='true' or string-length(Condition/text())=0]"),
+			// UnreachableFlowCheck
+			Arrays.asList("/ProxyEndpoint/Flows/Flow", "Condition"),
+			// UseManagementServerCheck
+			Arrays.asList("//HTTPTargetConnection/URL[contains(text(), '/v1/organizations') or contains(text(), 'enterprise.apigee.com')]"),
+			// UnattachedPolicyCheck
+			Arrays.asList("/*/@name"),
+			// TooMuchPoliciesCheck
+			Arrays.asList("count(/*/Policies/Policy)", "/*/Policies"),
+			// DescriptionPatternCheck
+			Arrays.asList("//Description"),
+			// TooMuchResourcesCheck
+			Arrays.asList("count(/*/Resources/Resource)", "/*/Resources"),
+			// ExtractVariablesCheck
+			Arrays.asList("count(/ExtractVariables/*[(name()='JSONPayload' or name()='XMLPayload')]/Variable) + count(/ExtractVariables/FormParam) > 0", "/ExtractVariables/@name", "/ExtractVariables/Source/text()"),
+			// NondistributedQuotaCheck
+			Arrays.asList("/Quota/Distributed", "/Quota/Distributed/text()"),
+			// EmptyStepCheck
+			Arrays.asList("//*[name() = 'ProxyEndpoint' or name() = 'SharedFlow']//Step[not(normalize-space())]"),
+			// FaultRuleConditionCheck
+			Arrays.asList("//FaultRule", "Condition"),
+			// TooMuchProxyEndpointsCheck
+			Arrays.asList("count(/APIProxy/ProxyEndpoints/ProxyEndpoint)", "/APIProxy/ProxyEndpoints"),
+			// ThreatProtectionCheck
+			Arrays.asList("//*[name() = 'JSONThreatProtection' or name() = 'XMLThreatProtection']/@name"),
+			// CacheCoherenceCheck
+			Arrays.asList("//CacheKey", "./Prefix/text()", "./KeyFragment/@ref/text()", "./KeyFragment/text()"),
+			// UnknownResourceFlowCheck
+			Arrays.asList("/ProxyEndpoint/Flows", "/ProxyEndpoint/Flows/Flow[last()]/Condition/text()"),
+			// ServiceCalloutResponseVariableNameCheck
+			Arrays.asList("/ServiceCallout/Response[text() = 'response']"),
+			// RegexLookAroundCheck
+			Arrays.asList("/RegularExpressionProtection//Pattern[contains(text(), '(?') ]"),
+			// EmptyRouteRuleLastCheck
+			Arrays.asList("//RouteRule", "Condition"),
+			// IgnoreUnresolvedVariablesWithoutFaultRuleCheck
+			Arrays.asList("//IgnoreUnresolvedVariables[text()='true']", "//@name", "//*[(name()='FaultRule' or name()='DefaultFaultRule')]"),
+			// UnconditionalFlowCheck
+			Arrays.asList("/ProxyEndpoint/Flows/Flow", "Condition"),
+			// AvoidPythonCheck
+			Arrays.asList("//Script//ResourceURL[starts-with(., 'py://')]"),
+			// MultipleStatsCollectorsCheck
+			Arrays.asList("/*/@name", "//Statistics", "Name/text()", "name(..)", "name(../..)", "../../@name", "Condition/text()"),
+			// PolicyDisplayNameCheck
+			Arrays.asList("/*/@name", "//DisplayName[text() != /*/@name]"),
+			// AbstractBodyCheck
+			Arrays.asList("Condition/text()", "../../../*[name() = 'Flow']/Condition/text()"),
+			// TooMuchTargetEndpointsCheck
+			Arrays.asList("count(/APIProxy/TargetEndpoints/TargetEndpoint)", "/APIProxy/TargetEndpoints"),
+			// ServiceCalloutRequestVariableNameCheck
+			Arrays.asList("/ServiceCallout/Request[@variable = 'request']"),
+			// ResponseCacheErrorResponseCheck
+			Arrays.asList("/ResponseCache/ExcludeErrorResponse/text()", "/ResponseCache/ExcludeErrorResponse", "/*/@name"));
+
+	private Path baseDir = Paths.get("src/test/resources");
+	private List<Document> documents;
+	private List<CompiledXPath> compiledExpressions;
+
+	@Setup
+	public void setup() throws Exception {
+		documents = new ArrayList<>();
+		for(XmlFile xmlFile : BenchmarkBundles.parse(BenchmarkBundles.inputFiles(baseDir, BenchmarkBundles.MY_AWFUL_PROXY))) {
+			documents.add(xmlFile.getDocument());
+		}
+
+		compiledExpressions = new ArrayList<>();
+		CHECKS_EXPRESSIONS.forEach(checkExpressions -> checkExpressions.forEach(expression -> compiledExpressions.add(CompiledXPath.compile(expression))));
+	}
+
+	@Benchmark
+	public void uncompiled(Blackhole blackhole) throws XPathExpressionException {
+		for(Document document : documents) {
+			for(List<String> checkExpressions : CHECKS_EXPRESSIONS) {
+				// One factory per check and per file
+				XPath xpath = XPathFactory.newInstance().newXPath();
+				for(String expression : checkExpressions) {
+					blackhole.consume(xpath.evaluate(expression, document, XPathConstants.STRING));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void compiled(Blackhole blackhole) throws XPathExpressionException {
+		for(Document document : documents) {
+			for(CompiledXPath expression : compiledExpressions) {
+				blackhole.consume(expression.evaluate(document, XPathConstants.STRING));
+			}
+		}
+	}
+}
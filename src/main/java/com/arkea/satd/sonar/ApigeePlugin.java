@@ -16,6 +16,9 @@
 package com.arkea.satd.sonar;
 
 import org.sonar.api.Plugin;
+import org.sonar.api.PropertyType;
+import org.sonar.api.config.PropertyDefinition;
+import org.sonar.api.resources.Qualifiers;
 
 import com.arkea.satd.sonar.xml.ApigeeXmlRulesDefinition;
 import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
@@ -29,6 +32,8 @@ import com.arkea.satd.sonar.xml.ApigeeXmlSonarWayProfile;
  */
 public class ApigeePlugin implements Plugin {
 
+	private static final String CATEGORY = "Apigee";
+
 	@Override
 	public void define(Context context) {
 
@@ -36,7 +41,43 @@ public class ApigeePlugin implements Plugin {
 			//Xml.class, // Already imported by sonar-xml-plugin
 			ApigeeXmlRulesDefinition.class,
 			ApigeeXmlSensor.class,
-			ApigeeXmlSonarWayProfile.class
+			ApigeeXmlSonarWayProfile.class,
+
+			PropertyDefinition.builder(ApigeeXmlSensor.THREADS_PROPERTY_KEY)
+				.name("Analysis threads")
+				.description("Number of threads used to parse the Apigee files and run the checks. Checks are dispatched bundle by bundle. The default value 1 runs the analysis sequentially.")
+				.type(PropertyType.INTEGER)
+				.defaultValue("1")
+				.category(CATEGORY)
+				.onQualifiers(Qualifiers.PROJECT)
+				.build(),
+
+			PropertyDefinition.builder(ApigeeXmlSensor.STATISTICS_PROPERTY_KEY)
+				.name("Rules statistics")
+				.description("Logs the time spent, the files visited, the issues raised and the exceptions of each rule at INFO level, and writes them in apigee-rules-statistics.json in the scanner work directory. They are logged at DEBUG level otherwise.")
+				.type(PropertyType.BOOLEAN)
+				.defaultValue("false")
+				.category(CATEGORY)
+				.onQualifiers(Qualifiers.PROJECT)
+				.build(),
+
+			PropertyDefinition.builder(ApigeeXmlSensor.INCREMENTAL_PROPERTY_KEY)
+				.name("Incremental analysis")
+				.description("Pull request analyses only : keeps an index of the Apigee files in the scanner work directory, only parses the files changed since the previous analysis, and only checks the files added or modified by the pull request and the files impacted by them. Other analyses check all the files.")
+				.type(PropertyType.BOOLEAN)
+				.defaultValue("false")
+				.category(CATEGORY)
+				.onQualifiers(Qualifiers.PROJECT)
+				.build(),
+
+			PropertyDefinition.builder(ApigeeXmlSensor.MAX_DOCUMENTS_PROPERTY_KEY)
+				.name("Maximum documents in memory")
+				.description("Maximum number of parsed Apigee files kept in memory during the checks. Beyond this number, the least recently used file is released, and parsed again if a check searches it. The default value 0 keeps the files of a bundle until the bundle has been checked.")
+				.type(PropertyType.INTEGER)
+				.defaultValue("0")
+				.category(CATEGORY)
+				.onQualifiers(Qualifiers.PROJECT)
+				.build()
 			
 		);
 	}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import org.sonar.api.batch.sensor.SensorContext;
+
+import com.arkea.satd.sonar.xml.condition.Conditions;
+
+/**
+ * State of one execution of the ApigeeXmlSensor : the sensor context the issues are saved to,
+ * the index of the files of the analysed bundles, and the cache of the parsed conditions.
+ * The session is given to the checks which need the other files of the bundle (see AbstractBundleCheck),
+ * and closed at the end of the analysis to release the recorded files and the conditions.
+ * @author Nicolas Tisserand
+ */
+public final class AnalysisSession implements AutoCloseable {
+
+	private final SensorContext context;
+	private final BundleRecorder bundleRecorder;
+	private final Conditions conditions = new Conditions();
+
+	public AnalysisSession(SensorContext context) {
+		this(context, new BundleRecorder());
+	}
+
+	public AnalysisSession(SensorContext context, BundleRecorder bundleRecorder) {
+		this.context = context;
+		this.bundleRecorder = bundleRecorder;
+	}
+
+	public SensorContext getContext() {
+		return context;
+	}
+
+	public BundleRecorder getBundleRecorder() {
+		return bundleRecorder;
+	}
+
+	public Conditions getConditions() {
+		return conditions;
+	}
+
+	/**
+	 * Releases the recorded files and the parsed conditions
+	 */
+	@Override
+	public void close() {
+		bundleRecorder.clear();
+		conditions.clear();
+	}
+}
@@ -15,9 +15,19 @@
  */
 package com.arkea.satd.sonar.xml;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.sonar.api.batch.fs.FilePredicate;
@@ -30,11 +40,15 @@ import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.internal.google.common.annotations.VisibleForTesting;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.xml.Xml;
 import org.sonarsource.analyzer.commons.ProgressReport;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
+import com.arkea.satd.sonar.xml.checks.AbstractBundleCheck;
+
 /**
  * ApigeeXmlSensor provides analysis of xml files.
  * 
@@ -43,38 +57,81 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
  */
 public class ApigeeXmlSensor implements Sensor {
 
-	private final Checks<Object> checks;
+	private static final Logger LOG = Loggers.get(ApigeeXmlSensor.class);
+
+	/**
+	 * Number of threads used to parse the files and run the checks. 1 (default) runs them sequentially.
+	 */
+	public static final String THREADS_PROPERTY_KEY = "sonar.apigee.threads";
+
+	/**
+	 * Logs the per-rule statistics at INFO level and writes them in the work directory. They are logged at DEBUG level otherwise.
+	 */
+	public static final String STATISTICS_PROPERTY_KEY = "sonar.apigee.statistics";
+
+	/**
+	 * In pull request analyses, only parses the files changed since the previous analysis and only checks the files impacted by the pull request (see IncrementalAnalysis)
+	 */
+	public static final String INCREMENTAL_PROPERTY_KEY = "sonar.apigee.incremental";
+
+	/**
+	 * Set by the scanner for the pull request analyses only
+	 */
+	static final String PULL_REQUEST_KEY_PROPERTY_KEY = "sonar.pullrequest.key";
+
+	/**
+	 * Maximum number of DOMs kept in memory (see DocumentCache). 0 (default) keeps the DOMs of a bundle until its files have been checked.
+	 */
+	public static final String MAX_DOCUMENTS_PROPERTY_KEY = "sonar.apigee.maxDocuments";
+
+	private final CheckFactory checkFactory;
 	private final FileSystem fileSystem;
 	private final FilePredicate mainFilesPredicate;
 
-	private static SensorContext staticContext;
-
-	public static void setContext(SensorContext ctx) {
-		staticContext = ctx;
-	}
-	
 	public ApigeeXmlSensor(FileSystem fileSystem, CheckFactory checkFactory) {		
-		this.checks = checkFactory.create(CheckRepository.REPOSITORY_KEY).addAnnotatedChecks((Iterable<?>) CheckRepository.getCheckClasses());
+		this.checkFactory = checkFactory;
 		this.fileSystem = fileSystem;
 		this.mainFilesPredicate = fileSystem.predicates().and(
 		fileSystem.predicates().hasType(InputFile.Type.MAIN),
 		fileSystem.predicates().hasLanguage(Xml.KEY));
 	}
 
-	private void runChecks(SensorContext context, XmlFile newXmlFile) {
-	    checks.all().stream()
-	      .map(SonarXmlCheck.class::cast)
-	      // checks.ruleKey(check) is never null because "check" is part of "checks.all()"
-	      .forEach(check -> runCheck(context, check, checks.ruleKey(check), newXmlFile));
+	/**
+	 * Creates a new instance of each active check, bound to the analysis session.
+	 * Checks keep the state of the file being scanned, so each analysis and each thread needs its own instances.
+	 * @param session
+	 * @param statistics
+	 * @return
+	 */
+	private CheckDispatcher createChecks(AnalysisSession session, CheckStatistics statistics) {
+		Checks<Object> sessionChecks = checkFactory.create(CheckRepository.REPOSITORY_KEY).addAnnotatedChecks((Iterable<?>) CheckRepository.getCheckClasses());
+		sessionChecks.all().stream()
+			.filter(AbstractBundleCheck.class::isInstance)
+			.forEach(check -> ((AbstractBundleCheck) check).setSession(session));
+		CheckDispatcher dispatcher = new CheckDispatcher(sessionChecks);
+		// Rules which visit no file also appear in the statistics
+		dispatcher.all().forEach(check -> statistics.addRule(dispatcher.ruleKey(check)));
+		return dispatcher;
+	}
+
+	private void runChecks(SensorContext context, CheckDispatcher dispatcher, XmlFile newXmlFile, CheckStatistics statistics) {
+	    // Only the checks handling the root element of the file
+	    dispatcher.checksFor(newXmlFile)
+	      .forEach(check -> runCheck(context, check, dispatcher.ruleKey(check), newXmlFile, statistics));
 	}
 	
 	@VisibleForTesting
-	  void runCheck(SensorContext context, SonarXmlCheck check, RuleKey ruleKey, XmlFile newXmlFile) {
+	  void runCheck(SensorContext context, SonarXmlCheck check, RuleKey ruleKey, XmlFile newXmlFile, CheckStatistics statistics) {
+	    long start = System.nanoTime();
+	    boolean failed = false;
 	    try {
 	      check.scanFile(context, ruleKey, newXmlFile);
 	    } catch (Exception e) {
-	    	// Do nothing
+	    	// The analysis goes on with the other rules
+	    	failed = true;
+	    	LOG.debug("Rule " + ruleKey + " failed on " + newXmlFile.getInputFile(), e);
 	    }
+	    statistics.recordScan(ruleKey, System.nanoTime() - start, failed);
 	}	
 		
 	@Override
@@ -90,13 +147,32 @@ public class ApigeeXmlSensor implements Sensor {
 	}
 
 	@Override
-	public void execute(SensorContext context) {
+	public void execute(SensorContext sensorContext) {
 		
-		// Catch the context
-		ApigeeXmlSensor.setContext(context);
+		int threads = Math.max(1, sensorContext.config().getInt(THREADS_PROPERTY_KEY).orElse(1));
+
+		// Issues may be saved from several threads
+		SensorContext context = threads > 1 ? SynchronizedSensorContext.wrap(sensorContext) : sensorContext;
 
-		// Clear the BundleRecorder from eventual previous execution
-		BundleRecorder.clear();
+		// Time, files, issues and exceptions of each rule
+		CheckStatistics statistics = new CheckStatistics();
+		context = statistics.countIssues(context);
+
+		// Context and bundle index of this analysis only
+		AnalysisSession session = new AnalysisSession(context);
+		session.getBundleRecorder().limitDocuments(sensorContext.config().getInt(MAX_DOCUMENTS_PROPERTY_KEY).orElse(0));
+
+		// Index of the previous analysis. The files to check are given by the status of the files in the pull request.
+		IncrementalAnalysis incremental = null;
+		if(sensorContext.config().getBoolean(INCREMENTAL_PROPERTY_KEY).orElse(false)) {
+			Optional<String> pullRequest = sensorContext.config().get(PULL_REQUEST_KEY_PROPERTY_KEY);
+			if(pullRequest.isPresent()) {
+				incremental = new IncrementalAnalysis(fileSystem.workDir().toPath().resolve(IncrementalAnalysis.FILE_NAME), IncrementalAnalysis.fingerprint(sensorContext.activeRules()), pullRequest.get());
+				session.getBundleRecorder().trackDependencies();
+			} else {
+				LOG.info("Incremental analysis : not a pull request analysis, all the files are analysed");
+			}
+		}
 
 	    List<InputFile> inputFiles = new ArrayList<>();
 	    fileSystem.inputFiles(mainFilesPredicate).forEach(inputFiles::add);
@@ -108,44 +184,239 @@ public class ApigeeXmlSensor implements Sensor {
 	    ProgressReport progressReport = new ProgressReport("Report about progress of Apigee XML analyzer", TimeUnit.SECONDS.toMillis(10));
 	    progressReport.start(inputFiles.stream().map(InputFile::toString).collect(Collectors.toList()));
 
+	    // The first loop only streams the files to read their facts, the DOMs are built during the second loop
+	    AtomicInteger scannedFiles = new AtomicInteger();
+	    AtomicInteger parseFailures = new AtomicInteger();
+
+	    // The same pool is used to parse and to check the files
+	    ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
 	    boolean cancelled = false;
 	    try {
 	    	
-			// First loop to store ALL files.
-			for (InputFile inputFile : inputFiles) {
-				try {
-					XmlFile xmlFile = XmlFile.create(inputFile);
-					BundleRecorder.storeFile(xmlFile);
-				} catch(Exception e) {
-					// Case of parse exception
-			    }
+			// First loop to scan and store ALL files.
+			if(pool != null) {
+				List<Future<?>> tasks = new ArrayList<>();
+				IncrementalAnalysis previousAnalysis = incremental;
+				for (InputFile inputFile : inputFiles) {
+					tasks.add(pool.submit(() -> scanAndStore(session.getBundleRecorder(), inputFile, scannedFiles, parseFailures, previousAnalysis)));
+				}
+				cancelled = !await(tasks);
+			} else {
+				for (InputFile inputFile : inputFiles) {
+					scanAndStore(session.getBundleRecorder(), inputFile, scannedFiles, parseFailures, incremental);
+				}
 			}
+			LOG.info("{} Apigee XML files parsed ({} parse failures)", scannedFiles.get(), parseFailures.get());
+
+			// The BundleRecorder is read-only from now on
+			session.getBundleRecorder().freeze();
+
+			List<InputFile> filesToCheck = incremental != null && !cancelled ? incremental.filesToCheck(inputFiles, session.getBundleRecorder()) : inputFiles;
 	    	
-			// Second loop to checks files one by one.
-	      for (InputFile inputFile : inputFiles) {
-	        if (context.isCancelled()) {
-	          cancelled = true;
-	          break;
-	        }
-			
-	        try {
-				XmlFile xmlFile = XmlFile.create(inputFile);
-				runChecks(context, xmlFile);
-			} catch(Exception e) {
-				// Case of parse exception
-		    }	        
-	        progressReport.nextFile();
-	      }
+			// Second loop to checks files bundle by bundle, the DOMs of a bundle being released once its files have been checked.
+			if(cancelled) {
+				// Nothing to do
+			} else if(pool != null) {
+				cancelled = runChecksInParallel(session, filesToCheck, pool, progressReport, statistics);
+			} else {
+				cancelled = runChecksSequentially(session, filesToCheck, progressReport, statistics);
+			}
+			if(!cancelled) {
+				reportDocuments(session.getBundleRecorder().getDocumentCache());
+				reportStatistics(statistics, sensorContext.config().getBoolean(STATISTICS_PROPERTY_KEY).orElse(false));
+				if(incremental != null) {
+					saveIndex(incremental, inputFiles, filesToCheck, session.getBundleRecorder());
+				}
+			}
 	    } finally {
+	      if (pool != null) {
+	        pool.shutdownNow();
+	      }
 	      if (!cancelled) {
 	        progressReport.stop();
 	      } else {
 	        progressReport.cancel();
 	      }
+	      // Release the recorded files
+	      session.close();
 	    }		
 	}
 
-	public static SensorContext getContext() {
-		return staticContext;
+	/**
+	 * Logs the number of DOMs built during the checks : evicted DOMs are parsed again when they are searched
+	 */
+	private static void reportDocuments(DocumentCache documentCache) {
+		if(documentCache.getMaxDocuments() > 0) {
+			LOG.info("{} Apigee XML documents parsed during the checks, {} evicted (at most {} in memory)", documentCache.getParses(), documentCache.getEvictions(), documentCache.getMaxDocuments());
+		} else {
+			LOG.debug("{} Apigee XML documents parsed during the checks", documentCache.getParses());
+		}
+	}
+
+	/**
+	 * Logs the statistics of the rules, and writes them in the work directory if requested
+	 */
+	private void reportStatistics(CheckStatistics statistics, boolean report) {
+		if(report) {
+			LOG.info(statistics.summary());
+			Path file = fileSystem.workDir().toPath().resolve(CheckStatistics.FILE_NAME);
+			try {
+				statistics.writeJson(file);
+				LOG.info("Apigee rules statistics written to {}", file);
+			} catch (IOException e) {
+				LOG.warn("Unable to write the Apigee rules statistics to " + file, e);
+			}
+		} else if(LOG.isDebugEnabled()) {
+			LOG.debug(statistics.summary());
+		}
+	}
+
+	private static void saveIndex(IncrementalAnalysis incremental, List<InputFile> inputFiles, List<InputFile> checkedFiles, BundleRecorder bundleRecorder) {
+		try {
+			incremental.save(inputFiles, checkedFiles, bundleRecorder);
+		} catch (IOException e) {
+			LOG.warn("Unable to write the Apigee bundle index, the next analysis will not be incremental", e);
+		}
+	}
+
+	/**
+	 * Scans the facts of the file and stores them in the BundleRecorder, without building the DOM. May be called from several threads.
+	 * In incremental mode, a file whose content has not changed since the previous analysis is stored with its persisted facts, without being read.
+	 */
+	private static void scanAndStore(BundleRecorder bundleRecorder, InputFile inputFile, AtomicInteger scannedFiles, AtomicInteger parseFailures, IncrementalAnalysis incremental) {
+		if(incremental != null) {
+			IncrementalAnalysis.Entry unchangedEntry = incremental.unchangedEntry(inputFile);
+			if(unchangedEntry != null) {
+				if(unchangedEntry.getFacts() != null) {
+					bundleRecorder.storeFacts(inputFile, unchangedEntry.getFacts());
+				}
+				return;
+			}
+		}
+		try {
+			FileFacts facts = FactsScanner.scan(inputFile);
+			scannedFiles.incrementAndGet();
+			if(facts != null) {
+				bundleRecorder.storeFacts(inputFile, facts);
+			}
+		} catch(Exception e) {
+			// Case of parse exception
+			parseFailures.incrementAndGet();
+	    }
+	}
+
+	/**
+	 * Waits for the end of all the tasks
+	 * @return false if the wait has been interrupted
+	 */
+	private static boolean await(List<Future<?>> tasks) {
+		try {
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			LOG.error("Apigee XML analysis failed", e.getCause());
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the XmlFile of a stored file, parsing it if needed
+	 * @return null if the file cannot be parsed
+	 */
+	private static XmlFile xmlFileOf(BundleFile file) {
+		try {
+			return file.getXmlFile();
+		} catch (IllegalStateException e) {
+			LOG.debug("Unable to parse " + file.getInputFile(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Groups the files by bundle, in the order of the files
+	 */
+	private static Map<Bundle, List<InputFile>> filesByBundle(AnalysisSession session, List<InputFile> inputFiles) {
+		Map<Bundle, List<InputFile>> filesByBundle = new LinkedHashMap<>();
+		for (InputFile inputFile : inputFiles) {
+			filesByBundle.computeIfAbsent(session.getBundleRecorder().getBundle(inputFile), k -> new ArrayList<>()).add(inputFile);
+		}
+		return filesByBundle;
+	}
+
+	/**
+	 * Runs the checks of the files of a bundle, then releases the DOMs of the bundle
+	 * @return true if the analysis has been cancelled
+	 */
+	private boolean checkBundle(SensorContext context, CheckDispatcher checks, AnalysisSession session, Bundle bundle, List<InputFile> bundleFiles, ProgressReport progressReport, CheckStatistics statistics) {
+		try {
+			for (InputFile inputFile : bundleFiles) {
+				if (context.isCancelled()) {
+					return true;
+				}
+				BundleFile file = session.getBundleRecorder().getFile(inputFile);
+				if(file != null) {
+					// The DOM of the checked file is kept while its checks search the bundle
+					file.pin();
+					try {
+						XmlFile xmlFile = xmlFileOf(file);
+						if(xmlFile != null) {
+							runChecks(context, checks, xmlFile, statistics);
+						}
+					} finally {
+						file.unpin();
+					}
+				}
+				progressReport.nextFile();
+			}
+			return false;
+		} finally {
+			// The cross-file searches of a check only read the DOMs of its own bundle
+			bundle.releaseDocuments();
+		}
+	}
+
+	/**
+	 * Runs the checks on the current thread
+	 * @return true if the analysis has been cancelled
+	 */
+	private boolean runChecksSequentially(AnalysisSession session, List<InputFile> inputFiles, ProgressReport progressReport, CheckStatistics statistics) {
+	      SensorContext context = session.getContext();
+	      CheckDispatcher checks = createChecks(session, statistics);
+	      for (Map.Entry<Bundle, List<InputFile>> bundleFiles : filesByBundle(session, inputFiles).entrySet()) {
+	        if (checkBundle(context, checks, session, bundleFiles.getKey(), bundleFiles.getValue(), progressReport, statistics)) {
+	          return true;
+	        }
+	      }
+	      return false;
+	}
+
+	/**
+	 * Runs the checks on a pool of threads.
+	 * Files are dispatched bundle by bundle : the cross-file searches of a check only read the DOM of its own bundle,
+	 * so a DOM is never read by two threads at the same time.
+	 * @return true if the analysis has been cancelled
+	 */
+	private boolean runChecksInParallel(AnalysisSession session, List<InputFile> inputFiles, ForkJoinPool pool, ProgressReport progressReport, CheckStatistics statistics) {
+
+		SensorContext context = session.getContext();
+		AtomicBoolean cancelled = new AtomicBoolean(false);
+		ThreadLocal<CheckDispatcher> threadChecks = ThreadLocal.withInitial(() -> createChecks(session, statistics));
+		List<Future<?>> tasks = new ArrayList<>();
+		for (Map.Entry<Bundle, List<InputFile>> bundleFiles : filesByBundle(session, inputFiles).entrySet()) {
+			tasks.add(pool.submit(() -> {
+				if (cancelled.get() || checkBundle(context, threadChecks.get(), session, bundleFiles.getKey(), bundleFiles.getValue(), progressReport, statistics)) {
+					cancelled.set(true);
+				}
+			}));
+		}
+		if(!await(tasks)) {
+			cancelled.set(true);
+		}
+		return cancelled.get();
 	}
 }
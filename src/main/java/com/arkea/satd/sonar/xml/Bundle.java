@@ -0,0 +1,313 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Node;
+
+/**
+ * Files of a single bundle (apiproxy or sharedflowbundle directory).
+ * Inverted indexes (policy name, policy type, step name, resource URL and target name) are built
+ * once when the files are stored, from the facts of each file, so that every search is a simple map lookup.
+ * Files can be stored from several threads. Every index entry is sorted by file path,
+ * so that the content of the bundle does not depend on the order of storage.
+ * @author Nicolas Tisserand
+ */
+public class Bundle {
+
+	// Names of the indexes, used as prefix of the index keys (see keysOf)
+	static final String POLICY_NAME = "policyName";
+	static final String POLICY_TYPE = "policyType";
+	static final String RESOURCE_URL = "resourceURL";
+	static final String TARGET_NAME = "targetName";
+	static final String STEP_NAME = "stepName";
+
+	private final String rootPath;
+
+	// DOMs held by the files of the recorder
+	private final DocumentCache documentCache;
+
+	// All the stored files, by path
+	private final SortedMap<String, BundleFile> files = new TreeMap<>();
+
+	// Indexes built at storage time : key -> file path -> file
+	private final Map<String, SortedMap<String, BundleFile>> policiesByName = new HashMap<>();
+	private final Map<String, SortedMap<String, BundleFile>> policiesByType = new HashMap<>();
+	private final Map<String, SortedMap<String, BundleFile>> policiesByResourceURL = new HashMap<>();
+	private final Map<String, SortedMap<String, BundleFile>> targetsByName = new HashMap<>();
+	private final Map<String, SortedMap<String, BundleFile>> stepsByName = new HashMap<>();
+
+	Bundle(String rootPath, DocumentCache documentCache) {
+		this.rootPath = rootPath;
+		this.documentCache = documentCache;
+	}
+
+	/**
+	 * Path of the bundle root directory, empty for files found outside of any bundle directory
+	 * @return
+	 */
+	public String getRootPath() {
+		return rootPath;
+	}
+	
+	/**
+	 * Stores the XmlFile depending on its type, and updates the indexes.
+	 * The document is read before taking the lock of the bundle, only the indexes update is synchronized.
+	 * @param xmlFile
+	 */
+	void storeFile(XmlFile xmlFile) {
+		FileFacts facts = FileFacts.of(xmlFile.getDocument());
+		if(facts != null) {
+			store(new BundleFile(xmlFile.getInputFile(), facts, xmlFile, documentCache));
+		}
+	}
+
+	/**
+	 * Stores a file known by its facts only. The file is parsed when its XmlFile is searched.
+	 * @param inputFile
+	 * @param facts
+	 */
+	void storeFacts(InputFile inputFile, FileFacts facts) {
+		store(new BundleFile(inputFile, facts, null, documentCache));
+	}
+
+	private synchronized void store(BundleFile file) {
+		String fileName = file.getInputFile().uri().getPath();
+		FileFacts facts = file.getFacts();
+
+		// A file stored twice replaces its previous version
+		unstoreFile(fileName);
+		files.put(fileName, file);
+
+		for(String key : keysOf(facts)) {
+			int separator = key.indexOf(':');
+			index(indexNamed(key.substring(0, separator)), key.substring(separator + 1), fileName, file);
+		}
+	}
+
+	/**
+	 * Returns the index keys the file contributes to, depending on its type : "index:key"
+	 * @param facts
+	 * @return
+	 */
+	static Set<String> keysOf(FileFacts facts) {
+		Set<String> keys = new LinkedHashSet<>();
+		String rootNodeName = facts.getRootElement();
+		if("ProxyEndpoint".equals(rootNodeName) || "SharedFlow".equals(rootNodeName)) {
+			// ProxyEndpoint and SharedFlow storage
+			facts.getStepNames().forEach(stepName -> keys.add(STEP_NAME + ":" + stepName));
+		} else if ("TargetEndpoint".equals(rootNodeName)) {
+			// TargetEndpoint storage
+			facts.getStepNames().forEach(stepName -> keys.add(STEP_NAME + ":" + stepName));
+			keys.add(TARGET_NAME + ":" + facts.getName());
+		} else if ("APIProxy".equals(rootNodeName) || "SharedFlowBundle".equals(rootNodeName) || "Manifest".equals(rootNodeName)) {
+			// APIProxy, SharedFlowBundle & Manifest storage
+			// No need to index for the moment 
+		} else if ("xsl:stylesheet".equals(rootNodeName) || "wsdl:definitions".equals(rootNodeName) || "xs:schema".equals(rootNodeName) ) {
+			// Resource storage
+			// No need to index for the moment 
+		} else {
+			// Policy storage
+			keys.add(POLICY_NAME + ":" + facts.getName());
+			keys.add(POLICY_TYPE + ":" + rootNodeName);
+			if(facts.getResourceURL() != null) {
+				keys.add(RESOURCE_URL + ":" + facts.getResourceURL());
+			}
+		}
+		return keys;
+	}
+
+	private Map<String, SortedMap<String, BundleFile>> indexNamed(String indexName) {
+		switch (indexName) {
+		case POLICY_NAME:
+			return policiesByName;
+		case POLICY_TYPE:
+			return policiesByType;
+		case RESOURCE_URL:
+			return policiesByResourceURL;
+		case TARGET_NAME:
+			return targetsByName;
+		default:
+			return stepsByName;
+		}
+	}
+	
+	private static <T> void index(Map<String, SortedMap<String, T>> index, String key, String fileName, T value) {
+		index.computeIfAbsent(key, k -> new TreeMap<>()).put(fileName, value);
+	}
+	
+	/**
+	 * Removes a previously stored file from the storage and from the indexes
+	 * @param fileName
+	 */
+	private void unstoreFile(String fileName) {
+		if(files.remove(fileName) != null) {
+			for(Map<String, SortedMap<String, BundleFile>> index : Arrays.asList(policiesByName, policiesByType, policiesByResourceURL, targetsByName, stepsByName)) {
+				index.values().forEach(entry -> entry.remove(fileName));
+				index.values().removeIf(Map::isEmpty);
+			}
+		}
+	}
+
+	/**
+	 * Returns the stored file, or null
+	 * @param fileName path of the file
+	 * @return
+	 */
+	synchronized BundleFile getFile(String fileName) {
+		return files.get(fileName);
+	}
+	
+	
+	/**
+	 * Returns all XmlFile containing a Step with the Name stepName
+	 * @param stepName
+	 * @return
+	 */
+	public List<XmlFile> searchByStepName(String stepName) {
+		// Search for "stepName" in both ProxyEndpoint, SharedFlow and TargetEndpoint
+		return xmlFiles(stepsByName.get(stepName));
+	}
+	
+	
+	/**
+	 * Returns all XmlFile containing a Policy of type policyType
+	 * @param policyType
+	 * @return
+	 */
+	public List<XmlFile> searchPoliciesByType(String policyType) {
+		return xmlFiles(policiesByType.get(policyType));
+	}
+	
+	/**
+	 * Returns the facts of all the Policies of type policyType, without parsing them
+	 * @param policyType
+	 * @return
+	 */
+	public List<FileFacts> searchPolicyFactsByType(String policyType) {
+		List<FileFacts> facts = new ArrayList<>();
+		policiesByType.getOrDefault(policyType, Collections.emptySortedMap()).values().forEach(file -> facts.add(file.getFacts()));
+		return facts;
+	}
+	
+	/**
+	 * Returns the XmlFile containing the Policy of name policyName
+	 * Policy names are unique
+	 * @param policyType
+	 * @return
+	 */
+	public XmlFile searchPoliciesByName(String policyName) {
+		return first(policiesByName.get(policyName));
+	}
+	
+	/**
+	 * A policy can be used in several steps.
+	 * This function returns the list of "Step" nodes containing all steps using the stepName.
+	 * @param stepName
+	 * @return
+	 */
+	public Map<Node, XmlFile> searchStepsByName(String stepName) {
+		// Search for "stepName" in both ProxyEndpoint, SharedFlow and TargetEndpoint
+		Map<Node, XmlFile> matchingNodes = new LinkedHashMap<>();
+		stepsByName.getOrDefault(stepName, Collections.emptySortedMap()).values().forEach(file -> {
+			XmlFile xmlFile = file.getXmlFile();
+			file.getStepNodes(xmlFile, stepName).forEach(node -> matchingNodes.put(node, xmlFile));
+		});
+		return matchingNodes;
+	}
+	
+	/**
+	 * Returns the XmlFile containing the TargetEndpoint of name targetName
+	 * TargetEndpoint names are unique
+	 * @param targetName
+	 * @return
+	 */
+	public XmlFile searchTargetEndpointByName(String targetName) {
+		return first(targetsByName.get(targetName));
+	}			
+
+	
+	/**
+	 * Returns the XmlFile list containing the policies having a link to the resourceURL
+	 * @param resourceURL
+	 * @return
+	 */
+	public List<XmlFile> searchPoliciesByResourceURL(String resourceURL) {
+		return xmlFiles(policiesByResourceURL.get(resourceURL));
+	}
+
+	/**
+	 * Releases the DOM of all the files, once the files of the bundle have been checked.
+	 * A DOM released is parsed again if it is searched later.
+	 */
+	synchronized void releaseDocuments() {
+		files.values().forEach(file -> {
+			file.release();
+			documentCache.removed(file);
+		});
+	}
+
+	private static List<XmlFile> xmlFiles(SortedMap<String, BundleFile> entry) {
+		List<XmlFile> xmlFiles = new ArrayList<>();
+		if(entry != null) {
+			entry.values().forEach(file -> xmlFiles.add(file.getXmlFile()));
+		}
+		return xmlFiles;
+	}
+	
+	private static XmlFile first(SortedMap<String, BundleFile> entry) {
+		return entry == null || entry.isEmpty() ? null : entry.get(entry.firstKey()).getXmlFile();
+	}
+	
+	/**
+	 * Describes the recorded content : stored files and, for each index, the paths of the files per key
+	 */
+	@Override
+	public synchronized String toString() {
+		return "Bundle " + rootPath + " " + files.keySet()
+			+ " policiesByName=" + describe(policiesByName, (key, entry) -> entry.keySet())
+			+ " policiesByType=" + describe(policiesByType, (key, entry) -> entry.keySet())
+			+ " policiesByResourceURL=" + describe(policiesByResourceURL, (key, entry) -> entry.keySet())
+			+ " targetsByName=" + describe(targetsByName, (key, entry) -> entry.keySet())
+			+ " stepsByName=" + describe(stepsByName, (stepName, entry) -> {
+				// Number of steps per file
+				Map<String, Long> stepsCount = new TreeMap<>();
+				entry.forEach((fileName, file) -> stepsCount.put(fileName, file.getFacts().getStepNames().stream().filter(stepName::equals).count()));
+				return stepsCount;
+			});
+	}
+	
+	private static String describe(Map<String, SortedMap<String, BundleFile>> index, BiFunction<String, SortedMap<String, BundleFile>, Object> description) {
+		Map<String, Object> sortedIndex = new TreeMap<>();
+		index.forEach((key, entry) -> sortedIndex.put(key, description.apply(key, entry)));
+		return sortedIndex.toString();
+	}
+	
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+
+/**
+ * A file stored in a Bundle : its facts, and its XmlFile.
+ * A file stored with its facts only is parsed on the first access to its XmlFile.
+ * Its DOM can be released at any time (see DocumentCache), and is parsed again on the next access.
+ * @author Nicolas Tisserand
+ */
+final class BundleFile {
+
+	private final InputFile inputFile;
+	private final FileFacts facts;
+	private final DocumentCache documentCache;
+	private XmlFile xmlFile;
+
+	// Incremented each time the file is parsed, to know if a DOM evicted by the cache is still the current one
+	private volatile int generation = 0;
+
+	// Step nodes by Name, read from the DOM on first use
+	private Map<String, List<Node>> stepNodes;
+	private XmlFile stepNodesXmlFile;
+
+	// Model of an endpoint, read from the DOM on first use
+	private Endpoint endpoint;
+	private XmlFile endpointXmlFile;
+
+	// Number of threads running the checks of the file
+	private final AtomicInteger pins = new AtomicInteger();
+
+	BundleFile(InputFile inputFile, FileFacts facts, XmlFile xmlFile, DocumentCache documentCache) {
+		this.inputFile = inputFile;
+		this.facts = facts;
+		this.xmlFile = xmlFile;
+		this.documentCache = documentCache;
+	}
+
+	InputFile getInputFile() {
+		return inputFile;
+	}
+
+	FileFacts getFacts() {
+		return facts;
+	}
+
+	/**
+	 * Returns the XmlFile, parsing the file if it has been stored with its facts only or if its DOM has been released
+	 * @return
+	 */
+	XmlFile getXmlFile() {
+		XmlFile document;
+		boolean parsed = false;
+		synchronized (this) {
+			if(xmlFile == null) {
+				try {
+					xmlFile = XmlFile.create(inputFile);
+				} catch (Exception e) {
+					throw new IllegalStateException("Unable to parse " + inputFile, e);
+				}
+				generation++;
+				parsed = true;
+			}
+			document = xmlFile;
+		}
+		// Out of the lock of the file, as the cache may release other files
+		if(parsed) {
+			documentCache.parsed(this);
+		} else {
+			documentCache.used(this);
+		}
+		return document;
+	}
+
+	/**
+	 * Returns the Step nodes having a Name child equal to stepName
+	 * @param document the XmlFile of the file, as returned by getXmlFile()
+	 * @param stepName
+	 * @return
+	 */
+	synchronized List<Node> getStepNodes(XmlFile document, String stepName) {
+		return stepNodes(document).getOrDefault(stepName, Collections.emptyList());
+	}
+
+	private Map<String, List<Node>> stepNodes(XmlFile document) {
+		if(stepNodes == null || stepNodesXmlFile != document) {
+			stepNodes = new HashMap<>();
+			stepNodesXmlFile = document;
+			NodeList nodes = document.getDocument().getElementsByTagName("Step");
+			for(int i=0; i<nodes.getLength(); i++) {
+				Node stepNode = nodes.item(i);
+				for(Node child = stepNode.getFirstChild(); child != null; child = child.getNextSibling()) {
+					if(child.getNodeType() == Node.ELEMENT_NODE && "Name".equals(child.getNodeName())) {
+						stepNodes.computeIfAbsent(child.getTextContent().trim(), k -> new ArrayList<>()).add(stepNode);
+					}
+				}
+			}
+		}
+		return stepNodes;
+	}
+
+	/**
+	 * Returns the model of the endpoint, read once per DOM
+	 * @param document the XmlFile of the file, as returned by getXmlFile()
+	 * @return null if the file is not an endpoint
+	 */
+	synchronized Endpoint getEndpoint(XmlFile document) {
+		if(endpointXmlFile != document) {
+			endpoint = Endpoint.of(document.getDocument());
+			endpointXmlFile = document;
+		}
+		return endpoint;
+	}
+
+	/**
+	 * Releases the DOM of the file. It is parsed again if the XmlFile is searched later.
+	 */
+	synchronized void release() {
+		xmlFile = null;
+		stepNodes = null;
+		stepNodesXmlFile = null;
+		endpoint = null;
+		endpointXmlFile = null;
+	}
+
+	/**
+	 * Releases the DOM evicted by the DocumentCache, unless the file has been pinned or parsed again since its eviction
+	 * @param evictedGeneration generation of the file when it was evicted
+	 * @return true if the DOM has been released
+	 */
+	synchronized boolean release(int evictedGeneration) {
+		if(isPinned() || generation != evictedGeneration || xmlFile == null) {
+			return false;
+		}
+		release();
+		return true;
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Keeps the DOM of the file until unpin(), while its checks run. Several threads may pin the same file.
+	 */
+	void pin() {
+		pins.incrementAndGet();
+	}
+
+	void unpin() {
+		pins.decrementAndGet();
+	}
+
+	boolean isPinned() {
+		return pins.get() > 0;
+	}
+}
@@ -16,257 +16,266 @@
 package com.arkea.satd.sonar.xml;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
+import org.sonar.api.batch.fs.InputFile;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
 
 /**
- * This class records each files discovered in the bundle directory
+ * This class records each files discovered in the bundle directories.
+ * Files are partitioned per bundle, so that searches are restricted to the bundle of the analysed file.
+ * Files can be stored concurrently, each bundle being locked independently.
+ * Each analysis owns its recorder (see AnalysisSession), so several analyses can run in the same JVM.
  * @author Nicolas Tisserand
  */
 public class BundleRecorder {
 
-	private static Map<String, XmlFile> proxiesEndpoint = new HashMap<>();
-	private static Map<String, XmlFile> targetsEndpoint = new HashMap<>();
-	private static Map<String, XmlFile> resources = new HashMap<>();
-	private static Map<String, XmlFile> policies = new HashMap<>();
+	private static final List<String> BUNDLE_DIRECTORIES = Arrays.asList("apiproxy", "sharedflowbundle");
+
+	private final Map<String, Bundle> bundles = new ConcurrentHashMap<>();
+
+	// Once frozen, the recorder is read-only and can be searched from several threads
+	private volatile boolean frozen = false;
+
+	// Index keys searched for each analysed file, when tracked (see IncrementalAnalysis)
+	private volatile Map<String, Set<String>> dependencies = null;
+
+	// DOMs held by the stored files, unbounded unless limitDocuments() is called
+	private volatile DocumentCache documentCache = new DocumentCache(0);
 	
-	private BundleRecorder() {
-		// Private constructor
+	public void clear() {
+		bundles.clear();
+		frozen = false;
+		dependencies = null;
+		documentCache = new DocumentCache(documentCache.getMaxDocuments());
 	}
-	
-	public static void clear() {
-			proxiesEndpoint.clear();
-			targetsEndpoint.clear();
-			resources.clear();
-			policies.clear();
+
+	/**
+	 * Limits the number of DOMs held by the files stored from now on : beyond the limit, the least recently used DOM is released,
+	 * and is parsed again if it is searched later
+	 * @param maxDocuments 0 or less for no limit
+	 */
+	void limitDocuments(int maxDocuments) {
+		documentCache = new DocumentCache(maxDocuments);
+	}
+
+	DocumentCache getDocumentCache() {
+		return documentCache;
+	}
+
+	/**
+	 * Records, until the next call to clear(), the index keys searched for each analysed file
+	 */
+	void trackDependencies() {
+		dependencies = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Returns the index keys searched for the file since trackDependencies(), qualified by the bundle (see dependencyKey)
+	 * @param inputFile
+	 * @return
+	 */
+	Set<String> getDependencies(InputFile inputFile) {
+		Map<String, Set<String>> tracked = dependencies;
+		Set<String> fileDependencies = tracked != null ? tracked.get(inputFile.uri().getPath()) : null;
+		return fileDependencies != null ? fileDependencies : Collections.emptySet();
+	}
+
+	/**
+	 * Index key qualified by the bundle root path, as searches are restricted to the bundle of the analysed file
+	 * @param rootPath
+	 * @param indexKey "index:key" (see Bundle.keysOf)
+	 * @return
+	 */
+	static String dependencyKey(String rootPath, String indexKey) {
+		return rootPath + "|" + indexKey;
+	}
+
+	/**
+	 * Makes the recorder read-only, until the next call to clear()
+	 */
+	public void freeze() {
+		frozen = true;
 	}
 	
 	/**
-	 * Stores the XmlFile in static Maps depending on their type
+	 * Stores the XmlFile in the bundle it belongs to
 	 * @param xmlFile
 	 */
-	public static void storeFile(XmlFile xmlFile) {
+	public void storeFile(XmlFile xmlFile) {
+		if(frozen) {
+			throw new IllegalStateException("BundleRecorder is read-only once the files have been stored");
+		}
+		getBundle(xmlFile.getInputFile()).storeFile(xmlFile);
+	}
 
-		Document document = xmlFile.getDocument();
-		String fileName = xmlFile.getInputFile().uri().getPath();
-		
-	    if (document.getDocumentElement() != null) {
-	    	
-	    	String rootNodeName = document.getDocumentElement().getNodeName();
-	    	
-	    	if("ProxyEndpoint".equals(rootNodeName) || "SharedFlow".equals(rootNodeName)) {
-				// ProxyEndpoint and SharedFlow storage
-		    	proxiesEndpoint.put(fileName, xmlFile);
-	    	} else if ("TargetEndpoint".equals(rootNodeName)) {
-				// TargetEndpoint storage
-		    	targetsEndpoint.put(fileName, xmlFile);
-	    	} else if ("APIProxy".equals(rootNodeName) || "SharedFlowBundle".equals(rootNodeName) || "Manifest".equals(rootNodeName)) {
-				// APIProxy, SharedFlowBundle & Manifest storage
-		    	// No need to store for the moment 
-	    	} else if ("xsl:stylesheet".equals(rootNodeName) || "wsdl:definitions".equals(rootNodeName) || "xs:schema".equals(rootNodeName) ) {
-				// Resource storage
-	    		resources.put(fileName, xmlFile);
-	    	} else {
-	    		// Policy storage
-	    		policies.put(fileName, xmlFile);
-	    	}
-	    }
+	/**
+	 * Stores a file known by its facts only, in the bundle it belongs to. The file is parsed when its XmlFile is searched.
+	 * @param inputFile
+	 * @param facts
+	 */
+	void storeFacts(InputFile inputFile, FileFacts facts) {
+		if(frozen) {
+			throw new IllegalStateException("BundleRecorder is read-only once the files have been stored");
+		}
+		getBundle(inputFile).storeFacts(inputFile, facts);
+	}
 
+	/**
+	 * Returns the stored file, or null
+	 * @param inputFile
+	 * @return
+	 */
+	BundleFile getFile(InputFile inputFile) {
+		return getBundle(inputFile).getFile(inputFile.uri().getPath());
 	}
-	
-	
+
 	/**
-	 * Returns all XmlFile containing a Step with the Name stepName
-	 * @param stepName
+	 * Returns the model of an endpoint, read once and shared by the checks of the file
+	 * @param xmlFile a ProxyEndpoint or a TargetEndpoint
+	 * @return null if the file is not an endpoint
+	 */
+	public Endpoint getEndpoint(XmlFile xmlFile) {
+		// No bundle is created for a file which has not been stored
+		Bundle bundle = bundles.get(bundleRootOf(xmlFile.getInputFile().uri().getPath()));
+		BundleFile file = bundle != null ? bundle.getFile(xmlFile.getInputFile().uri().getPath()) : null;
+		return file != null ? file.getEndpoint(xmlFile) : Endpoint.of(xmlFile.getDocument());
+	}
+
+	/**
+	 * Returns the bundle the inputFile belongs to.
+	 * The bundle root is the nearest "apiproxy" or "sharedflowbundle" directory, which holds the APIProxy or SharedFlowBundle descriptor.
+	 * Files outside of such a directory all belong to the same default bundle.
+	 * @param inputFile
 	 * @return
 	 */
-	public static List<XmlFile> searchByStepName(String stepName) {
-		
-		List<XmlFile> matchingXmlFile = new ArrayList<>();
+	public Bundle getBundle(InputFile inputFile) {
+		String rootPath = bundleRootOf(inputFile.uri().getPath());
+		if(frozen) {
+			// No modification of the recorder : unknown bundles are empty
+			Bundle bundle = bundles.get(rootPath);
+			return bundle != null ? bundle : new Bundle(rootPath, documentCache);
+		}
+		return bundles.computeIfAbsent(rootPath, path -> new Bundle(path, documentCache));
+	}
 
-		// Concat full list
-		List<XmlFile> fullXmlFile = new ArrayList<>();
-		fullXmlFile.addAll(proxiesEndpoint.values());
-		fullXmlFile.addAll(targetsEndpoint.values());
-		
-		
-		// Search for "stepName" in both ProxyEndpoint, SharedFlow and TargetEndpoint
-		for(XmlFile currentXml : fullXmlFile) {
-			Document document = currentXml.getDocument();
-			try {
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-				
-				boolean hasMatchingStep = (boolean)xpath.evaluate("boolean( //Step/Name[text() = '"+stepName+"'])", document, XPathConstants.BOOLEAN);
-			    if(hasMatchingStep) {
-			    	matchingXmlFile.add(currentXml);
-			    }
-			} catch (XPathExpressionException e) {
-				// Nothing to do
+	/**
+	 * Returns all the recorded bundles, sorted by root path
+	 * @return
+	 */
+	public List<Bundle> getBundles() {
+		List<Bundle> sortedBundles = new ArrayList<>(bundles.values());
+		sortedBundles.sort(Comparator.comparing(Bundle::getRootPath));
+		return sortedBundles;
+	}
+
+	/**
+	 * Returns the path of the bundle root directory containing the file, or an empty string
+	 * @param filePath
+	 * @return
+	 */
+	static String bundleRootOf(String filePath) {
+		int end = filePath.lastIndexOf('/');
+		while(end > 0) {
+			int start = filePath.lastIndexOf('/', end - 1);
+			if(BUNDLE_DIRECTORIES.contains(filePath.substring(start + 1, end))) {
+				return filePath.substring(0, end);
 			}
+			end = start;
 		}
-		
-		return matchingXmlFile;
+		return "";
 	}
 	
+	/**
+	 * Returns the bundle of the analysed file, and records the searched key when the dependencies are tracked
+	 */
+	private Bundle search(InputFile inputFile, String index, String key) {
+		Bundle bundle = getBundle(inputFile);
+		Map<String, Set<String>> tracked = dependencies;
+		if(tracked != null) {
+			tracked.computeIfAbsent(inputFile.uri().getPath(), k -> ConcurrentHashMap.newKeySet())
+				.add(dependencyKey(bundle.getRootPath(), index + ":" + key));
+		}
+		return bundle;
+	}
+
+	/**
+	 * Returns all XmlFile of the bundle of inputFile containing a Step with the Name stepName
+	 * @param inputFile the file being analysed
+	 * @param stepName
+	 * @return
+	 */
+	public List<XmlFile> searchByStepName(InputFile inputFile, String stepName) {
+		return search(inputFile, Bundle.STEP_NAME, stepName).searchByStepName(stepName);
+	}
 	
 	/**
-	 * Returns all XmlFile containing a Policy of type policyType
+	 * Returns all XmlFile of the bundle of inputFile containing a Policy of type policyType
+	 * @param inputFile the file being analysed
 	 * @param policyType
 	 * @return
 	 */
-	public static List<XmlFile> searchPoliciesByType(String policyType) {
-		
-		List<XmlFile> matchingXmlFile = new ArrayList<>();
-		
-		for(XmlFile currentXml : policies.values()) {
-			Document document = currentXml.getDocument();
-			try {
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-				
-				boolean isMatchingType = (boolean)xpath.evaluate("boolean(/"+policyType+")", document, XPathConstants.BOOLEAN);
-			    if(isMatchingType) {
-			    	matchingXmlFile.add(currentXml);
-			    }
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}			
-		}
-		
-		return matchingXmlFile;
+	public List<XmlFile> searchPoliciesByType(InputFile inputFile, String policyType) {
+		return search(inputFile, Bundle.POLICY_TYPE, policyType).searchPoliciesByType(policyType);
 	}
 	
 	/**
-	 * Returns the XmlFile containing the Policy of name policyName
-	 * Policy names are unique
+	 * Returns the facts of the Policies of type policyType of the bundle of inputFile, without parsing them
+	 * @param inputFile the file being analysed
 	 * @param policyType
 	 * @return
 	 */
-	public static XmlFile searchPoliciesByName(String policyName) {
-		
-		for(XmlFile currentXml : policies.values()) {
-			Document document = currentXml.getDocument();
-			try {
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-				
-				String attrName = (String)xpath.evaluate("/*/@name", document, XPathConstants.STRING);
-			    if(attrName!=null && attrName.equals(policyName)) {
-			    	return currentXml;
-			    }
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}			
-		}
-		
-		return null;
+	public List<FileFacts> searchPolicyFactsByType(InputFile inputFile, String policyType) {
+		return search(inputFile, Bundle.POLICY_TYPE, policyType).searchPolicyFactsByType(policyType);
+	}
+	
+	/**
+	 * Returns the XmlFile of the bundle of inputFile containing the Policy of name policyName
+	 * @param inputFile the file being analysed
+	 * @param policyName
+	 * @return
+	 */
+	public XmlFile searchPoliciesByName(InputFile inputFile, String policyName) {
+		return search(inputFile, Bundle.POLICY_NAME, policyName).searchPoliciesByName(policyName);
 	}
 	
 	/**
-	 * A policy can be used in several steps.
-	 * This function returns the list of "Step" nodes containing all steps using the stepName.
+	 * Returns the "Step" nodes of the bundle of inputFile using the stepName.
+	 * @param inputFile the file being analysed
 	 * @param stepName
 	 * @return
 	 */
-	public static Map<Node, XmlFile> searchStepsByName(String stepName) {
-		
-		Map<Node, XmlFile> matchingNodes = new HashMap<>();
-
-		// Concat full list
-		List<XmlFile> fullXmlFile = new ArrayList<>();
-		fullXmlFile.addAll(proxiesEndpoint.values());
-		fullXmlFile.addAll(targetsEndpoint.values());
-		
-		// Search for "stepName" in both ProxyEndpoint, SharedFlow and TargetEndpoint
-		for(XmlFile currentXml : fullXmlFile) {
-			try {
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-				XPathExpression exprSteps = xpath.compile("//Step[Name[text() = '"+stepName+"']]");	
-				NodeList stepNodes = (NodeList)exprSteps.evaluate(currentXml.getDocument(), XPathConstants.NODESET);
-				if(stepNodes!=null) {
-					for(int i=0; i<stepNodes.getLength();i++) {
-						matchingNodes.put(stepNodes.item(i), currentXml);
-					}
-				}
-
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}
-		}
-		
-		return matchingNodes;
+	public Map<Node, XmlFile> searchStepsByName(InputFile inputFile, String stepName) {
+		return search(inputFile, Bundle.STEP_NAME, stepName).searchStepsByName(stepName);
 	}
 	
 	/**
-	 * Returns the XmlFile containing the TargetEndpoint of name targetName
-	 * TargetEndpoint names are unique
+	 * Returns the XmlFile of the bundle of inputFile containing the TargetEndpoint of name targetName
+	 * @param inputFile the file being analysed
 	 * @param targetName
 	 * @return
 	 */
-	public static XmlFile searchTargetEndpointByName(String targetName) {
-		
-		for(XmlFile currentXml : targetsEndpoint.values()) {
-			Document document = currentXml.getDocument();
-			try {
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-				
-				String attrName = (String)xpath.evaluate("/*/@name", document, XPathConstants.STRING);
-			    if(attrName!=null && attrName.equals(targetName)) {
-			    	return currentXml;
-			    }
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}			
-		}
-		
-		return null;
+	public XmlFile searchTargetEndpointByName(InputFile inputFile, String targetName) {
+		return search(inputFile, Bundle.TARGET_NAME, targetName).searchTargetEndpointByName(targetName);
 	}			
 
-	
 	/**
-	 * Returns the XmlFile list containing the policies having a link to the resourceURL
+	 * Returns the XmlFile list of the bundle of inputFile containing the policies having a link to the resourceURL
+	 * @param inputFile the file being analysed
 	 * @param resourceURL
 	 * @return
 	 */
-	public static List<XmlFile> searchPoliciesByResourceURL(String resourceURL) {
-		
-		List<XmlFile> matchingXmlFile = new ArrayList<>();
-		
-		for(XmlFile currentXml : policies.values()) {
-			Document document = currentXml.getDocument();
-			try {
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-				
-				String resourceLink = (String)xpath.evaluate("//ResourceURL", document, XPathConstants.STRING);
-
-				// Test based only on the last part of the path
-			    if(resourceURL.equals(resourceLink)) {
-			    	matchingXmlFile.add(currentXml);
-			    }
-
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}			
-		}
-		
-		return matchingXmlFile;
+	public List<XmlFile> searchPoliciesByResourceURL(InputFile inputFile, String resourceURL) {
+		return search(inputFile, Bundle.RESOURCE_URL, resourceURL).searchPoliciesByResourceURL(resourceURL);
 	}
 	
-	
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.sonar.api.batch.rule.Checks;
+import org.sonar.api.rule.RuleKey;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
+import org.w3c.dom.Element;
+
+import com.arkea.satd.sonar.xml.checks.RootElements;
+
+/**
+ * Dispatch table from the root element name of a file to the checks interested in it (see RootElements).
+ * Checks keep their order in the CheckRepository.
+ * Not thread-safe : each thread has its own dispatcher, like its own checks.
+ * @author Nicolas Tisserand
+ */
+final class CheckDispatcher {
+
+	private final Checks<Object> checks;
+	private final List<SonarXmlCheck> allChecks;
+	private final Map<String, List<SonarXmlCheck>> checksByRootElement = new HashMap<>();
+
+	CheckDispatcher(Checks<Object> checks) {
+		this.checks = checks;
+		this.allChecks = checks.all().stream().map(SonarXmlCheck.class::cast).collect(Collectors.toList());
+	}
+
+	/**
+	 * Returns all the checks
+	 * @return
+	 */
+	List<SonarXmlCheck> all() {
+		return allChecks;
+	}
+
+	/**
+	 * Returns the checks to run on the file
+	 * @param xmlFile
+	 * @return
+	 */
+	List<SonarXmlCheck> checksFor(XmlFile xmlFile) {
+		Element rootElement = xmlFile.getDocument().getDocumentElement();
+		if(rootElement == null) {
+			return allChecks;
+		}
+		return checksByRootElement.computeIfAbsent(rootElement.getNodeName(), rootName -> allChecks.stream()
+				.filter(check -> handles(check, rootName))
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * Returns the rule key of the check.
+	 * Never null because the check is part of the checks of the dispatcher.
+	 * @param check
+	 * @return
+	 */
+	RuleKey ruleKey(SonarXmlCheck check) {
+		return checks.ruleKey(check);
+	}
+
+	private static boolean handles(SonarXmlCheck check, String rootName) {
+		RootElements rootElements = check.getClass().getAnnotation(RootElements.class);
+		return rootElements == null || Arrays.asList(rootElements.value()).contains(rootName);
+	}
+}
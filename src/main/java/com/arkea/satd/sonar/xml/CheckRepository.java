@@ -20,25 +20,34 @@ import java.util.List;
 
 import com.arkea.satd.sonar.xml.checks.AvoidPythonCheck;
 import com.arkea.satd.sonar.xml.checks.CacheCoherenceCheck;
+import com.arkea.satd.sonar.xml.checks.CatastrophicBacktrackingCheck;
 import com.arkea.satd.sonar.xml.checks.ConditionLengthCheck;
+import com.arkea.satd.sonar.xml.checks.ConnectionTimeoutsCheck;
 import com.arkea.satd.sonar.xml.checks.DescriptionCheck;
 import com.arkea.satd.sonar.xml.checks.DescriptionPatternCheck;
 import com.arkea.satd.sonar.xml.checks.EmptyRouteRuleLastCheck;
 import com.arkea.satd.sonar.xml.checks.EmptyStepCheck;
+import com.arkea.satd.sonar.xml.checks.ExpensiveConditionCheck;
 import com.arkea.satd.sonar.xml.checks.ExtractVariablesCheck;
 import com.arkea.satd.sonar.xml.checks.FaultRuleAndDefaultFaultRuleCheck;
 import com.arkea.satd.sonar.xml.checks.FaultRuleConditionCheck;
 import com.arkea.satd.sonar.xml.checks.IgnoreUnresolvedVariablesWithoutFaultRuleCheck;
+import com.arkea.satd.sonar.xml.checks.KeyValueMapCachingCheck;
+import com.arkea.satd.sonar.xml.checks.MessageLoggingInRequestPathCheck;
 import com.arkea.satd.sonar.xml.checks.MultipleStatsCollectorsCheck;
 import com.arkea.satd.sonar.xml.checks.NondistributedQuotaCheck;
 import com.arkea.satd.sonar.xml.checks.PolicyDisplayNameCheck;
 import com.arkea.satd.sonar.xml.checks.PolicyNameConventionCheck;
 import com.arkea.satd.sonar.xml.checks.QuotaPolicyReuseCheck;
+import com.arkea.satd.sonar.xml.checks.QuotaSynchronizationCheck;
 import com.arkea.satd.sonar.xml.checks.RegexLookAroundCheck;
 import com.arkea.satd.sonar.xml.checks.ResponseCacheErrorResponseCheck;
+import com.arkea.satd.sonar.xml.checks.RetryAmplificationCheck;
 import com.arkea.satd.sonar.xml.checks.RouteRulesToTargetCheck;
 import com.arkea.satd.sonar.xml.checks.ServiceCalloutRequestVariableNameCheck;
 import com.arkea.satd.sonar.xml.checks.ServiceCalloutResponseVariableNameCheck;
+import com.arkea.satd.sonar.xml.checks.ServiceCalloutWithoutCacheCheck;
+import com.arkea.satd.sonar.xml.checks.StreamingBufferingCheck;
 import com.arkea.satd.sonar.xml.checks.ThreatProtectionCheck;
 import com.arkea.satd.sonar.xml.checks.TooMuchPoliciesCheck;
 import com.arkea.satd.sonar.xml.checks.TooMuchProxyEndpointsCheck;
@@ -74,25 +83,34 @@ public class CheckRepository {
 		return Arrays.asList(
 				AvoidPythonCheck.class,
 				CacheCoherenceCheck.class,
+				CatastrophicBacktrackingCheck.class,
 				ConditionLengthCheck.class,
+				ConnectionTimeoutsCheck.class,
 				DescriptionCheck.class,
 				DescriptionPatternCheck.class,
 				EmptyRouteRuleLastCheck.class,
 				EmptyStepCheck.class,
+				ExpensiveConditionCheck.class,
 				ExtractVariablesCheck.class,
 				FaultRuleAndDefaultFaultRuleCheck.class,
 				FaultRuleConditionCheck.class,
 				IgnoreUnresolvedVariablesWithoutFaultRuleCheck.class,
+				KeyValueMapCachingCheck.class,
+				MessageLoggingInRequestPathCheck.class,
 				MultipleStatsCollectorsCheck.class,
 				NondistributedQuotaCheck.class,
 				PolicyDisplayNameCheck.class,
 				PolicyNameConventionCheck.class,
 				QuotaPolicyReuseCheck.class,
+				QuotaSynchronizationCheck.class,
 				RegexLookAroundCheck.class,
 				ResponseCacheErrorResponseCheck.class,
+				RetryAmplificationCheck.class,
 				RouteRulesToTargetCheck.class,
 				ServiceCalloutRequestVariableNameCheck.class,
 				ServiceCalloutResponseVariableNameCheck.class,
+				ServiceCalloutWithoutCacheCheck.class,
+				StreamingBufferingCheck.class,
 				ThreatProtectionCheck.class,
 				TooMuchPoliciesCheck.class,
 				TooMuchProxyEndpointsCheck.class,
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.issue.NewIssue;
+import org.sonar.api.rule.RuleKey;
+
+/**
+ * Per-rule counters of an analysis : cumulative time spent in scanFile, files visited, issues saved and exceptions swallowed.
+ * Counters can be updated from several threads. In parallel mode, the time is the sum of the time spent on each thread.
+ * @author Nicolas Tisserand
+ */
+final class CheckStatistics {
+
+	/**
+	 * Name of the JSON report written in the scanner work directory
+	 */
+	static final String FILE_NAME = "apigee-rules-statistics.json";
+
+	private static final class RuleStatistics {
+		private final LongAdder nanos = new LongAdder();
+		private final LongAdder files = new LongAdder();
+		private final LongAdder issues = new LongAdder();
+		private final LongAdder exceptions = new LongAdder();
+
+		private long millis() {
+			return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+		}
+	}
+
+	private final Map<RuleKey, RuleStatistics> rules = new ConcurrentHashMap<>();
+
+	private RuleStatistics of(RuleKey ruleKey) {
+		return rules.computeIfAbsent(ruleKey, k -> new RuleStatistics());
+	}
+
+	/**
+	 * Adds the rule to the statistics, even if it visits no file
+	 * @param ruleKey
+	 */
+	void addRule(RuleKey ruleKey) {
+		of(ruleKey);
+	}
+
+	/**
+	 * Records a call to scanFile
+	 * @param ruleKey
+	 * @param nanos time spent in scanFile
+	 * @param failed true if scanFile has thrown an exception
+	 */
+	void recordScan(RuleKey ruleKey, long nanos, boolean failed) {
+		RuleStatistics statistics = of(ruleKey);
+		statistics.nanos.add(nanos);
+		statistics.files.increment();
+		if(failed) {
+			statistics.exceptions.increment();
+		}
+	}
+
+	/**
+	 * Wraps the context so that every saved issue is counted for its rule
+	 * @param context
+	 * @return
+	 */
+	SensorContext countIssues(SensorContext context) {
+		return SynchronizedSensorContext.proxy(SensorContext.class, context, (proxy, method, args) -> {
+			Object result = SynchronizedSensorContext.invoke(context, method, args);
+			if(result instanceof NewIssue) {
+				result = countIssue((NewIssue) result);
+			}
+			return result;
+		});
+	}
+
+	private NewIssue countIssue(NewIssue issue) {
+		RuleKey[] ruleKey = new RuleKey[1];
+		return SynchronizedSensorContext.proxy(NewIssue.class, issue, (proxy, method, args) -> {
+			if("forRule".equals(method.getName())) {
+				ruleKey[0] = (RuleKey) args[0];
+			}
+			Object result = SynchronizedSensorContext.invoke(issue, method, args);
+			if("save".equals(method.getName()) && ruleKey[0] != null) {
+				of(ruleKey[0]).issues.increment();
+			}
+			// Keep the fluent calls on the wrapper
+			return result == issue ? proxy : result;
+		});
+	}
+
+	/**
+	 * Returns the summary table, sorted by decreasing time
+	 * @return
+	 */
+	String summary() {
+		StringBuilder summary = new StringBuilder("Apigee rules statistics :");
+		summary.append(String.format("%n  %-45s %10s %8s %8s %10s", "Rule", "Time (ms)", "Files", "Issues", "Exceptions"));
+		for(Map.Entry<RuleKey, RuleStatistics> entry : sortedRules()) {
+			RuleStatistics statistics = entry.getValue();
+			summary.append(String.format("%n  %-45s %10d %8d %8d %10d", entry.getKey().rule(), statistics.millis(),
+					statistics.files.sum(), statistics.issues.sum(), statistics.exceptions.sum()));
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Writes the statistics as a JSON array, sorted by decreasing time
+	 * @param file
+	 * @throws IOException
+	 */
+	void writeJson(Path file) throws IOException {
+		StringBuilder json = new StringBuilder("[");
+		String separator = "\n";
+		for(Map.Entry<RuleKey, RuleStatistics> entry : sortedRules()) {
+			RuleStatistics statistics = entry.getValue();
+			json.append(separator)
+				.append("  {\"rule\": \"").append(entry.getKey()).append('"')
+				.append(", \"timeMs\": ").append(statistics.millis())
+				.append(", \"files\": ").append(statistics.files.sum())
+				.append(", \"issues\": ").append(statistics.issues.sum())
+				.append(", \"exceptions\": ").append(statistics.exceptions.sum())
+				.append('}');
+			separator = ",\n";
+		}
+		json.append("\n]\n");
+		Files.createDirectories(file.getParent());
+		Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private List<Map.Entry<RuleKey, RuleStatistics>> sortedRules() {
+		List<Map.Entry<RuleKey, RuleStatistics>> sortedRules = new ArrayList<>(rules.entrySet());
+		sortedRules.sort(Comparator.<Map.Entry<RuleKey, RuleStatistics>>comparingLong(entry -> entry.getValue().nanos.sum()).reversed()
+				.thenComparing(entry -> entry.getKey().toString()));
+		return sortedRules;
+	}
+}
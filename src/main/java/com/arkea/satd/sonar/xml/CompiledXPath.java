@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * XPath expression compiled once and shared by all the checks.
+ * XPathFactory.newInstance() performs a service lookup and compiling an expression is not free,
+ * so checks declare their expressions as constants instead of compiling them for each file.
+ * Only the constant expressions are shared : an expression built from a rule property is kept by the check instance,
+ * otherwise the registry would keep one entry per value for the life of the process.
+ * XPathExpression is not thread-safe : each thread evaluates its own compiled copy.
+ * @author Nicolas Tisserand
+ */
+public final class CompiledXPath {
+
+	// Registry of the shared expressions, by source text
+	private static final Map<String, CompiledXPath> REGISTRY = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+	private final String expression;
+	private final ThreadLocal<XPathExpression> compiled;
+
+	private CompiledXPath(String expression) {
+		this.expression = expression;
+		this.compiled = ThreadLocal.withInitial(() -> compileOnCurrentThread(expression));
+		// Invalid expressions are detected when the check is loaded, not during the analysis
+		this.compiled.get();
+	}
+
+	/**
+	 * Returns the shared compiled expression, compiling it on the first call only
+	 * @param expression XPath expression
+	 * @return
+	 * @throws IllegalArgumentException if the expression is not valid
+	 */
+	public static CompiledXPath compile(String expression) {
+		return REGISTRY.computeIfAbsent(expression, CompiledXPath::new);
+	}
+
+	/**
+	 * Compiles an expression which is not added to the registry, for the expressions depending on a rule property
+	 * @param expression XPath expression
+	 * @return
+	 * @throws IllegalArgumentException if the expression is not valid
+	 */
+	public static CompiledXPath compileUnshared(String expression) {
+		return new CompiledXPath(expression);
+	}
+
+	private static XPathExpression compileOnCurrentThread(String expression) {
+		try {
+			return XPATH.get().compile(expression);
+		} catch (XPathExpressionException e) {
+			throw new IllegalArgumentException("Invalid XPath expression : " + expression, e);
+		}
+	}
+
+	/**
+	 * Evaluates the expression on the item (a Document or a Node), as XPathExpression.evaluate() does
+	 * @param item
+	 * @param returnType one of the XPathConstants
+	 * @return
+	 * @throws XPathExpressionException
+	 */
+	public Object evaluate(Object item, QName returnType) throws XPathExpressionException {
+		return compiled.get().evaluate(item, returnType);
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of DOMs held by the files of a BundleRecorder.
+ * When a file is parsed beyond the limit, the DOM of the least recently used file is released,
+ * and is parsed again if the file is searched later (see BundleFile).
+ * The file being checked is pinned : its DOM is never released while its checks run.
+ * An evicted DOM is released out of the lock of the cache : the release is skipped if the file has been pinned or parsed again in the meantime.
+ * @author Nicolas Tisserand
+ */
+final class DocumentCache {
+
+	private final int maxDocuments;
+
+	// Files holding a DOM with their generation, the least recently used first
+	private final LinkedHashMap<BundleFile, Integer> documents = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final LongAdder parses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxDocuments maximum number of DOMs, 0 or less for no limit
+	 */
+	DocumentCache(int maxDocuments) {
+		this.maxDocuments = maxDocuments;
+	}
+
+	int getMaxDocuments() {
+		return maxDocuments;
+	}
+
+	/**
+	 * Records that the DOM of the file has been parsed
+	 * @param file
+	 */
+	void parsed(BundleFile file) {
+		parses.increment();
+		used(file);
+	}
+
+	/**
+	 * Records an access to the DOM of the file, and releases the least recently used DOMs beyond the limit
+	 * @param file
+	 */
+	void used(BundleFile file) {
+		if(maxDocuments <= 0) {
+			return;
+		}
+		Map<BundleFile, Integer> evicted = new LinkedHashMap<>();
+		synchronized (this) {
+			documents.put(file, file.getGeneration());
+			Iterator<Map.Entry<BundleFile, Integer>> eldest = documents.entrySet().iterator();
+			while(documents.size() > maxDocuments && eldest.hasNext()) {
+				Map.Entry<BundleFile, Integer> candidate = eldest.next();
+				if(candidate.getKey() != file && !candidate.getKey().isPinned()) {
+					eldest.remove();
+					evicted.put(candidate.getKey(), candidate.getValue());
+				}
+			}
+		}
+		// Released out of the lock of the cache, as a file is locked while it is parsed
+		evicted.forEach((evictedFile, generation) -> {
+			if(evictedFile.release(generation)) {
+				evictions.increment();
+			}
+		});
+	}
+
+	/**
+	 * Forgets a file whose DOM has been released
+	 * @param file
+	 */
+	synchronized void removed(BundleFile file) {
+		documents.remove(file);
+	}
+
+	/**
+	 * Number of DOMs parsed, including the files parsed again after their eviction
+	 * @return
+	 */
+	long getParses() {
+		return parses.sum();
+	}
+
+	long getEvictions() {
+		return evictions.sum();
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonarsource.analyzer.commons.xml.SafeStaxParserFactory;
+
+/**
+ * Reads the facts of a file (see FileFacts) with a single streaming pass, without building its DOM.
+ * The reader is the one XmlFile uses, so a file is scanned if and only if it can be parsed.
+ * @author Nicolas Tisserand
+ */
+public final class FactsScanner {
+
+	// Thread-safe once configured
+	private static final XMLInputFactory FACTORY = SafeStaxParserFactory.createXMLInputFactory();
+
+	// Element depths : the root element is at depth 1, and no capture is in progress at depth 0
+	private int depth = 0;
+
+	private String rootElement;
+	private String name;
+
+	// Text content of the first ResourceURL
+	private String resourceURL;
+	private int resourceURLDepth = 0;
+	private final StringBuilder resourceURLText = new StringBuilder();
+
+	// Trimmed text content of the Name children of the Step elements
+	private final List<String> stepNames = new ArrayList<>();
+	private final Deque<Integer> stepDepths = new ArrayDeque<>();
+	private int stepNameDepth = 0;
+	private final StringBuilder stepNameText = new StringBuilder();
+
+	// First text node of the Prefix and KeyFragment children of the first CacheKey
+	private boolean cacheKeyFound = false;
+	private int cacheKeyDepth = 0;
+	private final FirstText prefix = new FirstText();
+	private final FirstText keyFragment = new FirstText();
+	private FirstText cacheKeyPart;
+
+	private FactsScanner() {
+		// One instance per scanned file
+	}
+
+	/**
+	 * Scans the content of the file
+	 * @param inputFile
+	 * @return null if the document has no root element
+	 * @throws IOException if the file cannot be read
+	 * @throws XMLStreamException if the file is not well-formed
+	 */
+	public static FileFacts scan(InputFile inputFile) throws IOException, XMLStreamException {
+		XMLStreamReader reader = FACTORY.createXMLStreamReader(new StringReader(inputFile.contents()));
+		try {
+			return new FactsScanner().read(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private FileFacts read(XMLStreamReader reader) throws XMLStreamException {
+		while(reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				startElement(reader);
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				text(reader.getText());
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				endElement();
+				break;
+			default:
+				// Comments and processing instructions end the current text node
+				endTextNode();
+				break;
+			}
+		}
+		if(rootElement == null) {
+			return null;
+		}
+		String cacheKey = cacheKeyFound ? FileFacts.cacheKey(prefix.value(), keyFragment.value()) : null;
+		return new FileFacts(rootElement, name, resourceURL, stepNames, cacheKey);
+	}
+
+	private void startElement(XMLStreamReader reader) {
+		endTextNode();
+		depth++;
+		// Qualified name, as the nodeName of the DOM
+		String prefixName = reader.getPrefix();
+		String elementName = prefixName == null || prefixName.isEmpty() ? reader.getLocalName() : prefixName + ":" + reader.getLocalName();
+
+		if(depth == 1) {
+			rootElement = elementName;
+			name = nameAttribute(reader);
+		}
+		if(resourceURL == null && resourceURLDepth == 0 && "ResourceURL".equals(elementName)) {
+			resourceURLDepth = depth;
+		}
+		if("Step".equals(elementName)) {
+			stepDepths.push(depth);
+		} else if(stepNameDepth == 0 && "Name".equals(elementName) && !stepDepths.isEmpty() && stepDepths.peek() == depth - 1) {
+			stepNameDepth = depth;
+		}
+		if(!cacheKeyFound && "CacheKey".equals(elementName)) {
+			cacheKeyFound = true;
+			cacheKeyDepth = depth;
+		} else if(cacheKeyDepth > 0 && depth == cacheKeyDepth + 1) {
+			cacheKeyPart = "Prefix".equals(elementName) ? prefix : "KeyFragment".equals(elementName) ? keyFragment : null;
+		}
+	}
+
+	private static String nameAttribute(XMLStreamReader reader) {
+		for(int i = 0; i < reader.getAttributeCount(); i++) {
+			String attributePrefix = reader.getAttributePrefix(i);
+			if((attributePrefix == null || attributePrefix.isEmpty()) && "name".equals(reader.getAttributeLocalName(i))) {
+				return reader.getAttributeValue(i);
+			}
+		}
+		return "";
+	}
+
+	private void text(String text) {
+		if(resourceURLDepth > 0) {
+			resourceURLText.append(text);
+		}
+		if(stepNameDepth > 0) {
+			stepNameText.append(text);
+		}
+		if(cacheKeyPart != null && depth == cacheKeyDepth + 1) {
+			cacheKeyPart.append(text);
+		}
+	}
+
+	private void endTextNode() {
+		if(cacheKeyPart != null && depth == cacheKeyDepth + 1) {
+			cacheKeyPart.end();
+		}
+	}
+
+	private void endElement() {
+		endTextNode();
+		if(depth == resourceURLDepth) {
+			resourceURL = resourceURLText.toString();
+			resourceURLDepth = 0;
+		}
+		if(depth == stepNameDepth) {
+			stepNames.add(stepNameText.toString().trim());
+			stepNameText.setLength(0);
+			stepNameDepth = 0;
+		}
+		if(!stepDepths.isEmpty() && stepDepths.peek() == depth) {
+			stepDepths.pop();
+		}
+		if(depth == cacheKeyDepth + 1) {
+			cacheKeyPart = null;
+		} else if(depth == cacheKeyDepth) {
+			cacheKeyDepth = 0;
+		}
+		depth--;
+	}
+
+	/**
+	 * First non-empty text node among the elements of the same name, as the XPath string(./name/text())
+	 */
+	private static final class FirstText {
+
+		private final StringBuilder text = new StringBuilder();
+		private boolean complete = false;
+
+		void append(String value) {
+			if(!complete) {
+				text.append(value);
+			}
+		}
+
+		void end() {
+			complete = text.length() > 0;
+		}
+
+		String value() {
+			return text.toString();
+		}
+	}
+}
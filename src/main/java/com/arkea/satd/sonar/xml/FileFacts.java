@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Facts of a file used to build the indexes of its bundle : root element, name attribute,
+ * first ResourceURL, the Name of each Step, in document order, and the composite key of the first CacheKey.
+ * Facts are small enough to be kept for all the files and persisted between analyses (see IncrementalAnalysis).
+ * They are read from the DOM, or streamed without building it (see FactsScanner).
+ * @author Nicolas Tisserand
+ */
+public final class FileFacts {
+
+	private final String rootElement;
+	private final String name;
+	private final String resourceURL;
+	private final List<String> stepNames;
+	private final String cacheKey;
+
+	FileFacts(String rootElement, String name, String resourceURL, List<String> stepNames, String cacheKey) {
+		this.rootElement = rootElement;
+		this.name = name;
+		this.resourceURL = resourceURL;
+		this.stepNames = Collections.unmodifiableList(new ArrayList<>(stepNames));
+		this.cacheKey = cacheKey;
+	}
+
+	/**
+	 * Extracts the facts of a document
+	 * @param document
+	 * @return null if the document has no root element
+	 */
+	public static FileFacts of(Document document) {
+		Element root = document.getDocumentElement();
+		if(root == null) {
+			return null;
+		}
+		// Only the first ResourceURL of a policy is considered
+		NodeList resourceURLs = document.getElementsByTagName("ResourceURL");
+		String resourceURL = resourceURLs.getLength() > 0 ? resourceURLs.item(0).getTextContent() : null;
+		return new FileFacts(root.getNodeName(), root.getAttribute("name"), resourceURL, stepNames(document), cacheKey(document));
+	}
+
+	private static List<String> stepNames(Document document) {
+		List<String> stepNames = new ArrayList<>();
+		NodeList stepNodes = document.getElementsByTagName("Step");
+		for(int i=0; i<stepNodes.getLength(); i++) {
+			for(Node child = stepNodes.item(i).getFirstChild(); child != null; child = child.getNextSibling()) {
+				if(child.getNodeType() == Node.ELEMENT_NODE && "Name".equals(child.getNodeName())) {
+					stepNames.add(child.getTextContent().trim());
+				}
+			}
+		}
+		return stepNames;
+	}
+
+	private static String cacheKey(Document document) {
+		NodeList cacheKeys = document.getElementsByTagName("CacheKey");
+		if(cacheKeys.getLength() == 0) {
+			return null;
+		}
+		Node cacheKey = cacheKeys.item(0);
+		return cacheKey(firstText(cacheKey, "Prefix"), firstText(cacheKey, "KeyFragment"));
+	}
+
+	/**
+	 * Composite key of a CacheKey : Prefix, KeyFragment ref and KeyFragment.
+	 * The ref part is always empty, as the XPath ./KeyFragment/@ref/text() selects nothing (an attribute has no text node).
+	 */
+	static String cacheKey(String prefix, String keyFragment) {
+		return prefix + "--" + keyFragment;
+	}
+
+	/**
+	 * Value of the first text node of the children named childName, as the XPath string(./childName/text())
+	 */
+	private static String firstText(Node parent, String childName) {
+		for(Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if(child.getNodeType() == Node.ELEMENT_NODE && childName.equals(child.getNodeName())) {
+				// Adjacent text and CDATA nodes are a single XPath text node
+				StringBuilder text = new StringBuilder();
+				for(Node node = child.getFirstChild(); node != null; node = node.getNextSibling()) {
+					if(node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+						text.append(node.getNodeValue());
+					} else if(text.length() > 0) {
+						break;
+					}
+				}
+				if(text.length() > 0) {
+					return text.toString();
+				}
+			}
+		}
+		return "";
+	}
+
+	public String getRootElement() {
+		return rootElement;
+	}
+
+	/**
+	 * Value of the name attribute of the root element, empty if absent
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * First ResourceURL of the file, or null
+	 * @return
+	 */
+	public String getResourceURL() {
+		return resourceURL;
+	}
+
+	public List<String> getStepNames() {
+		return stepNames;
+	}
+
+	/**
+	 * Composite key of the first CacheKey of the file (see CacheCoherenceCheck), or null if the file has no CacheKey
+	 * @return
+	 */
+	public String getCacheKey() {
+		return cacheKey;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(!(obj instanceof FileFacts)) {
+			return false;
+		}
+		FileFacts other = (FileFacts) obj;
+		return rootElement.equals(other.rootElement) && name.equals(other.name)
+				&& Objects.equals(resourceURL, other.resourceURL) && stepNames.equals(other.stepNames)
+				&& Objects.equals(cacheKey, other.cacheKey);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(rootElement, name, resourceURL, stepNames, cacheKey);
+	}
+}
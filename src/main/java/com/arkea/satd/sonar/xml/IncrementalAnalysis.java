@@ -0,0 +1,338 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Incremental analysis of a pull request : the content hash, the facts and the dependencies (index keys searched by the checks)
+ * of each file are persisted in the work directory at the end of the analysis.
+ * On the next analysis :
+ *  - files whose content has not changed since the previous analysis are stored in the BundleRecorder from their persisted facts instead of being parsed
+ *  - only the files changed by the pull request (InputFile.status(), computed by the scanner against the target branch),
+ *    the files unknown to the previous index, and the files which searched an index key of a changed or removed file, are checked
+ *  - the files changed or impacted in a previous analysis of the same pull request are checked again
+ * The changed files do not depend on the previous analysis : analysing the same pull request again raises the same issues.
+ * The persisted index is ignored when the active rules or their parameters change.
+ * @author Nicolas Tisserand
+ */
+final class IncrementalAnalysis {
+
+	private static final Logger LOG = Loggers.get(IncrementalAnalysis.class);
+
+	/**
+	 * Name of the index file written in the scanner work directory
+	 */
+	static final String FILE_NAME = "apigee-bundle-index.bin";
+
+	private static final int MAGIC = 0x41504958;
+	private static final int VERSION = 4;
+
+	/**
+	 * Persisted state of a file
+	 */
+	static final class Entry {
+		private final String hash;
+		// null if the file could not be parsed
+		private final FileFacts facts;
+		private final Set<String> dependencies;
+		// Checked as changed or impacted by the pull request
+		private final boolean checked;
+
+		Entry(String hash, FileFacts facts, Set<String> dependencies, boolean checked) {
+			this.hash = hash;
+			this.facts = facts;
+			this.dependencies = dependencies;
+			this.checked = checked;
+		}
+
+		FileFacts getFacts() {
+			return facts;
+		}
+	}
+
+	private final Path indexFile;
+	private final String fingerprint;
+	private final String pullRequest;
+	private final Map<String, Entry> previousEntries;
+
+	// Content hash of the analysed files, and the files changed or impacted by the pull request
+	private final Map<String, String> hashes = new ConcurrentHashMap<>();
+	private final Set<String> impactedFiles = new HashSet<>();
+
+	/**
+	 * Loads the index of the previous analysis, if any
+	 * @param indexFile
+	 * @param fingerprint see fingerprint(ActiveRules)
+	 * @param pullRequest key of the analysed pull request
+	 */
+	IncrementalAnalysis(Path indexFile, String fingerprint, String pullRequest) {
+		this.indexFile = indexFile;
+		this.fingerprint = fingerprint;
+		this.pullRequest = pullRequest;
+		this.previousEntries = load(indexFile, fingerprint, pullRequest);
+	}
+
+	/**
+	 * Fingerprint of the analysis configuration : index version, plugin version, active rules and their parameters
+	 * @param activeRules
+	 * @return
+	 */
+	static String fingerprint(ActiveRules activeRules) {
+		StringBuilder fingerprint = new StringBuilder().append(VERSION).append(';')
+				.append(IncrementalAnalysis.class.getPackage().getImplementationVersion()).append(';');
+		activeRules.findByRepository(CheckRepository.REPOSITORY_KEY).stream()
+			.sorted(Comparator.comparing(rule -> rule.ruleKey().toString()))
+			.forEach(rule -> fingerprint.append(rule.ruleKey()).append(new TreeMap<>(rule.params())).append(';'));
+		return fingerprint.toString();
+	}
+
+	/**
+	 * Computes the content hash of the file, and compares it with the previous analysis. May be called from several threads.
+	 * @param inputFile
+	 * @return the persisted entry of the file if its content has not changed since the previous analysis, null otherwise
+	 */
+	Entry unchangedEntry(InputFile inputFile) {
+		String path = inputFile.uri().getPath();
+		String hash = hash(inputFile);
+		hashes.put(path, hash);
+		Entry previousEntry = previousEntries.get(path);
+		return previousEntry != null && !hash.isEmpty() && previousEntry.hash.equals(hash) ? previousEntry : null;
+	}
+
+	/**
+	 * A file is changed when it is added or modified by the pull request.
+	 * The status is computed by the scanner against the target branch, and not against the previous index.
+	 */
+	private static boolean isChanged(InputFile inputFile) {
+		return inputFile.status() != InputFile.Status.SAME;
+	}
+
+	/**
+	 * Returns the files to check, once all the files have been stored :
+	 * the changed files, the files without persisted dependencies, the files changed or impacted in a previous analysis of the pull request,
+	 * and the other files which searched an index key of a changed or removed file
+	 * @param inputFiles
+	 * @param bundleRecorder
+	 * @return
+	 */
+	List<InputFile> filesToCheck(List<InputFile> inputFiles, BundleRecorder bundleRecorder) {
+
+		// Index keys of the previous and current versions of the changed and removed files
+		Set<String> changedKeys = new HashSet<>();
+		int changedFiles = 0;
+		for(InputFile inputFile : inputFiles) {
+			String path = inputFile.uri().getPath();
+			if(isChanged(inputFile)) {
+				changedFiles++;
+				Entry previousEntry = previousEntries.get(path);
+				addKeys(changedKeys, path, previousEntry != null ? previousEntry.facts : null);
+				BundleFile file = bundleRecorder.getFile(inputFile);
+				addKeys(changedKeys, path, file != null ? file.getFacts() : null);
+			}
+		}
+		int removedFiles = 0;
+		for(Map.Entry<String, Entry> previousEntry : previousEntries.entrySet()) {
+			if(!hashes.containsKey(previousEntry.getKey())) {
+				removedFiles++;
+				addKeys(changedKeys, previousEntry.getKey(), previousEntry.getValue().facts);
+			}
+		}
+
+		List<InputFile> filesToCheck = new ArrayList<>();
+		for(InputFile inputFile : inputFiles) {
+			String path = inputFile.uri().getPath();
+			Entry previousEntry = previousEntries.get(path);
+			if(isChanged(inputFile) || previousEntry != null && (previousEntry.checked || !Collections.disjoint(previousEntry.dependencies, changedKeys))) {
+				impactedFiles.add(path);
+				filesToCheck.add(inputFile);
+			} else if(previousEntry == null) {
+				// Unknown dependencies
+				filesToCheck.add(inputFile);
+			}
+		}
+		LOG.info("Incremental analysis : {} new or changed files, {} removed files, {} files to check out of {}",
+				changedFiles, removedFiles, filesToCheck.size(), inputFiles.size());
+		return filesToCheck;
+	}
+
+	private static void addKeys(Set<String> keys, String path, FileFacts facts) {
+		if(facts != null) {
+			String rootPath = BundleRecorder.bundleRootOf(path);
+			Bundle.keysOf(facts).forEach(key -> keys.add(BundleRecorder.dependencyKey(rootPath, key)));
+		}
+	}
+
+	/**
+	 * Persists the index of this analysis
+	 * @param inputFiles all the analysed files
+	 * @param checkedFiles the files checked by this analysis, whose dependencies have been tracked by the bundleRecorder
+	 * @param bundleRecorder
+	 * @throws IOException
+	 */
+	void save(List<InputFile> inputFiles, Collection<InputFile> checkedFiles, BundleRecorder bundleRecorder) throws IOException {
+		Set<InputFile> checked = new HashSet<>(checkedFiles);
+		Map<String, Entry> entries = new TreeMap<>();
+		for(InputFile inputFile : inputFiles) {
+			String path = inputFile.uri().getPath();
+			BundleFile file = bundleRecorder.getFile(inputFile);
+			Entry previousEntry = previousEntries.get(path);
+			Set<String> dependencies = checked.contains(inputFile) || previousEntry == null ? bundleRecorder.getDependencies(inputFile) : previousEntry.dependencies;
+			entries.put(path, new Entry(hashes.get(path), file != null ? file.getFacts() : null, dependencies, impactedFiles.contains(path)));
+		}
+
+		Files.createDirectories(indexFile.getParent());
+		try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile))))) {
+			output.writeInt(MAGIC);
+			output.writeUTF(fingerprint);
+			output.writeUTF(pullRequest);
+			output.writeInt(entries.size());
+			for(Map.Entry<String, Entry> entry : entries.entrySet()) {
+				output.writeUTF(entry.getKey());
+				write(output, entry.getValue());
+			}
+		}
+	}
+
+	private static void write(DataOutputStream output, Entry entry) throws IOException {
+		output.writeUTF(entry.hash);
+		FileFacts facts = entry.facts;
+		output.writeBoolean(facts != null);
+		if(facts != null) {
+			output.writeUTF(facts.getRootElement());
+			output.writeUTF(facts.getName());
+			output.writeBoolean(facts.getResourceURL() != null);
+			if(facts.getResourceURL() != null) {
+				output.writeUTF(facts.getResourceURL());
+			}
+			writeStrings(output, facts.getStepNames());
+			output.writeBoolean(facts.getCacheKey() != null);
+			if(facts.getCacheKey() != null) {
+				output.writeUTF(facts.getCacheKey());
+			}
+		}
+		writeStrings(output, entry.dependencies);
+		output.writeBoolean(entry.checked);
+	}
+
+	private static void writeStrings(DataOutputStream output, Collection<String> strings) throws IOException {
+		output.writeInt(strings.size());
+		for(String string : strings) {
+			output.writeUTF(string);
+		}
+	}
+
+	/**
+	 * Loads the persisted index
+	 * @return the entries by path, empty if there is no index, if it cannot be read or if the fingerprint has changed.
+	 * The files checked by the analysis of another pull request are not considered as checked.
+	 */
+	private static Map<String, Entry> load(Path indexFile, String fingerprint, String pullRequest) {
+		Map<String, Entry> entries = new HashMap<>();
+		if(!Files.isRegularFile(indexFile)) {
+			LOG.info("Incremental analysis : no previous index, all the files are analysed");
+			return entries;
+		}
+		try (DataInputStream input = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(indexFile))))) {
+			if(input.readInt() != MAGIC || !fingerprint.equals(input.readUTF())) {
+				LOG.info("Incremental analysis : the rules have changed since the previous index, all the files are analysed");
+				return entries;
+			}
+			boolean samePullRequest = pullRequest.equals(input.readUTF());
+			int count = input.readInt();
+			for(int i = 0; i < count; i++) {
+				entries.put(input.readUTF(), readEntry(input, samePullRequest));
+			}
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Incremental analysis : unable to read " + indexFile + ", all the files are analysed", e);
+			entries.clear();
+		}
+		return entries;
+	}
+
+	private static Entry readEntry(DataInputStream input, boolean samePullRequest) throws IOException {
+		String hash = input.readUTF();
+		FileFacts facts = null;
+		if(input.readBoolean()) {
+			String rootElement = input.readUTF();
+			String name = input.readUTF();
+			String resourceURL = input.readBoolean() ? input.readUTF() : null;
+			List<String> stepNames = readStrings(input);
+			String cacheKey = input.readBoolean() ? input.readUTF() : null;
+			facts = new FileFacts(rootElement, name, resourceURL, stepNames, cacheKey);
+		}
+		Set<String> dependencies = new LinkedHashSet<>(readStrings(input));
+		return new Entry(hash, facts, dependencies, input.readBoolean() && samePullRequest);
+	}
+
+	private static List<String> readStrings(DataInputStream input) throws IOException {
+		int count = input.readInt();
+		List<String> strings = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			strings.add(input.readUTF());
+		}
+		return strings;
+	}
+
+	/**
+	 * SHA-1 of the content of the file, empty if the file cannot be read
+	 */
+	private static String hash(InputFile inputFile) {
+		try (InputStream stream = inputFile.inputStream()) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = stream.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+			StringBuilder hash = new StringBuilder();
+			for(byte b : digest.digest()) {
+				hash.append(String.format("%02x", b));
+			}
+			return hash.toString();
+		} catch (IOException | NoSuchAlgorithmException e) {
+			return "";
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.issue.NewIssue;
+
+/**
+ * SensorContext wrapper used when checks run on several threads.
+ * Issues are built concurrently, but their save() calls are serialized on a single lock,
+ * as the storage behind the SensorContext is not thread-safe.
+ * @author Nicolas Tisserand
+ */
+final class SynchronizedSensorContext {
+
+	private SynchronizedSensorContext() {
+		// Private constructor
+	}
+
+	/**
+	 * Wraps the context so that every issue created from it is saved under a common lock
+	 * @param context
+	 * @return
+	 */
+	static SensorContext wrap(SensorContext context) {
+		final Object lock = new Object();
+		return proxy(SensorContext.class, context, (proxy, method, args) -> {
+			Object result = invoke(context, method, args);
+			if(result instanceof NewIssue) {
+				result = wrapIssue((NewIssue) result, lock);
+			}
+			return result;
+		});
+	}
+
+	private static NewIssue wrapIssue(NewIssue issue, Object lock) {
+		return proxy(NewIssue.class, issue, (proxy, method, args) -> {
+			if("save".equals(method.getName())) {
+				synchronized (lock) {
+					return invoke(issue, method, args);
+				}
+			}
+			Object result = invoke(issue, method, args);
+			// Keep the fluent calls on the wrapper (issue.at(...).forRule(...).save())
+			return result == issue ? proxy : result;
+		});
+	}
+
+	static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+	}
+
+	static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -15,34 +15,32 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
 import java.util.regex.Pattern;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.XmlTextRange;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CompiledXPath;
+import com.arkea.satd.sonar.xml.condition.Expression;
+import com.arkea.satd.sonar.xml.condition.Unparsed;
 
 
 /**
  * Abstract class to factorize the check on the body content
  * @author Nicolas Tisserand
  */
-public abstract class AbstractBodyCheck extends SonarXmlCheck {
+public abstract class AbstractBodyCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath CONDITION = CompiledXPath.compile("Condition/text()");
+	private static final CompiledXPath FLOW_CONDITION = CompiledXPath.compile("../../../*[name() = 'Flow']/Condition/text()");
 
 	/**
 	 * This method performs a check on the Condition tag that is applied to the concerned step 
@@ -54,54 +52,44 @@ public abstract class AbstractBodyCheck extends SonarXmlCheck {
 		
 		boolean hasIssue = false;
 		
-		XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-
-	    // Search for the associated step in the full storage		    	
-	    List<XmlFile> listProxiesEndpoint = BundleRecorder.searchByStepName(stepName);
+	    // Search for the associated steps in the full storage
+	    Map<Node, XmlFile> stepsMap = bundleRecorder().searchStepsByName(inputFile(), stepName);
 
 	    Pattern ptrn = Pattern.compile(pattern);
 		try {
 		    
 		    // Now check the Condition of the matching Steps
-		    for(XmlFile currentXmlFile : listProxiesEndpoint) {
-		    	
-				XPathExpression exprSteps = xpath.compile("//Step[Name[text() = '"+stepName+"']]");
-				NodeList stepNodes = (NodeList)exprSteps.evaluate(currentXmlFile.getDocument(), XPathConstants.NODESET);
+		    for(Map.Entry<Node, XmlFile> stepEntry : stepsMap.entrySet()) {
+				Node currentStep = stepEntry.getKey();
+				XmlFile currentXmlFile = stepEntry.getValue();
 				
-				for(int i=0; i<stepNodes.getLength(); i++) {
-					Node currentStep = stepNodes.item(i);
-					
-					String condition = (String)xpath.evaluate("Condition/text()", currentStep, XPathConstants.STRING);
-					
-					// Analyse the content of the condition
-					Matcher matcher = ptrn.matcher(condition);	    
-					hasIssue = !matcher.find();
+				String condition = (String)CONDITION.evaluate(currentStep, XPathConstants.STRING);
+				
+				// Analyse the content of the condition
+				hasIssue = !readsVariable(condition, ptrn);
+				
+				// Check also on flow condition :
+				// if the parent is a flow we might revert the decision if it has an appropriate condition
+				if(hasIssue) {
+					// Search the condition of the parent Node (Flow, but not PreFlow or PostFlow
+					String flowCondition = (String)FLOW_CONDITION.evaluate(currentStep, XPathConstants.STRING);						
+					hasIssue = !readsVariable(flowCondition, ptrn);
+				}
+				
+				// Finally : Create issue if needed
+				if(hasIssue) {
 					
-					// Check also on flow condition :
-					// if the parent is a flow we might revert the decision if it has an appropriate condition
-					if(hasIssue) {
-						// Search the condition of the parent Node (Flow, but not PreFlow or PostFlow
-						String flowCondition = (String)xpath.evaluate("../../../*[name() = 'Flow']/Condition/text()", currentStep, XPathConstants.STRING);						
-						matcher = ptrn.matcher(flowCondition);	    
-						hasIssue = !matcher.find();
-					}
+					final NewIssue issue = session().getContext().newIssue();
+					final XmlTextRange textRange = XmlFile.nodeLocation(currentStep);
 					
-					// Finally : Create issue if needed
-					if(hasIssue) {
-						
-						final NewIssue issue = ApigeeXmlSensor.getContext().newIssue();
-						final XmlTextRange textRange = XmlFile.nodeLocation(currentStep);
-						
-						NewIssueLocation location = issue.newLocation()
-								.on((InputComponent) currentXmlFile.getInputFile())
-								.at(currentXmlFile.getInputFile().newRange(textRange.getStartLine(), textRange.getStartColumn(), textRange.getEndLine(), textRange.getEndColumn()))
-								.message("An appropriate check for a message body was not found on the enclosing Step or Flow.");
+					NewIssueLocation location = issue.newLocation()
+							.on((InputComponent) currentXmlFile.getInputFile())
+							.at(currentXmlFile.getInputFile().newRange(textRange.getStartLine(), textRange.getStartColumn(), textRange.getEndLine(), textRange.getEndColumn()))
+							.message("An appropriate check for a message body was not found on the enclosing Step or Flow.");
 
-						issue.at(location)
-							.forRule(ruleKey())
-							.save(); // Mandatory to "commit" the issue in the final report			
-					}
+					issue.at(location)
+						.forRule(ruleKey())
+						.save(); // Mandatory to "commit" the issue in the final report			
 				}
 		    }
 		} catch (XPathExpressionException e) {
@@ -110,4 +98,21 @@ public abstract class AbstractBodyCheck extends SonarXmlCheck {
 		
 		return hasIssue;
 	}
+
+	/**
+	 * Searches the pattern in the variables of the condition, so that a quoted value like "response.content" does not count.
+	 * A condition which cannot be parsed is searched as text.
+	 */
+	private boolean readsVariable(String condition, Pattern ptrn) {
+		Expression expression = conditions().parse(condition);
+		if(expression instanceof Unparsed) {
+			return ptrn.matcher(condition).find();
+		}
+		for(String variable : expression.getVariables()) {
+			if(ptrn.matcher(variable).find()) {
+				return true;
+			}
+		}
+		return false;
+	}
 }
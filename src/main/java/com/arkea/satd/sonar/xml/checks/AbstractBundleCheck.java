@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
+
+import com.arkea.satd.sonar.xml.AnalysisSession;
+import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.condition.Conditions;
+
+/**
+ * Abstract class of the checks which search the other files of the bundle, or reason on the conditions.
+ * The analysis session is given by the sensor when the check is created.
+ * @author Nicolas Tisserand
+ */
+public abstract class AbstractBundleCheck extends SonarXmlCheck {
+
+	private AnalysisSession session;
+
+	public void setSession(AnalysisSession session) {
+		this.session = session;
+	}
+
+	protected AnalysisSession session() {
+		if(session == null) {
+			throw new IllegalStateException("No analysis session given to " + getClass().getSimpleName());
+		}
+		return session;
+	}
+
+	protected BundleRecorder bundleRecorder() {
+		return session().getBundleRecorder();
+	}
+
+	protected Conditions conditions() {
+		return session().getConditions();
+	}
+}
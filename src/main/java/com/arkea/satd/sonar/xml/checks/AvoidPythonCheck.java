@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -26,13 +24,18 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 /**
  * Avoid Python language
  * Code : PO500
  * @author Nicolas Tisserand
  */
 @Rule(key = "AvoidPythonCheck")
+@RootElements("Script")
 public class AvoidPythonCheck extends SonarXmlCheck {
+
+	private static final CompiledXPath PYTHON_RESOURCE_URL = CompiledXPath.compile("//Script//ResourceURL[starts-with(., 'py://')]");
 	
 	public AvoidPythonCheck() {
 		super();
@@ -43,12 +46,9 @@ public class AvoidPythonCheck extends SonarXmlCheck {
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the ResourceURL starting with py://
-			    Node resourceURLNode = (Node)xpath.evaluate("//Script//ResourceURL[starts-with(., 'py://')]", document, XPathConstants.NODE);
+			    Node resourceURLNode = (Node)PYTHON_RESOURCE_URL.evaluate(document, XPathConstants.NODE);
 
 		    	if(resourceURLNode!=null) {
 		    		reportIssue(resourceURLNode, "Avoid Python language.");
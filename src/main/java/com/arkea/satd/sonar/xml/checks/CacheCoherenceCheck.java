@@ -17,18 +17,16 @@ package com.arkea.satd.sonar.xml.checks;
 
 import java.util.List;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CompiledXPath;
+import com.arkea.satd.sonar.xml.FileFacts;
 
 /**
  * Cache Coherence
@@ -36,7 +34,13 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "CacheCoherenceCheck")
-public class CacheCoherenceCheck extends SonarXmlCheck {
+@RootElements({"PopulateCache", "LookupCache"})
+public class CacheCoherenceCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath CACHE_KEY = CompiledXPath.compile("//CacheKey");
+	private static final CompiledXPath PREFIX = CompiledXPath.compile("./Prefix/text()");
+	private static final CompiledXPath KEY_FRAGMENT_REF = CompiledXPath.compile("./KeyFragment/@ref/text()");
+	private static final CompiledXPath KEY_FRAGMENT = CompiledXPath.compile("./KeyFragment/text()");
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -52,23 +56,22 @@ public class CacheCoherenceCheck extends SonarXmlCheck {
 
 	    if (type1Document.getDocumentElement() != null && type1.equals(type1Document.getDocumentElement().getNodeName())) {
 	    	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select CacheKey Node 
-		    	Node cacheNode1 = (Node)xpath.evaluate( "//CacheKey",type1Document, XPathConstants.NODE);		        
-		        String compositeKey1 = computeKey(xpath, cacheNode1);
+		    	Node cacheNode1 = (Node)CACHE_KEY.evaluate(type1Document, XPathConstants.NODE);		        
+		        String compositeKey1 = computeKey(cacheNode1);
 		        
-		        // Now search for a LookupCache policy
-		        List<XmlFile> type2Policies = BundleRecorder.searchPoliciesByType(type2);
+		        // Now search for a LookupCache policy : its composite key is read from the bundle index, without parsing it
+		        List<FileFacts> type2Policies = bundleRecorder().searchPolicyFactsByType(inputFile(), type2);
 
 	        	boolean hasMatchingKey = false;
-	        	for(XmlFile type2XmlFile : type2Policies) {
+	        	for(FileFacts type2Facts : type2Policies) {
 	        		
-	        		Document type2Document = type2XmlFile.getDocument();
-			    	Node cacheNode2 = (Node)xpath.evaluate( "//CacheKey",type2Document, XPathConstants.NODE);		        
-			        String compositeKey2 = computeKey(xpath, cacheNode2);
+			        String compositeKey2 = type2Facts.getCacheKey();
+			        if(compositeKey2 == null) {
+			        	// Policy without CacheKey : the keys cannot be compared
+			        	return;
+			        }
 			        
 			        if(compositeKey1.equals(compositeKey2)) {
 			        	hasMatchingKey = true;
@@ -93,10 +96,10 @@ public class CacheCoherenceCheck extends SonarXmlCheck {
 	}
 
 
-	private String computeKey(XPath xpath, Node cacheNode) throws XPathExpressionException {
-        String prefix = (String)xpath.evaluate( "./Prefix/text()", cacheNode, XPathConstants.STRING);
-        String keyFragmentRef = (String)xpath.evaluate( "./KeyFragment/@ref/text()", cacheNode, XPathConstants.STRING);
-        String keyFragment = (String)xpath.evaluate( "./KeyFragment/text()", cacheNode, XPathConstants.STRING);
+	private String computeKey(Node cacheNode) throws XPathExpressionException {
+        String prefix = (String)PREFIX.evaluate(cacheNode, XPathConstants.STRING);
+        String keyFragmentRef = (String)KEY_FRAGMENT_REF.evaluate(cacheNode, XPathConstants.STRING);
+        String keyFragment = (String)KEY_FRAGMENT.evaluate(cacheNode, XPathConstants.STRING);
         
         // Composite key
        return (prefix==null?"":prefix) + "-" + (keyFragmentRef==null?"":keyFragmentRef) + "-" + (keyFragment==null?"":keyFragment);
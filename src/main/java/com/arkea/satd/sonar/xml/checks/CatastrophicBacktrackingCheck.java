@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonar.check.Rule;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.arkea.satd.sonar.xml.condition.Comparison;
+import com.arkea.satd.sonar.xml.condition.Literal;
+import com.arkea.satd.sonar.xml.condition.Operator;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
+import com.arkea.satd.sonar.xml.flow.Step;
+import com.arkea.satd.sonar.xml.regex.Backtracking;
+
+/**
+ * Regular expressions with a catastrophic backtracking : nested or overlapping quantifiers, or overlapping alternatives,
+ * can make a message processor spin for seconds on a crafted payload.
+ * The Patterns of the RegularExpressionProtection policies and the JavaRegex of the conditions are analysed.
+ * Code : PO501
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "CatastrophicBacktrackingCheck")
+@RootElements({"RegularExpressionProtection", "ProxyEndpoint", "TargetEndpoint"})
+public class CatastrophicBacktrackingCheck extends AbstractBundleCheck {
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Element root = xmlFile.getDocument().getDocumentElement();
+	    if(root == null) {
+	    	return;
+	    }
+
+	    if("RegularExpressionProtection".equals(root.getNodeName())) {
+	    	NodeList patternNodeList = root.getElementsByTagName("Pattern");
+	    	for(int i=0; i < patternNodeList.getLength(); i++) {
+	    		Element patternNode = (Element) patternNodeList.item(i);
+	    		checkRegex(patternNode, patternNode.getTextContent());
+	    	}
+	    } else {
+	    	Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    	if(endpoint != null) {
+	    		checkConditions(endpoint);
+	    	}
+	    }
+	}
+
+	private void checkConditions(Endpoint endpoint) {
+		List<Element> conditionNodes = new ArrayList<>();
+		for(Flow flow : endpoint.getAllFlows()) {
+			conditionNodes.add(flow.getConditionNode());
+		}
+		for(Step step : endpoint.getSteps()) {
+			conditionNodes.add(step.getConditionNode());
+		}
+		for(RouteRule routeRule : endpoint.getRouteRules()) {
+			conditionNodes.add(routeRule.getConditionNode());
+		}
+
+		for(Element conditionNode : conditionNodes) {
+			if(conditionNode != null) {
+				for(Comparison comparison : conditions().parse(conditionNode.getTextContent()).getComparisons()) {
+					if(comparison.getOperator() == Operator.JAVA_REGEX && comparison.getRight() instanceof Literal) {
+						checkRegex(conditionNode, ((Literal) comparison.getRight()).getValue());
+					}
+				}
+			}
+		}
+	}
+
+	private void checkRegex(Element node, String regex) {
+		Backtracking backtracking = regex.isEmpty() ? null : Backtracking.of(regex);
+		if(backtracking != null && backtracking.getComplexity() != Backtracking.Complexity.LINEAR) {
+			reportIssue(node, "Regex can backtrack catastrophically, worst case " + backtracking + ": " + backtracking.getCause() + ".");
+		}
+	}
+}
@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -28,6 +26,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : Overly long conditions on Steps are difficult to debug and maintain.
@@ -41,6 +41,9 @@ public class ConditionLengthCheck extends SonarXmlCheck {
 	    defaultValue = "256",
 	    description = "Max length allowed for a condition tag")
 	protected int maxConditionLength = 256;
+
+	// Depends on the rule property, set after the construction : compiled on the first file, not shared with the other instances
+	private volatile CompiledXPath longConditions;
 	
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -49,12 +52,12 @@ public class ConditionLengthCheck extends SonarXmlCheck {
 		
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the Condition which are too long
-			    NodeList conditionNodeList = (NodeList) xpath.evaluate("//Condition[string-length(text()) > "+maxConditionLength+"]", document, XPathConstants.NODESET);
+			    if(longConditions == null) {
+			    	longConditions = CompiledXPath.compileUnshared("//Condition[string-length(text()) > "+maxConditionLength+"]");
+			    }
+			    NodeList conditionNodeList = (NodeList) longConditions.evaluate(document, XPathConstants.NODESET);
 			    
 		    	if(conditionNodeList!=null) {
 		    		for(int i=0 ; i < conditionNodeList.getLength(); i++) {
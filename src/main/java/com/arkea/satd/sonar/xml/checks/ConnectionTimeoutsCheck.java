@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
+import org.w3c.dom.Element;
+
+import com.arkea.satd.sonar.xml.flow.Elements;
+import com.arkea.satd.sonar.xml.flow.HttpConnection;
+
+/**
+ * Timeouts and keep-alive of the HTTPTargetConnection of TargetEndpoints and ServiceCallouts :
+ * the default values hold a message processor thread for up to a minute when the backend is slow.
+ * A ServiceCallout must also define its Timeout.
+ * Code : TD502
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "ConnectionTimeoutsCheck")
+@RootElements({"TargetEndpoint", "ServiceCallout"})
+public class ConnectionTimeoutsCheck extends SonarXmlCheck {
+
+	static final String CONNECT_TIMEOUT = "connect.timeout.millis";
+	static final String IO_TIMEOUT = "io.timeout.millis";
+	static final String KEEPALIVE_TIMEOUT = "keepalive.timeout.millis";
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "5000",
+	    description = "Max connect.timeout.millis allowed")
+	protected int maxConnectTimeoutMillis = 5000;
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "30000",
+	    description = "Max io.timeout.millis, and max Timeout of a ServiceCallout, allowed")
+	protected int maxIoTimeoutMillis = 30000;
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "60000",
+	    description = "Max keepalive.timeout.millis allowed")
+	protected int maxKeepAliveTimeoutMillis = 60000;
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Element root = xmlFile.getDocument().getDocumentElement();
+	    if(root == null) {
+	    	return;
+	    }
+
+	    HttpConnection connection = HttpConnection.of(root);
+	    if(connection != null && HttpConnection.HTTP_TARGET_CONNECTION.equals(connection.getNode().getNodeName())) {
+
+	    	List<String> missing = new ArrayList<>();
+	    	checkProperty(connection, CONNECT_TIMEOUT, maxConnectTimeoutMillis, missing);
+	    	checkProperty(connection, IO_TIMEOUT, maxIoTimeoutMillis, missing);
+	    	checkProperty(connection, KEEPALIVE_TIMEOUT, maxKeepAliveTimeoutMillis, missing);
+
+	    	if(!missing.isEmpty()) {
+	    		reportIssue(connection.getNode(), "Set " + String.join(", ", missing) + " in the HTTPTargetConnection instead of relying on the default values.");
+	    	}
+	    }
+
+	    if("ServiceCallout".equals(root.getNodeName())) {
+	    	Element timeout = Elements.child(root, "Timeout");
+	    	if(timeout == null) {
+	    		reportIssue(root, "Set a Timeout on the ServiceCallout: without it, the callout waits for the backend as long as the connection allows.");
+	    	} else {
+	    		checkValue(timeout, "Timeout", timeout.getTextContent().trim(), maxIoTimeoutMillis);
+	    	}
+	    }
+	}
+
+	private void checkProperty(HttpConnection connection, String name, int max, List<String> missing) {
+		String value = connection.getProperty(name);
+		if(value == null) {
+			missing.add(name);
+		} else {
+			checkValue(connection.getProperties().get(name), name, value, max);
+		}
+	}
+
+	private void checkValue(Element node, String name, String value, int max) {
+		try {
+			long millis = Long.parseLong(value);
+			if(millis > max) {
+				reportIssue(node, name + " of " + millis + " ms is too long: use at most " + max + " ms.");
+			}
+		} catch (NumberFormatException e) {
+			// Flow variable or invalid value : not checked
+		}
+	}
+}
@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -29,6 +26,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : The Description tags should meet minimum length requirements to be useful. The default minimum length is 5. This can be modified in the Quality Profile.
@@ -42,6 +41,9 @@ public class DescriptionCheck extends SonarXmlCheck {
 	    defaultValue = "5",
 	    description = "Min length allowed for a description tag")
 	protected int minDescriptionLength = 5;
+
+	// Depends on the rule property, set after the construction : compiled on the first file, not shared with the other instances
+	private volatile CompiledXPath shortDescriptions;
 	
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -49,13 +51,12 @@ public class DescriptionCheck extends SonarXmlCheck {
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the Description which are too short
-			    XPathExpression exprDisplayName = xpath.compile("//Description[string-length(text())<="+minDescriptionLength+"]");
-			    NodeList descriptionNodeList = (NodeList)exprDisplayName.evaluate(document, XPathConstants.NODESET);
+			    if(shortDescriptions == null) {
+			    	shortDescriptions = CompiledXPath.compileUnshared("//Description[string-length(text())<="+minDescriptionLength+"]");
+			    }
+			    NodeList descriptionNodeList = (NodeList)shortDescriptions.evaluate(document, XPathConstants.NODESET);
 
 		    	if(descriptionNodeList!=null) {
 		    		for(int i=0 ; i < descriptionNodeList.getLength(); i++) {
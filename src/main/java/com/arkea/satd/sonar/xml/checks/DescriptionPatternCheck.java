@@ -18,10 +18,8 @@ package com.arkea.satd.sonar.xml.checks;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -30,6 +28,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : The Description tag should be compliant with the pattern defined in the rule parameter ""
@@ -37,8 +37,11 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "DescriptionPatternCheck")
+@RootElements({"APIProxy", "SharedFlowBundle"})
 public class DescriptionPatternCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath DESCRIPTION = CompiledXPath.compile("//Description");
+
 	@RuleProperty(
 	    defaultValue = ".*",
 	    description = "Pattern of the APIProxy description tag")
@@ -59,12 +62,9 @@ public class DescriptionPatternCheck extends SonarXmlCheck {
 	    if (document.getDocumentElement() != null && ("APIProxy".equals(document.getDocumentElement().getNodeName()) || 
 	    											  "SharedFlowBundle".equals(document.getDocumentElement().getNodeName()))) {
 
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the Description which are too short
-		    	Node descriptionNode = (Node)xpath.evaluate("//Description", document, XPathConstants.NODE);
+		    	Node descriptionNode = (Node)DESCRIPTION.evaluate(document, XPathConstants.NODE);
 		    	
 		    	if(descriptionNode!=null) {
 		    		String desc = descriptionNode.getTextContent();
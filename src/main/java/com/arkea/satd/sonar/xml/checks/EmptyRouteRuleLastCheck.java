@@ -15,18 +15,13 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.List;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
 
 /**
  * Unreachable Route Rules - empty conditions go last
@@ -35,40 +30,29 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "EmptyRouteRuleLastCheck")
-public class EmptyRouteRuleLastCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class EmptyRouteRuleLastCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-    	// Search for last Flow of an ProxyEndpoint document
-	    if (document.getDocumentElement() != null && "ProxyEndpoint".equals(document.getDocumentElement().getNodeName())) {
-	    	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-    		
-			try {
-				NodeList flowNodeList = (NodeList)xpath.evaluate("//RouteRule", document, XPathConstants.NODESET);
-	    	
-		    	if(flowNodeList!=null && flowNodeList.getLength() >= 2) {
-		    		
-		    		// Reversed loop
-		    		for(int i=flowNodeList.getLength()-2; i>=0; i--) {
-		    			Node routeRuleNode = flowNodeList.item(i);
-
-		    			// Search Condition value
-		    			Node condition = (Node)xpath.evaluate("Condition", routeRuleNode, XPathConstants.NODE);
-		    			
-		    			if(condition==null || condition.getTextContent().isEmpty() || "true".equals(condition.getTextContent())) {
-		    				// Issue detected
-		    				reportIssue(routeRuleNode, "Unreachable Route Rules - empty conditions go last");
-		    			}
-		    		}
-		    	}
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
 	    	
+	    	List<RouteRule> routeRules = endpoint.getRouteRules();
+	    	if(routeRules.size() >= 2) {
+	    		
+	    		// Reversed loop
+	    		for(int i=routeRules.size()-2; i>=0; i--) {
+	    			RouteRule routeRule = routeRules.get(i);
+	    			String condition = routeRule.getCondition();
+	    			
+	    			if(conditions().isUnconditional(condition)) {
+	    				// Issue detected
+	    				reportIssue(routeRule.getNode(), "Unreachable Route Rules - empty conditions go last");
+	    			}
+	    		}
+	    	}
 	    }
 	}
 
@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -28,6 +25,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : Empty steps clutter a bundle. Performance is not degraded.
@@ -35,20 +34,19 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "EmptyStepCheck")
+@RootElements({"ProxyEndpoint", "SharedFlow"})
 public class EmptyStepCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath EMPTY_STEPS = CompiledXPath.compile("//*[name() = 'ProxyEndpoint' or name() = 'SharedFlow']//Step[not(normalize-space())]");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-	    
 	    try {
 	    	// Select in one shot the Step nodes which are empty
-		    XPathExpression exprDisplayName = xpath.compile("//*[name() = 'ProxyEndpoint' or name() = 'SharedFlow']//Step[not(normalize-space())]");
-		    NodeList descriptionNodeList = (NodeList)exprDisplayName.evaluate(document, XPathConstants.NODESET);
+		    NodeList descriptionNodeList = (NodeList)EMPTY_STEPS.evaluate(document, XPathConstants.NODESET);
 
 	    	if(descriptionNodeList!=null) {
 	    		for(int i=0 ; i < descriptionNodeList.getLength(); i++) {
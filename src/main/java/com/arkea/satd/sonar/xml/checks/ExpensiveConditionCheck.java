@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Element;
+
+import com.arkea.satd.sonar.xml.condition.Comparison;
+import com.arkea.satd.sonar.xml.condition.Expression;
+import com.arkea.satd.sonar.xml.condition.Literal;
+import com.arkea.satd.sonar.xml.condition.Operator;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+/**
+ * Expensive condition operators on hot paths.
+ * The conditions of the PreFlow and PostFlow steps are evaluated on every request,
+ * and the conditions of the first Flows on almost every request, while the gateway searches the matching Flow.
+ * Regular expressions and patterns with several wildcards should be replaced there by = or StartsWith.
+ * Code : CC501
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "ExpensiveConditionCheck")
+@RootElements({"ProxyEndpoint", "TargetEndpoint"})
+public class ExpensiveConditionCheck extends AbstractBundleCheck {
+
+	// Literal prefix, then a final wildcard : "/users/.*" or "/users/*"
+	private static final Pattern REGEX_PREFIX = Pattern.compile("\\^?([^\\\\.\\[\\]{}()*+?^$|]*)\\.\\*\\$?");
+	private static final Pattern REGEX_LITERAL = Pattern.compile("\\^?([^\\\\.\\[\\]{}()*+?^$|]*)\\$?");
+	private static final Pattern WILDCARD_LITERAL = Pattern.compile("([^*]*)");
+	private static final Pattern WILDCARD_PREFIX = Pattern.compile("([^*]*)\\*{1,2}");
+	// "*" matches one path segment and "**" several segments : each of them is one wildcard
+	private static final Pattern WILDCARD = Pattern.compile("\\*+");
+
+	@RuleProperty(
+	    defaultValue = "JavaRegex",
+	    description = "Comma separated operators always considered expensive (symbols or names : JavaRegex, ~~, MatchesPath, Matches...)")
+	protected String expensiveOperators = "JavaRegex";
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "1",
+	    description = "Max number of wildcards allowed in a Matches or MatchesPath pattern")
+	protected int maxWildcards = 1;
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "5",
+	    description = "Number of Flows, from the first one, considered as hot paths (0 for all the Flows)")
+	protected int hotFlows = 5;
+
+	// Parsed from the rule property, set after the construction : parsed on the first file
+	private volatile Set<Operator> operators;
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null) {
+
+	    	if(operators == null) {
+	    		operators = parseOperators();
+	    	}
+
+	    	// Steps executed on every request
+	    	List<Step> steps = new ArrayList<>();
+	    	if(endpoint.getPreFlow() != null) {
+	    		steps.addAll(endpoint.getPreFlow().getSteps());
+	    	}
+	    	if(endpoint.getPostFlow() != null) {
+	    		steps.addAll(endpoint.getPostFlow().getSteps());
+	    	}
+
+	    	// Flows evaluated first : their condition, and the conditions of their steps
+	    	List<Flow> flows = endpoint.getFlows();
+	    	int hotFlowCount = hotFlows > 0 ? Math.min(hotFlows, flows.size()) : flows.size();
+	    	for(Flow flow : flows.subList(0, hotFlowCount)) {
+	    		checkCondition(flow.getConditionNode(), flow.getCondition());
+	    		steps.addAll(flow.getSteps());
+	    	}
+
+	    	for(Step step : steps) {
+	    		checkCondition(step.getConditionNode(), step.getCondition());
+	    	}
+	    }
+	}
+
+	private Set<Operator> parseOperators() {
+		Set<Operator> operators = EnumSet.noneOf(Operator.class);
+		for(String symbol : expensiveOperators.split(",")) {
+			Operator operator = Operator.of(symbol.trim());
+			if(operator != null) {
+				operators.add(operator);
+			}
+		}
+		return operators;
+	}
+
+	private void checkCondition(Element conditionNode, String condition) {
+		if(conditionNode == null || condition == null) {
+			return;
+		}
+		Expression expression = conditions().parse(condition);
+		for(Comparison comparison : expression.getComparisons()) {
+			String pattern = patternOf(comparison);
+			Operator operator = comparison.getOperator();
+			boolean isWildcard = operator == Operator.MATCHES || operator == Operator.MATCHES_PATH;
+			if(operators.contains(operator) || (isWildcard && pattern != null && wildcardCount(pattern) > maxWildcards)) {
+				reportIssue(conditionNode, "Condition uses " + operator.getName() + " on a path evaluated on most requests: " + suggestionFor(operator, pattern));
+				// One issue per condition
+				return;
+			}
+		}
+	}
+
+	private static String patternOf(Comparison comparison) {
+		if(comparison.getRight() instanceof Literal) {
+			return ((Literal) comparison.getRight()).getValue();
+		}
+		if(comparison.getLeft() instanceof Literal) {
+			return ((Literal) comparison.getLeft()).getValue();
+		}
+		return null;
+	}
+
+	private static int wildcardCount(String pattern) {
+		int count = 0;
+		Matcher wildcard = WILDCARD.matcher(pattern);
+		while(wildcard.find()) {
+			count++;
+		}
+		return count;
+	}
+
+	private static String suggestionFor(Operator operator, String pattern) {
+		if(pattern != null) {
+			boolean isRegex = operator == Operator.JAVA_REGEX;
+			Matcher literal = (isRegex ? REGEX_LITERAL : WILDCARD_LITERAL).matcher(pattern);
+			if(literal.matches()) {
+				return "use = \"" + literal.group(1) + "\" instead.";
+			}
+			Matcher prefix = (isRegex ? REGEX_PREFIX : WILDCARD_PREFIX).matcher(pattern);
+			if(prefix.matches()) {
+				return "use StartsWith \"" + prefix.group(1) + "\" instead.";
+			}
+		}
+		return "prefer = or StartsWith, or move the condition to a less frequent path.";
+	}
+}
@@ -17,15 +17,15 @@ package com.arkea.satd.sonar.xml.checks;
 
 import java.util.regex.Pattern;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.w3c.dom.Document;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * ExtractVariables XML or JSON Payload
@@ -34,23 +34,25 @@ import org.w3c.dom.Document;
  * @author Nicolas Tisserand
  */
 @Rule(key = "ExtractVariablesCheck")
+@RootElements("ExtractVariables")
 public class ExtractVariablesCheck extends AbstractBodyCheck {
 
+	private static final CompiledXPath HAS_PAYLOAD_EXTRACTION = CompiledXPath.compile("count(/ExtractVariables/*[(name()='JSONPayload' or name()='XMLPayload')]/Variable) + count(/ExtractVariables/FormParam) > 0");
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("/ExtractVariables/@name");
+	private static final CompiledXPath SOURCE = CompiledXPath.compile("/ExtractVariables/Source/text()");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-	    
 	    try {
-			Boolean hasPayloadExtraction = (Boolean)xpath.evaluate("count(/ExtractVariables/*[(name()='JSONPayload' or name()='XMLPayload')]/Variable) + count(/ExtractVariables/FormParam) > 0", document, XPathConstants.BOOLEAN);
+			Boolean hasPayloadExtraction = (Boolean)HAS_PAYLOAD_EXTRACTION.evaluate(document, XPathConstants.BOOLEAN);
 
 			if(hasPayloadExtraction.booleanValue()) {
 				// Perform the check
-				String nameAttr = (String)xpath.evaluate("/ExtractVariables/@name", document, XPathConstants.STRING);
-				String source = (String)xpath.evaluate("/ExtractVariables/Source/text()", document, XPathConstants.STRING);
+				String nameAttr = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
+				String source = (String)SOURCE.evaluate(document, XPathConstants.STRING);
 				
 				String regex = "(response.content|response.form|request.content|request.form|message.content|message.form|message.verb|request.verb|request.header.Content-Length|response.header.Content-Length)";
 
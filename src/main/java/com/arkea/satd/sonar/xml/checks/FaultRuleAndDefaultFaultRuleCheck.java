@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -27,6 +25,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 /**
  * DefaultFaultRule defined and FaultRule without condition.
  * Code : FR502
@@ -35,19 +35,21 @@ import org.w3c.dom.NodeList;
 @Rule(key = "FaultRuleAndDefaultFaultRuleCheck")
 public class FaultRuleAndDefaultFaultRuleCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath FAULT_RULES = CompiledXPath.compile("//FaultRule");
+	private static final CompiledXPath DEFAULT_FAULT_RULE = CompiledXPath.compile("//DefaultFaultRule");
+	private static final CompiledXPath ALWAYS_ENFORCE = CompiledXPath.compile("//DefaultFaultRule/AlwaysEnforce/text()");
+	private static final CompiledXPath CONDITION = CompiledXPath.compile("Condition");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
-		    	NodeList faultRuleNodeList = (NodeList)xpath.evaluate("//FaultRule", document, XPathConstants.NODESET);
-				Node defaultFaultRuleNode = (Node)xpath.evaluate("//DefaultFaultRule", document, XPathConstants.NODE);
-				Boolean alwaysEnforce = (Boolean)xpath.evaluate("//DefaultFaultRule/AlwaysEnforce/text()", document, XPathConstants.BOOLEAN);
+		    	NodeList faultRuleNodeList = (NodeList)FAULT_RULES.evaluate(document, XPathConstants.NODESET);
+				Node defaultFaultRuleNode = (Node)DEFAULT_FAULT_RULE.evaluate(document, XPathConstants.NODE);
+				Boolean alwaysEnforce = (Boolean)ALWAYS_ENFORCE.evaluate(document, XPathConstants.BOOLEAN);
 		    	
 		    	if(defaultFaultRuleNode!=null && faultRuleNodeList!=null && Boolean.FALSE.equals(alwaysEnforce)) {
 		    		
@@ -57,7 +59,7 @@ public class FaultRuleAndDefaultFaultRuleCheck extends SonarXmlCheck {
 		    			Node currentFaultRule = faultRuleNodeList.item(i);
 		    			
 		    			// Check the condition
-		    			String condition = (String)xpath.evaluate("Condition", currentFaultRule, XPathConstants.STRING);
+		    			String condition = (String)CONDITION.evaluate(currentFaultRule, XPathConstants.STRING);
 		    			if(condition==null || condition.isEmpty() || "true".equals(condition)) {
 		    				reportIssue(currentFaultRule, "DefaultFaultRule defined and FaultRule without condition.");
 		    				reportIssue(defaultFaultRuleNode, "DefaultFaultRule defined and FaultRule without condition.");
@@ -15,25 +15,27 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 /**
  * No Condition on FaultRule.
  * Code : FR001
  * @author Nicolas Tisserand
  */
 @Rule(key = "FaultRuleConditionCheck")
-public class FaultRuleConditionCheck extends SonarXmlCheck {
+public class FaultRuleConditionCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath FAULT_RULES = CompiledXPath.compile("//FaultRule");
+	private static final CompiledXPath CONDITION = CompiledXPath.compile("Condition");
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -41,12 +43,9 @@ public class FaultRuleConditionCheck extends SonarXmlCheck {
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select the faultRule
-		    	NodeList faultRuleNodeList = (NodeList)xpath.evaluate("//FaultRule", document, XPathConstants.NODESET);
+		    	NodeList faultRuleNodeList = (NodeList)FAULT_RULES.evaluate(document, XPathConstants.NODESET);
 		    	
 		    	if(faultRuleNodeList!=null) {
 		    		
@@ -55,9 +54,9 @@ public class FaultRuleConditionCheck extends SonarXmlCheck {
 		    			Node currentFaultRule = faultRuleNodeList.item(i);
 		    			
 		    			// Check the condition
-		    			String condition = (String)xpath.evaluate("Condition", currentFaultRule, XPathConstants.STRING);
+		    			String condition = (String)CONDITION.evaluate(currentFaultRule, XPathConstants.STRING);
 		    			
-		    			if(condition==null || condition.isEmpty() || "true".equals(condition)) {
+		    			if(conditions().isUnconditional(condition)) {
 			    			reportIssue(currentFaultRule, "FaultRule has no Condition or the Condition is empty.");		    				
 		    			}
 		    		}
@@ -18,19 +18,17 @@ package com.arkea.satd.sonar.xml.checks;
 import java.util.Arrays;
 import java.util.List;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Use of IgnoreUnresolvedVariables without the use of FaultRules may lead to unexpected errors.
@@ -39,7 +37,11 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "IgnoreUnresolvedVariablesWithoutFaultRuleCheck")
-public class IgnoreUnresolvedVariablesWithoutFaultRuleCheck extends SonarXmlCheck {
+public class IgnoreUnresolvedVariablesWithoutFaultRuleCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath IGNORE_UNRESOLVED_VARIABLES = CompiledXPath.compile("//IgnoreUnresolvedVariables[text()='true']");
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("//@name");
+	private static final CompiledXPath FAULT_RULES = CompiledXPath.compile("//*[(name()='FaultRule' or name()='DefaultFaultRule')]");
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -47,12 +49,10 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheck extends SonarXmlChec
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
 	    	String rootNodeName = document.getDocumentElement().getNodeName();
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
 		    Node errorLocation = document.getDocumentElement();
 		    
 		    try {
-				Node ignoreUnresolvedVariablesNode = (Node)xpath.evaluate("//IgnoreUnresolvedVariables[text()='true']", document, XPathConstants.NODE);
+				Node ignoreUnresolvedVariablesNode = (Node)IGNORE_UNRESOLVED_VARIABLES.evaluate(document, XPathConstants.NODE);
 				errorLocation = ignoreUnresolvedVariablesNode!=null ? ignoreUnresolvedVariablesNode : document;
 				
 				boolean isIgnoreUnresolvedVariablesEnabled = ignoreUnresolvedVariablesNode!=null;
@@ -66,14 +66,14 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheck extends SonarXmlChec
 				
 		    	if(isIgnoreUnresolvedVariablesEnabled) {
 		    		
-		    		String policyName = (String)xpath.evaluate("//@name", document, XPathConstants.STRING);
+		    		String policyName = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
 		    		
 			    	// Search for a faultRule or a defaultFaultRule in the endpoint where this policy is attached to
-		    		List<XmlFile> endpointsList = BundleRecorder.searchByStepName(policyName);
+		    		List<XmlFile> endpointsList = bundleRecorder().searchByStepName(inputFile(), policyName);
 		    		
 		    		int sumOfFaultRules = 0;
 		    		for(XmlFile currentXmlFile : endpointsList) {
-		    			NodeList faultRuleNodeList = (NodeList)xpath.evaluate("//*[(name()='FaultRule' or name()='DefaultFaultRule')]", currentXmlFile.getDocument(), XPathConstants.NODESET);
+		    			NodeList faultRuleNodeList = (NodeList)FAULT_RULES.evaluate(currentXmlFile.getDocument(), XPathConstants.NODESET);
 		    			sumOfFaultRules += faultRuleNodeList.getLength();
 		    		}
 		    		
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.sonar.api.batch.fs.InputComponent;
+import org.sonar.api.batch.rule.Severity;
+import org.sonar.api.batch.sensor.issue.NewIssue;
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.sonarsource.analyzer.commons.xml.XmlTextRange;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import com.arkea.satd.sonar.xml.flow.Elements;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+/**
+ * KeyValueMapOperations reads with a very short ExpiryTimeInSecs hit the backing store on almost every call.
+ * The issue is Critical when the policy is executed on every request (PreFlow, PostFlow or unconditional Flow, without step condition).
+ * Put and Delete operations executed on every request are reported as well.
+ * Code : PO502
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "KeyValueMapCachingCheck")
+@RootElements("KeyValueMapOperations")
+public class KeyValueMapCachingCheck extends AbstractBundleCheck {
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "60",
+	    description = "Min ExpiryTimeInSecs allowed for a Get operation")
+	protected int minExpiryTimeInSecs = 60;
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Element root = xmlFile.getDocument().getDocumentElement();
+	    if(root == null || !"KeyValueMapOperations".equals(root.getNodeName())) {
+	    	return;
+	    }
+
+	    boolean onEveryRequest = isExecutedOnEveryRequest(root.getAttribute("name"));
+	    String everyRequest = onEveryRequest ? " This policy is executed on every request." : "";
+
+	    // Reads : ExpiryTimeInSecs absent, 0 or negative means the default expiry of 300 seconds
+	    Element expiry = Elements.child(root, "ExpiryTimeInSecs");
+	    if(!Elements.children(root, "Get").isEmpty() && expiry != null) {
+	    	int expiryTimeInSecs = parseInt(expiry.getTextContent().trim());
+	    	if(expiryTimeInSecs > 0 && expiryTimeInSecs < minExpiryTimeInSecs) {
+	    		reportIssue(expiry, "ExpiryTimeInSecs of " + expiryTimeInSecs + " seconds makes the Get operations read the backing store almost every time: cache the values at least " + minExpiryTimeInSecs + " seconds." + everyRequest, onEveryRequest);
+	    	}
+	    }
+
+	    // Writes on every request
+	    if(onEveryRequest) {
+	    	List<Element> writes = new ArrayList<>(Elements.children(root, "Put"));
+	    	writes.addAll(Elements.children(root, "Delete"));
+	    	for(Element write : writes) {
+	    		reportIssue(write, "This " + write.getNodeName() + " operation writes to the backing store on every request: execute it only when the value changes.", false);
+	    	}
+	    }
+	}
+
+	/**
+	 * True if a step of the policy is executed on every request : in the PreFlow, the PostFlow or an unconditional Flow, without condition
+	 */
+	private boolean isExecutedOnEveryRequest(String policyName) {
+		Map<Node, XmlFile> steps = bundleRecorder().searchStepsByName(inputFile(), policyName);
+		for(Map.Entry<Node, XmlFile> stepEntry : steps.entrySet()) {
+			Endpoint endpoint = bundleRecorder().getEndpoint(stepEntry.getValue());
+			if(endpoint != null) {
+				for(Flow flow : hotFlows(endpoint)) {
+					for(Step step : flow.getSteps()) {
+						if(step.getNode() == stepEntry.getKey() && conditions().isUnconditional(step.getCondition())) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private List<Flow> hotFlows(Endpoint endpoint) {
+		List<Flow> flows = new ArrayList<>();
+		if(endpoint.getPreFlow() != null) {
+			flows.add(endpoint.getPreFlow());
+		}
+		for(Flow flow : endpoint.getFlows()) {
+			if(conditions().isUnconditional(flow.getCondition())) {
+				flows.add(flow);
+			}
+		}
+		if(endpoint.getPostFlow() != null) {
+			flows.add(endpoint.getPostFlow());
+		}
+		return flows;
+	}
+
+	private void reportIssue(Element node, String message, boolean critical) {
+		final NewIssue issue = session().getContext().newIssue();
+		final XmlTextRange textRange = XmlFile.nodeLocation(node);
+		issue.at(issue.newLocation()
+				.on((InputComponent) inputFile())
+				.at(inputFile().newRange(textRange.getStartLine(), textRange.getStartColumn(), textRange.getEndLine(), textRange.getEndColumn()))
+				.message(message))
+			.forRule(ruleKey());
+		if(critical) {
+			issue.overrideSeverity(Severity.CRITICAL);
+		}
+		issue.save();
+	}
+
+	private static int parseInt(String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			// Flow variable or invalid value : not checked
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.sonar.check.Rule;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+/**
+ * MessageLogging attached to the request or response flows adds its syslog round-trip to the latency of the client.
+ * It should be attached to the PostClientFlow of the ProxyEndpoint, executed after the response is sent.
+ * The FaultRules are not reported : they log the errors, outside the normal request path.
+ * Code : ST501
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "MessageLoggingInRequestPathCheck")
+@RootElements({"ProxyEndpoint", "TargetEndpoint"})
+public class MessageLoggingInRequestPathCheck extends AbstractBundleCheck {
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint == null) {
+	    	return;
+	    }
+
+	    Set<String> messageLoggings = new HashSet<>();
+	    bundleRecorder().searchPolicyFactsByType(inputFile(), "MessageLogging").forEach(facts -> messageLoggings.add(facts.getName()));
+	    if(messageLoggings.isEmpty()) {
+	    	return;
+	    }
+
+	    // Request and response flows
+	    List<Flow> flows = new ArrayList<>();
+	    if(endpoint.getPreFlow() != null) {
+	    	flows.add(endpoint.getPreFlow());
+	    }
+	    flows.addAll(endpoint.getFlows());
+	    if(endpoint.getPostFlow() != null) {
+	    	flows.add(endpoint.getPostFlow());
+	    }
+
+	    for(Flow flow : flows) {
+	    	for(Step step : flow.getSteps()) {
+	    		if(messageLoggings.contains(step.getName())) {
+	    			reportIssue(step.getNode(), "Move this MessageLogging to the PostClientFlow of the ProxyEndpoint: here it delays the response to the client.");
+	    		}
+	    	}
+	    }
+	}
+}
@@ -22,10 +22,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.sensor.issue.NewIssue;
@@ -33,12 +31,10 @@ import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.XmlTextRange;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
-import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CompiledXPath;
 
 /**
  * Warn on duplicate policies when no conditions are present or conditions are duplicates.
@@ -48,7 +44,16 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "MultipleStatsCollectorsCheck")
-public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
+@RootElements("StatisticsCollector")
+public class MultipleStatsCollectorsCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("/*/@name");
+	private static final CompiledXPath STATISTICS = CompiledXPath.compile("//Statistics");
+	private static final CompiledXPath STEP_NAME = CompiledXPath.compile("Name/text()");
+	private static final CompiledXPath PARENT_NAME = CompiledXPath.compile("name(..)");
+	private static final CompiledXPath GRAND_PARENT_NAME = CompiledXPath.compile("name(../..)");
+	private static final CompiledXPath FLOW_NAME = CompiledXPath.compile("../../@name");
+	private static final CompiledXPath CONDITION = CompiledXPath.compile("Condition/text()");
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -56,18 +61,15 @@ public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null && "StatisticsCollector".equals(document.getDocumentElement().getNodeName())) {
 	    	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-
     		// Search for other collectors policies
-    		List<XmlFile> collectorsList = BundleRecorder.searchPoliciesByType("StatisticsCollector");
+    		List<XmlFile> collectorsList = bundleRecorder().searchPoliciesByType(inputFile(), "StatisticsCollector");
     		Set<String> collectorsNamesSet = new HashSet<>();
     						    			
 		    try {
 		    	
 		    	// Select in one shot the name attribute and the Statistics node
-		    	String currentPolicyAttrName = (String)xpath.evaluate("/*/@name", document, XPathConstants.STRING);
-    			Node statisticsNode = (Node)xpath.evaluate("//Statistics", document, XPathConstants.NODE);
+		    	String currentPolicyAttrName = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
+    			Node statisticsNode = (Node)STATISTICS.evaluate(document, XPathConstants.NODE);
     			
     			//
     			// Search for duplicates of this policy  (ie. same <Statistics> elements)
@@ -75,14 +77,14 @@ public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
     			for(XmlFile otherPolicy : collectorsList) {
     				
     				Document otherDocument = otherPolicy.getDocument();
-			    	String otherPolicyAttrName = (String)xpath.evaluate("/*/@name", otherDocument, XPathConstants.STRING);
+			    	String otherPolicyAttrName = (String)POLICY_NAME.evaluate(otherDocument, XPathConstants.STRING);
 			    	
 			    	// Useful later
 			    	collectorsNamesSet.add(otherPolicyAttrName);
 			    	
     				// Exclude the current policy itself, of course.
     				if(!currentPolicyAttrName.equals(otherPolicyAttrName)) {
-    					Node otherStatisticsNode = (Node)xpath.evaluate("//Statistics", otherDocument, XPathConstants.NODE);
+    					Node otherStatisticsNode = (Node)STATISTICS.evaluate(otherDocument, XPathConstants.NODE);
     					otherStatisticsNode.normalize();
     					statisticsNode.normalize();
     					
@@ -106,12 +108,9 @@ public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
 	}
 
 	private void checkMultipleStatisticsCollectorWithoutCondition(Document document, String currentPolicyAttrName, Set<String> collectorsNamesSet) throws XPathExpressionException {
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-
 		Map<Node, XmlFile> collectorsStepsMap = new HashMap<>();
 		for(String collectorName : collectorsNamesSet) {
-			collectorsStepsMap.putAll(BundleRecorder.searchStepsByName(collectorName));
+			collectorsStepsMap.putAll(bundleRecorder().searchStepsByName(inputFile(), collectorName));
 		}
 		
 		// Flag used to trigger an issue only once at the policy level
@@ -122,30 +121,30 @@ public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
 		Set<Node> collectorsStepsSet = collectorsStepsMap.keySet();
 		for(Node stepI : collectorsStepsSet) {
 			
-			String stepIName = (String)xpath.evaluate("Name/text()", stepI, XPathConstants.STRING);
-			String stepIParentNodeName = (String)xpath.evaluate("name(..)", stepI, XPathConstants.STRING);
-			String stepIGrandParentNodeName = (String)xpath.evaluate("name(../..)", stepI, XPathConstants.STRING);
+			String stepIName = (String)STEP_NAME.evaluate(stepI, XPathConstants.STRING);
+			String stepIParentNodeName = (String)PARENT_NAME.evaluate(stepI, XPathConstants.STRING);
+			String stepIGrandParentNodeName = (String)GRAND_PARENT_NAME.evaluate(stepI, XPathConstants.STRING);
 			boolean isIAttachedToFlow = "Flow".equals(stepIGrandParentNodeName);
 			boolean isIAttachedToGlobalFlow = Arrays.asList("PreFlow", "PostFlow").contains(stepIGrandParentNodeName);
 			boolean isIAttachedToFault = "FaultRule".equals(stepIParentNodeName);
 			boolean isIAttachedToDefaultFault = "DefaultFaultRule".equals(stepIParentNodeName);
 			String stepIFlowName = "";
 			if(isIAttachedToFlow || isIAttachedToFault) {
-				stepIFlowName = (String)xpath.evaluate("../../@name", stepI, XPathConstants.STRING);
+				stepIFlowName = (String)FLOW_NAME.evaluate(stepI, XPathConstants.STRING);
 			}
 			String stepIBreadcrumb = stepIGrandParentNodeName + "/" + stepIParentNodeName + "@" + stepIFlowName + "/" + stepI.hashCode();
 			
 			for(Node stepJ : collectorsStepsSet) {
 
-				String stepJParentNodeName = (String)xpath.evaluate("name(..)", stepJ, XPathConstants.STRING);
-				String stepJGrandParentNodeName = (String)xpath.evaluate("name(../..)", stepJ, XPathConstants.STRING);
+				String stepJParentNodeName = (String)PARENT_NAME.evaluate(stepJ, XPathConstants.STRING);
+				String stepJGrandParentNodeName = (String)GRAND_PARENT_NAME.evaluate(stepJ, XPathConstants.STRING);
 				boolean isJAttachedToFlow = "Flow".equals(stepJGrandParentNodeName);
 				boolean isJAttachedToGlobalFlow = Arrays.asList("PreFlow", "PostFlow").contains(stepJGrandParentNodeName);
 				boolean isJAttachedToFault = "FaultRule".equals(stepJParentNodeName);
 				boolean isJAttachedToDefaultFault = "DefaultFaultRule".equals(stepJParentNodeName);
 				String stepJFlowName = "";
 				if(isJAttachedToFlow || isJAttachedToFault) {
-					stepJFlowName = (String)xpath.evaluate("../../@name", stepJ, XPathConstants.STRING);
+					stepJFlowName = (String)FLOW_NAME.evaluate(stepJ, XPathConstants.STRING);
 				}	
 				String stepJBreadcrumb = stepJGrandParentNodeName + "/" + stepJParentNodeName + "@" + stepJFlowName + "/" + stepJ.hashCode();
 				
@@ -159,11 +158,11 @@ public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
 					 )) {
 					
 					// Check that all steps have a non-null <Condition>
-					String conditionI = (String)xpath.evaluate("Condition/text()", stepI, XPathConstants.STRING);
-					boolean noConditionForStepI = conditionI==null || conditionI.isEmpty() || "true".equals(conditionI);
+					String conditionI = (String)CONDITION.evaluate(stepI, XPathConstants.STRING);
+					boolean noConditionForStepI = conditions().isUnconditional(conditionI);
 					
-					String conditionJ = (String)xpath.evaluate("Condition/text()", stepJ, XPathConstants.STRING);
-					boolean noConditionForStepJ = conditionJ==null || conditionJ.isEmpty() || "true".equals(conditionJ);
+					String conditionJ = (String)CONDITION.evaluate(stepJ, XPathConstants.STRING);
+					boolean noConditionForStepJ = conditions().isUnconditional(conditionJ);
 					
 					if(noConditionForStepI || noConditionForStepJ) {
 						
@@ -175,7 +174,7 @@ public class MultipleStatsCollectorsCheck extends SonarXmlCheck {
 						}
 						
 						// Report also the issue next to the StepI node
-						final NewIssue issueStepI = ApigeeXmlSensor.getContext().newIssue();
+						final NewIssue issueStepI = session().getContext().newIssue();
 						final XmlTextRange textRangeStepI = XmlFile.nodeLocation(stepI);
 						
 						XmlFile stepIXmlFile = collectorsStepsMap.get(stepI);
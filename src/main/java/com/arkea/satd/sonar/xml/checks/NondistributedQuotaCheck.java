@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -26,6 +24,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 /**
  * When using nondistributed quota the number of allowed calls is influenced by the number of Message Processors (MPs) deployed. 
  * This may lead to higher than expected transactions for a given quota as MPs now autoscale.
@@ -33,7 +33,11 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "NondistributedQuotaCheck")
+@RootElements("Quota")
 public class NondistributedQuotaCheck extends SonarXmlCheck {
+
+	private static final CompiledXPath DISTRIBUTED = CompiledXPath.compile("/Quota/Distributed");
+	private static final CompiledXPath DISTRIBUTED_VALUE = CompiledXPath.compile("/Quota/Distributed/text()");
 	
 	public NondistributedQuotaCheck() {
 		super();
@@ -44,18 +48,15 @@ public class NondistributedQuotaCheck extends SonarXmlCheck {
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null && "Quota".equals(document.getDocumentElement().getNodeName()) ) {
     	
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-			    
 			    try {
 			    	// Select in one shot the Distributed which are too short
-			    	Node distributedNode = (Node)xpath.evaluate("/Quota/Distributed", document, XPathConstants.NODE);
+			    	Node distributedNode = (Node)DISTRIBUTED.evaluate(document, XPathConstants.NODE);
 	
 			    	if(distributedNode==null) {
 			    		// Report the issue at the file level
 			    		reportIssue(document.getDocumentElement(), "Distributed quota is not enabled.");
 			    	} else {
-			    		String distributedValue = (String)xpath.evaluate("/Quota/Distributed/text()", document, XPathConstants.STRING);
+			    		String distributedValue = (String)DISTRIBUTED_VALUE.evaluate(document, XPathConstants.STRING);
 			    		if(distributedValue==null || distributedValue.isEmpty() || !"true".equalsIgnoreCase(distributedValue)) {
 			    			// Report the issue at the <Distributed> tag level
 				    		reportIssue(distributedNode, "Distributed quota is not enabled.");
@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -27,6 +24,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Policy Naming Conventions
@@ -37,6 +36,9 @@ import org.w3c.dom.Node;
 @Rule(key = "PolicyDisplayNameCheck")
 public class PolicyDisplayNameCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("/*/@name");
+	private static final CompiledXPath WRONG_DISPLAY_NAME = CompiledXPath.compile("//DisplayName[text() != /*/@name]");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
@@ -49,13 +51,9 @@ public class PolicyDisplayNameCheck extends SonarXmlCheck {
 		    if(!"StatisticsCollector".equals(rootName)) {
 		    	
 		    	try {
-				    XPathFactory xPathfactory = XPathFactory.newInstance();
-				    XPath xpath = xPathfactory.newXPath();
-				    XPathExpression exprName = xpath.compile("/*/@name");
-				    String nameAttr = (String)exprName.evaluate(document, XPathConstants.STRING);
+				    String nameAttr = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
 					
-					XPathExpression exprDisplayName = xpath.compile("//DisplayName[text() != /*/@name]");
-				    Node displayNameNode = (Node)exprDisplayName.evaluate(document, XPathConstants.NODE);
+				    Node displayNameNode = (Node)WRONG_DISPLAY_NAME.evaluate(document, XPathConstants.NODE);
 			
 				    if(displayNameNode!=null) {
 					    String displayNameText = displayNameNode.getTextContent();
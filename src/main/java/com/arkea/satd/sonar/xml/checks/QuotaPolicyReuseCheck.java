@@ -18,10 +18,8 @@ package com.arkea.satd.sonar.xml.checks;
 import java.util.Map;
 import java.util.Set;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.sensor.issue.NewIssue;
@@ -29,12 +27,10 @@ import org.sonar.api.batch.sensor.issue.NewIssueLocation;
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.XmlTextRange;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
-import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CompiledXPath;
 
 /**
  * When the same Quota policy is used more than once you must ensure that the conditions of execution are mutually exclusive 
@@ -43,7 +39,10 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "QuotaPolicyReuseCheck")
-public class QuotaPolicyReuseCheck extends SonarXmlCheck {
+@RootElements("Quota")
+public class QuotaPolicyReuseCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath QUOTA_NAME = CompiledXPath.compile("/Quota/@name");
 	
 	public QuotaPolicyReuseCheck() {
 		super();
@@ -59,11 +58,9 @@ public class QuotaPolicyReuseCheck extends SonarXmlCheck {
 			    
 			    try {
 			    	// Select in one shot the name of the policy
-				    XPathFactory xPathfactory = XPathFactory.newInstance();
-				    XPath xpath = xPathfactory.newXPath();
-			    	String currentPolicyAttrName = (String)xpath.evaluate("/Quota/@name", document, XPathConstants.STRING);
+			    	String currentPolicyAttrName = (String)QUOTA_NAME.evaluate(document, XPathConstants.STRING);
 			    	
-	    			Map<Node, XmlFile> quotaStepsMap = BundleRecorder.searchStepsByName(currentPolicyAttrName);
+	    			Map<Node, XmlFile> quotaStepsMap = bundleRecorder().searchStepsByName(inputFile(), currentPolicyAttrName);
 
 			    	if(quotaStepsMap.size()>1) {
 			    		// Report the issue at the file level
@@ -73,7 +70,7 @@ public class QuotaPolicyReuseCheck extends SonarXmlCheck {
 		    			Set<Node> quotaStepsSet = quotaStepsMap.keySet();
 	    				
 	    				for(Node step : quotaStepsSet) {
-							final NewIssue issueStepI = ApigeeXmlSensor.getContext().newIssue();
+							final NewIssue issueStepI = session().getContext().newIssue();
 							final XmlTextRange textRangeStepI = XmlFile.nodeLocation(step);
 							
 							XmlFile stepIXmlFile = quotaStepsMap.get(step);
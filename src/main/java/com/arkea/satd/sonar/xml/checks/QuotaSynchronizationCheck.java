@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.regex.Pattern;
+
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
+import org.w3c.dom.Element;
+
+import com.arkea.satd.sonar.xml.flow.Elements;
+
+/**
+ * Distributed quotas which update their counter too often :
+ * synchronous quotas update the shared counter on every request, and short SyncIntervalInSeconds are almost synchronous.
+ * Identifiers bound to high-cardinality variables create a shared counter per value.
+ * Code : PO503
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "QuotaSynchronizationCheck")
+@RootElements("Quota")
+public class QuotaSynchronizationCheck extends SonarXmlCheck {
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "10",
+	    description = "Min SyncIntervalInSeconds allowed for an asynchronous distributed quota")
+	protected int minSyncIntervalInSeconds = 10;
+
+	@RuleProperty(
+	    defaultValue = "(proxy\\.)?client\\.ip|request\\.header\\.x-forwarded-for|request\\.(uri|path|querystring)|proxy\\.pathsuffix|messageid|system\\.(time|timestamp)",
+	    description = "Pattern of the high-cardinality variables which should not identify a distributed quota")
+	protected String highCardinalityVariables = "(proxy\\.)?client\\.ip|request\\.header\\.x-forwarded-for|request\\.(uri|path|querystring)|proxy\\.pathsuffix|messageid|system\\.(time|timestamp)";
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Element root = xmlFile.getDocument().getDocumentElement();
+	    if(root == null || !"Quota".equals(root.getNodeName()) || !"true".equalsIgnoreCase(trimmedText(Elements.child(root, "Distributed")))) {
+	    	// Nondistributed quotas are reported by NondistributedQuotaCheck
+	    	return;
+	    }
+
+	    // Synchronous update of the shared counter
+	    Element synchronous = Elements.child(root, "Synchronous");
+	    if("true".equalsIgnoreCase(trimmedText(synchronous))) {
+	    	reportIssue(synchronous, "Synchronous distributed quota updates the shared counter on every request: set Synchronous to false and configure an AsynchronousConfiguration.");
+	    }
+
+	    // Asynchronous update, but almost synchronous
+	    Element asynchronousConfiguration = Elements.child(root, "AsynchronousConfiguration");
+	    Element syncInterval = asynchronousConfiguration != null ? Elements.child(asynchronousConfiguration, "SyncIntervalInSeconds") : null;
+	    if(syncInterval != null) {
+	    	try {
+	    		int interval = Integer.parseInt(trimmedText(syncInterval));
+	    		if(interval < minSyncIntervalInSeconds) {
+	    			reportIssue(syncInterval, "SyncIntervalInSeconds of " + interval + " seconds updates the shared counter almost on every request: use at least " + minSyncIntervalInSeconds + " seconds.");
+	    		}
+	    	} catch (NumberFormatException e) {
+	    		// Not a number : rejected at deployment
+	    	}
+	    }
+
+	    // One shared counter per value of the identifier
+	    Element identifier = Elements.child(root, "Identifier");
+	    String ref = identifier != null ? identifier.getAttribute("ref").trim() : "";
+	    if(!ref.isEmpty() && Pattern.compile(highCardinalityVariables, Pattern.CASE_INSENSITIVE).matcher(ref).matches()) {
+	    	reportIssue(identifier, "Identifier " + ref + " has a high cardinality: the distributed quota keeps a shared counter for each of its values.");
+	    }
+	}
+
+	private static String trimmedText(Element element) {
+		return element != null ? element.getTextContent().trim() : "";
+	}
+}
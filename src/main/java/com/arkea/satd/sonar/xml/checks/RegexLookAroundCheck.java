@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -27,6 +25,8 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : Regex Lookahead/Lookbehind are expensive, especially when applied to large text blocks, consider refactoring to a simpler regular expression.
@@ -34,20 +34,20 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "RegexLookAroundCheck")
+@RootElements("RegularExpressionProtection")
 public class RegexLookAroundCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath LOOKAROUND_PATTERNS = CompiledXPath.compile("/RegularExpressionProtection//Pattern[contains(text(), '(?') ]");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the Condition which are too long
-			    NodeList patternNodeList = (NodeList) xpath.evaluate("/RegularExpressionProtection//Pattern[contains(text(), '(?') ]", document, XPathConstants.NODESET);
+			    NodeList patternNodeList = (NodeList) LOOKAROUND_PATTERNS.evaluate(document, XPathConstants.NODESET);
 			    
 		    	if(patternNodeList!=null) {
 		    		for(int i=0 ; i < patternNodeList.getLength(); i++) {
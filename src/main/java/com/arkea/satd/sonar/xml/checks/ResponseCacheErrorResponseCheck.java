@@ -15,16 +15,16 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 /**
  * By default the ResponseCache policy will cache non 200 responses.
  * Either create a condition or use policy configuration options to exclude non 200 responses.
@@ -32,7 +32,12 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "ResponseCacheErrorResponseCheck")
+@RootElements("ResponseCache")
 public class ResponseCacheErrorResponseCheck extends AbstractBodyCheck {
+
+	private static final CompiledXPath EXCLUDE_ERROR_RESPONSE_VALUE = CompiledXPath.compile("/ResponseCache/ExcludeErrorResponse/text()");
+	private static final CompiledXPath EXCLUDE_ERROR_RESPONSE = CompiledXPath.compile("/ResponseCache/ExcludeErrorResponse");
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("/*/@name");
 	
 	public ResponseCacheErrorResponseCheck() {
 		super();
@@ -43,19 +48,16 @@ public class ResponseCacheErrorResponseCheck extends AbstractBodyCheck {
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null && "ResponseCache".equals(document.getDocumentElement().getNodeName())) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 
 		    	Node errorLocation = null;
-	    		String excludeErrorValue = (String)xpath.evaluate("/ResponseCache/ExcludeErrorResponse/text()", document, XPathConstants.STRING);
+	    		String excludeErrorValue = (String)EXCLUDE_ERROR_RESPONSE_VALUE.evaluate(document, XPathConstants.STRING);
 	    		
 	    		// If there is no condition or "false" value  (i.e not "true")
 	    		if(excludeErrorValue==null || excludeErrorValue.isEmpty() || !"true".equalsIgnoreCase(excludeErrorValue)) {
 	
 	    			// Select in one shot the ExcludeErrorResponse tag
-	    			Node excludeErrorNode = (Node)xpath.evaluate("/ResponseCache/ExcludeErrorResponse", document, XPathConstants.NODE);
+	    			Node excludeErrorNode = (Node)EXCLUDE_ERROR_RESPONSE.evaluate(document, XPathConstants.NODE);
     			
 	    			// The future error location
 	    			errorLocation = excludeErrorNode!=null ? excludeErrorNode : document.getDocumentElement();
@@ -63,7 +65,7 @@ public class ResponseCacheErrorResponseCheck extends AbstractBodyCheck {
 		    	
     			// Hey, the flag is not enabled, but let's check if there is a condition that checks response.* at the step
 		    	if(errorLocation!=null) {
-	    			String policyAttrName = (String)xpath.evaluate("/*/@name", document, XPathConstants.STRING);
+	    			String policyAttrName = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
 	    			
 	    			// Try to detect in Step or parent level
 	    			boolean hasIssueAtStepOrFlowLevel = checkConditionInStepOrParent(policyAttrName, "response\\..*");
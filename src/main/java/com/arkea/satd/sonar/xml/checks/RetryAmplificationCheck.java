@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sonar.check.Rule;
+import org.sonar.check.RuleProperty;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Element;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.HttpConnection;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+/**
+ * Retries of the LoadBalancers multiply the backend load during incidents :
+ * when RetryEnabled (default), each Server of a LoadBalancer may be tried once, on I/O errors, timeouts and ServerUnhealthyResponse codes.
+ * Each backend call of a client request, the TargetEndpoint and the ServiceCallouts of the ProxyEndpoint and of the TargetEndpoint,
+ * is compared to the amplification factor, and the issues give the worst case number of backend attempts of the client request.
+ * The ProxyEndpoints and the TargetEndpoints are linked by the RouteRules.
+ * A LoadBalancer without HealthMonitor never puts back the servers taken out after MaxFailures, and never takes out a failing server if MaxFailures is 0.
+ * Code : TD503
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "RetryAmplificationCheck")
+@RootElements({"ProxyEndpoint", "TargetEndpoint"})
+public class RetryAmplificationCheck extends AbstractBundleCheck {
+
+	@RuleProperty(type = "INTEGER",
+	    defaultValue = "3",
+	    description = "Max number of backend attempts allowed for one backend call, the retries of its LoadBalancer included")
+	protected int maxAmplificationFactor = 3;
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint == null) {
+	    	return;
+	    }
+
+	    // ServiceCallouts of the bundle, each step executes its own call
+	    Map<String, HttpConnection> serviceCallouts = new HashMap<>();
+	    for(XmlFile policy : bundleRecorder().searchPoliciesByType(inputFile(), "ServiceCallout")) {
+	    	Element root = policy.getDocument().getDocumentElement();
+	    	HttpConnection calloutConnection = HttpConnection.of(root);
+	    	if(calloutConnection != null) {
+	    		serviceCallouts.put(root.getAttribute("name"), calloutConnection);
+	    	}
+	    }
+	    Map<Step, HttpConnection> callouts = callouts(endpoint, serviceCallouts);
+
+	    if(Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
+	    	// Worst case of the client request : the callouts of the proxy, then the worst TargetEndpoint of its RouteRules
+	    	int targetAttempts = 0;
+	    	for(RouteRule routeRule : endpoint.getRouteRules()) {
+	    		XmlFile targetFile = routeRule.getTargetEndpoint() != null ? bundleRecorder().searchTargetEndpointByName(inputFile(), routeRule.getTargetEndpoint().trim()) : null;
+	    		Endpoint target = targetFile != null ? bundleRecorder().getEndpoint(targetFile) : null;
+	    		if(target != null) {
+	    			targetAttempts = Math.max(targetAttempts, attempts(HttpConnection.of(target.getNode()), callouts(target, serviceCallouts)));
+	    		}
+	    	}
+	    	reportCallouts(callouts, attempts(null, callouts) + targetAttempts);
+	    	return;
+	    }
+
+	    HttpConnection connection = HttpConnection.of(endpoint.getNode());
+
+	    // Worst case of the client request : the callouts of the worst ProxyEndpoint routing to the target, then the target
+	    Map<String, Endpoint> proxies = new HashMap<>();
+	    for(String calloutName : serviceCallouts.keySet()) {
+	    	for(XmlFile proxyFile : bundleRecorder().searchByStepName(inputFile(), calloutName)) {
+	    		Endpoint proxy = bundleRecorder().getEndpoint(proxyFile);
+	    		if(proxy != null && Endpoint.PROXY_ENDPOINT.equals(proxy.getType()) && routesTo(proxy, endpoint.getName())) {
+	    			proxies.put(proxyFile.getInputFile().uri().getPath(), proxy);
+	    		}
+	    	}
+	    }
+	    int proxyAttempts = 0;
+	    for(Endpoint proxy : proxies.values()) {
+	    	proxyAttempts = Math.max(proxyAttempts, attempts(null, callouts(proxy, serviceCallouts)));
+	    }
+	    int attempts = proxyAttempts + attempts(connection, callouts);
+
+	    // Each call is compared on its own : the calls without retries do not hide an amplifying LoadBalancer
+	    if(connection != null && connection.getLoadBalancerNode() != null && connection.getMaxAttempts() > maxAmplificationFactor) {
+	    	reportIssue(connection.getLoadBalancerNode(), "This LoadBalancer may make " + connection.getMaxAttempts() + " backend attempts per call, more than " + maxAmplificationFactor
+	    			+ ": disable RetryEnabled or reduce its Servers. In the worst case, a client request makes " + attempts + " backend attempts.");
+	    }
+	    reportCallouts(callouts, attempts);
+
+	    // Servers taken out, or failing servers, without HealthMonitor
+	    if(connection != null && connection.getLoadBalancerNode() != null && connection.getHealthMonitorNode() == null) {
+	    	if(connection.getMaxFailures() > 0) {
+	    		reportIssue(connection.getLoadBalancerNode(), "Servers taken out after MaxFailures failures are never put back without a HealthMonitor: add a HealthMonitor to the HTTPTargetConnection.");
+	    	} else if(connection.getServers().size() > 1) {
+	    		reportIssue(connection.getLoadBalancerNode(), "A failing Server is never taken out of the LoadBalancer and keeps receiving requests: set MaxFailures and add a HealthMonitor to the HTTPTargetConnection.");
+	    	}
+	    }
+	}
+
+	private void reportCallouts(Map<Step, HttpConnection> callouts, int attempts) {
+	    for(Map.Entry<Step, HttpConnection> callout : callouts.entrySet()) {
+	    	int calloutAttempts = callout.getValue().getMaxAttempts();
+	    	if(calloutAttempts > maxAmplificationFactor) {
+	    		reportIssue(callout.getKey().getNode(), "ServiceCallout " + callout.getKey().getName() + " may make " + calloutAttempts + " backend attempts per call with its LoadBalancer, more than " + maxAmplificationFactor
+	    				+ ": disable RetryEnabled or reduce its Servers. In the worst case, a client request makes " + attempts + " backend attempts.");
+	    	}
+	    }
+	}
+
+	/**
+	 * ServiceCallout steps of the endpoint, in the order of its flows
+	 */
+	private static Map<Step, HttpConnection> callouts(Endpoint endpoint, Map<String, HttpConnection> serviceCallouts) {
+	    Map<Step, HttpConnection> callouts = new LinkedHashMap<>();
+	    for(Step step : endpoint.getSteps()) {
+	    	HttpConnection calloutConnection = serviceCallouts.get(step.getName());
+	    	if(calloutConnection != null) {
+	    		callouts.put(step, calloutConnection);
+	    	}
+	    }
+	    return callouts;
+	}
+
+	/**
+	 * Worst case number of backend attempts of the connection, null for a ProxyEndpoint, and of the callouts
+	 */
+	private static int attempts(HttpConnection connection, Map<Step, HttpConnection> callouts) {
+	    int attempts = connection != null ? connection.getMaxAttempts() : 0;
+	    for(HttpConnection calloutConnection : callouts.values()) {
+	    	attempts += calloutConnection.getMaxAttempts();
+	    }
+	    return attempts;
+	}
+
+	private static boolean routesTo(Endpoint proxy, String targetName) {
+	    for(RouteRule routeRule : proxy.getRouteRules()) {
+	    	if(routeRule.getTargetEndpoint() != null && routeRule.getTargetEndpoint().trim().equals(targetName)) {
+	    		return true;
+	    	}
+	    }
+	    return false;
+	}
+}
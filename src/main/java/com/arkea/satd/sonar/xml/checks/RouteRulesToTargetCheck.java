@@ -15,19 +15,11 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
 
 /**
  * RouteRules must map to defined Targets
@@ -36,35 +28,25 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "RouteRulesToTargetCheck")
-public class RouteRulesToTargetCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class RouteRulesToTargetCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-	    if (document.getDocumentElement() != null && "ProxyEndpoint".equals(document.getDocumentElement().getNodeName())) {
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
-		    try {
-		    	// Select in one shot all the target endpoints
-		    	NodeList targetList = (NodeList)xpath.evaluate("//TargetEndpoint", document, XPathConstants.NODESET);
-		    	
-	    		for(int i=0; i<targetList.getLength(); i++) {
-	    			Node targetNode = targetList.item(i);
-	    			String targetName = targetNode.getTextContent();
+    		for(RouteRule routeRule : endpoint.getRouteRules()) {
+    			String targetName = routeRule.getTargetEndpoint();
 
-			    	// Verify that there is an existing target
-			    	if(BundleRecorder.searchTargetEndpointByName(targetName) == null) {
-	    				// Issue detected
-		    			reportIssue(targetNode, "RouteRules should map to defined Targets.");
-			    		
-			    	}
-	    		}
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}
+		    	// Verify that there is an existing target
+		    	if(targetName != null && bundleRecorder().searchTargetEndpointByName(inputFile(), targetName) == null) {
+    				// Issue detected
+	    			reportIssue(routeRule.getTargetEndpointNode(), "RouteRules should map to defined Targets.");
+		    		
+		    	}
+    		}
 	    }
 	}
 }
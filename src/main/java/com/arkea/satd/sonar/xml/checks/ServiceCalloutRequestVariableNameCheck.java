@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -26,6 +24,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : Reserved words as variables - ServiceCallout Request
@@ -33,20 +33,20 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "ServiceCalloutRequestVariableNameCheck")
+@RootElements("ServiceCallout")
 public class ServiceCalloutRequestVariableNameCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath REQUEST_VARIABLE = CompiledXPath.compile("/ServiceCallout/Request[@variable = 'request']");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the Request which have variable equals to 'request'
-			    Node requestNode = (Node)xpath.evaluate("/ServiceCallout/Request[@variable = 'request']", document, XPathConstants.NODE);
+			    Node requestNode = (Node)REQUEST_VARIABLE.evaluate(document, XPathConstants.NODE);
 		    	if(requestNode!=null) {
     				reportIssue(requestNode, "Using request for the Request name causes unexepected side effects.");
 		    	}
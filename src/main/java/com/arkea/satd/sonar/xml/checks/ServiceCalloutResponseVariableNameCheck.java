@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -26,6 +24,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : Reserved words as variables - ServiceCallout Response
@@ -33,20 +33,20 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "ServiceCalloutResponseVariableNameCheck")
+@RootElements("ServiceCallout")
 public class ServiceCalloutResponseVariableNameCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath RESPONSE_VARIABLE = CompiledXPath.compile("/ServiceCallout/Response[text() = 'response']");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select in one shot the Response which have variable equals to 'response'
-			    Node responseNode = (Node)xpath.evaluate("/ServiceCallout/Response[text() = 'response']", document, XPathConstants.NODE);
+			    Node responseNode = (Node)RESPONSE_VARIABLE.evaluate(document, XPathConstants.NODE);
 		    	if(responseNode!=null) {
 		    		reportIssue(responseNode, "Using response for the Response name causes unexepected side effects.");
 		    	}
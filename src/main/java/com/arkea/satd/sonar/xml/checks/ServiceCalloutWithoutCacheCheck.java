@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sonar.check.Rule;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+
+import com.arkea.satd.sonar.xml.FileFacts;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+/**
+ * A ServiceCallout executed on every request, in the PreFlow or the PostFlow, runs a synchronous backend call each time.
+ * It must be preceded by a LookupCache and followed by a PopulateCache on the same cache key.
+ * Code : ST500
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "ServiceCalloutWithoutCacheCheck")
+@RootElements({"ProxyEndpoint", "TargetEndpoint"})
+public class ServiceCalloutWithoutCacheCheck extends AbstractBundleCheck {
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint == null) {
+	    	return;
+	    }
+
+	    // Steps executed on every request, in execution order : the request of the PreFlow and the PostFlow, then their response
+	    Flow preFlow = endpoint.getPreFlow();
+	    Flow postFlow = endpoint.getPostFlow();
+	    List<Step> steps = new ArrayList<>();
+	    if(preFlow != null) {
+	    	steps.addAll(preFlow.getRequest());
+	    }
+	    if(postFlow != null) {
+	    	steps.addAll(postFlow.getRequest());
+	    }
+	    if(preFlow != null) {
+	    	steps.addAll(preFlow.getResponse());
+	    }
+	    if(postFlow != null) {
+	    	steps.addAll(postFlow.getResponse());
+	    }
+
+	    // Policies of the bundle, read from the bundle index
+	    Set<String> serviceCallouts = new HashSet<>();
+	    bundleRecorder().searchPolicyFactsByType(inputFile(), "ServiceCallout").forEach(facts -> serviceCallouts.add(facts.getName()));
+	    Map<String, String> lookupKeys = cacheKeysByName("LookupCache");
+	    Map<String, String> populateKeys = cacheKeysByName("PopulateCache");
+
+	    for(int i=0; i<steps.size(); i++) {
+	    	Step step = steps.get(i);
+	    	if(serviceCallouts.contains(step.getName()) && conditions().isUnconditional(step.getCondition())) {
+
+	    		// Cache keys looked up before the callout, and populated after it
+	    		Set<String> lookedUp = new HashSet<>();
+	    		for(Step before : steps.subList(0, i)) {
+	    			addKey(lookedUp, lookupKeys, before.getName());
+	    		}
+	    		Set<String> populated = new HashSet<>();
+	    		for(Step after : steps.subList(i + 1, steps.size())) {
+	    			addKey(populated, populateKeys, after.getName());
+	    		}
+
+	    		lookedUp.retainAll(populated);
+	    		if(lookedUp.isEmpty()) {
+	    			reportIssue(step.getNode(), "This ServiceCallout is executed on every request without a LookupCache before it and a PopulateCache after it on the same cache key.");
+	    		}
+	    	}
+	    }
+	}
+
+	private Map<String, String> cacheKeysByName(String policyType) {
+		Map<String, String> keys = new HashMap<>();
+		for(FileFacts facts : bundleRecorder().searchPolicyFactsByType(inputFile(), policyType)) {
+			if(facts.getCacheKey() != null) {
+				keys.put(facts.getName(), facts.getCacheKey());
+			}
+		}
+		return keys;
+	}
+
+	private static void addKey(Set<String> keys, Map<String, String> keysByName, String stepName) {
+		String key = keysByName.get(stepName);
+		if(key != null) {
+			keys.add(key);
+		}
+	}
+}
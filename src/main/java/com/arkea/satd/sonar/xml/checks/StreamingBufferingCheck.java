@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.checks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.sonar.check.Rule;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Element;
+
+import com.arkea.satd.sonar.xml.flow.Elements;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.HttpConnection;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+/**
+ * Policies reading the whole payload in an endpoint which streams it :
+ * the message is buffered and the streaming is defeated, for the request or the response.
+ * Code : ST502
+ * @author Nicolas Tisserand
+ */
+@Rule(key = "StreamingBufferingCheck")
+@RootElements({"ProxyEndpoint", "TargetEndpoint"})
+public class StreamingBufferingCheck extends AbstractBundleCheck {
+
+	private static final Set<String> BUFFERING_POLICIES = new HashSet<>(Arrays.asList(
+			"JSONToXML", "XMLToJSON", "XSL", "MessageValidation", "JSONThreatProtection", "XMLThreatProtection"));
+
+	@Override
+	public void scanFile(XmlFile xmlFile) {
+
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    HttpConnection connection = endpoint != null ? HttpConnection.of(endpoint.getNode()) : null;
+	    if(connection == null) {
+	    	return;
+	    }
+
+	    boolean requestStreaming = "true".equalsIgnoreCase(connection.getProperty("request.streaming.enabled"));
+	    boolean responseStreaming = "true".equalsIgnoreCase(connection.getProperty("response.streaming.enabled"));
+
+	    // The steps of the fault rules are not in a Request or a Response element : the message is already in error
+	    for(Flow flow : endpoint.getAllFlows()) {
+	    	if(requestStreaming) {
+	    		checkSteps(flow.getRequest(), "request");
+	    	}
+	    	if(responseStreaming) {
+	    		checkSteps(flow.getResponse(), "response");
+	    	}
+	    }
+	}
+
+	private void checkSteps(List<Step> steps, String direction) {
+		for(Step step : steps) {
+			XmlFile policy = step.getName() != null ? bundleRecorder().searchPoliciesByName(inputFile(), step.getName()) : null;
+			Element root = policy != null ? policy.getDocument().getDocumentElement() : null;
+			if(root != null && isBuffering(root)) {
+				reportIssue(step.getNode(), root.getNodeName() + " policy " + step.getName() + " reads the whole payload: it buffers the " + direction + " and defeats its streaming.");
+			}
+		}
+	}
+
+	private static boolean isBuffering(Element policy) {
+		return BUFFERING_POLICIES.contains(policy.getNodeName())
+			|| ("ExtractVariables".equals(policy.getNodeName()) && (Elements.child(policy, "JSONPayload") != null || Elements.child(policy, "XMLPayload") != null || Elements.child(policy, "FormParam") != null));
+	}
+}
@@ -15,15 +15,15 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.w3c.dom.Document;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * JSON Threat Protection or XML Threat Protection
@@ -32,18 +32,18 @@ import org.w3c.dom.Document;
  * @author Nicolas Tisserand
  */
 @Rule(key = "ThreatProtectionCheck")
+@RootElements({"JSONThreatProtection", "XMLThreatProtection"})
 public class ThreatProtectionCheck extends AbstractBodyCheck {
 
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("//*[name() = 'JSONThreatProtection' or name() = 'XMLThreatProtection']/@name");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-	    
 	    try {
-		    String nameAttr = (String)xpath.evaluate("//*[name() = 'JSONThreatProtection' or name() = 'XMLThreatProtection']/@name", document, XPathConstants.STRING);
+		    String nameAttr = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
 		
 			checkConditionInStepOrParent(nameAttr, 
 										"(response.content|response.form|request.content|request.form|message.content|message.form|message.verb|request.verb|request.header.Content-Length|response.header.Content-Length)");
@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -28,6 +25,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Check number of policies present in the bundle.
@@ -36,8 +35,12 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "TooMuchPoliciesCheck")
+@RootElements({"APIProxy", "SharedFlowBundle"})
 public class TooMuchPoliciesCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath POLICIES_COUNT = CompiledXPath.compile("count(/*/Policies/Policy)");
+	private static final CompiledXPath POLICIES = CompiledXPath.compile("/*/Policies");
+
 	@RuleProperty(type = "INTEGER",
 		    defaultValue = "20",
 		    description = "Maximum policies count allowed in a proxy")
@@ -59,18 +62,15 @@ public class TooMuchPoliciesCheck extends SonarXmlCheck {
 				  									  "SharedFlowBundle".equals(document.getDocumentElement().getNodeName()))) {
 	    	
 	    	// Search for policies declaration of an APIProxy document
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
 		    
 		    try {
-			    XPathExpression exprDisplayName = xpath.compile("count(/*/Policies/Policy)");
-			    double policiesCount = (double)exprDisplayName.evaluate(document, XPathConstants.NUMBER);
+			    double policiesCount = (double)POLICIES_COUNT.evaluate(document, XPathConstants.NUMBER);
 			    
 		    	// If there are more than 'maxAllowedPolicies' policies, this is a violation.
 		    	if(policiesCount > maxAllowedPolicies) {
 		    
 		    		// Search for the <ProxyEndpoints> node (it's a better location to indicate the violation
-		    		Node policiesNode = (Node)xpath.evaluate("/*/Policies", document, XPathConstants.NODE);
+		    		Node policiesNode = (Node)POLICIES.evaluate(document, XPathConstants.NODE);
 	    			reportIssue(policiesNode, "Large bundles can be problematic in development and difficult to maintain.");
 		    	}
 			} catch (XPathExpressionException e) {
@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -28,6 +25,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Discourage the declaration of multiple proxy endpoints in a same proxy.
@@ -35,8 +34,12 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "TooMuchProxyEndpointsCheck")
+@RootElements("APIProxy")
 public class TooMuchProxyEndpointsCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath PROXY_ENDPOINTS_COUNT = CompiledXPath.compile("count(/APIProxy/ProxyEndpoints/ProxyEndpoint)");
+	private static final CompiledXPath PROXY_ENDPOINTS = CompiledXPath.compile("/APIProxy/ProxyEndpoints");
+
 	@RuleProperty(type = "INTEGER",
 		    defaultValue = "2",
 		    description = "Maximum endpoints count allowed in a proxy")
@@ -57,18 +60,15 @@ public class TooMuchProxyEndpointsCheck extends SonarXmlCheck {
 	    if (document.getDocumentElement() != null && "APIProxy".equals(document.getDocumentElement().getNodeName())) {
 	    	
 	    	// Search for endpoints definitions of an APIProxy document
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
 		    
 		    try {
-			    XPathExpression exprDisplayName = xpath.compile("count(/APIProxy/ProxyEndpoints/ProxyEndpoint)");
-			    double proxiesCount = (double)exprDisplayName.evaluate(document, XPathConstants.NUMBER);
+			    double proxiesCount = (double)PROXY_ENDPOINTS_COUNT.evaluate(document, XPathConstants.NUMBER);
 			    
 		    	// If there are more than 'maxAllowedEndpoints' ProxyEndpoint, this is a violation.
 		    	if(proxiesCount > maxAllowedEndpoints) {
 		    
 		    		// Search for the <ProxyEndpoints> node (it's a better location to indicate the violation
-		    		Node proxyEndpointsNode = (Node)xpath.evaluate("/APIProxy/ProxyEndpoints", document, XPathConstants.NODE);
+		    		Node proxyEndpointsNode = (Node)PROXY_ENDPOINTS.evaluate(document, XPathConstants.NODE);
 		    		reportIssue(proxyEndpointsNode, "Discourage the declaration of multiple proxy endpoints in a same proxy.");
 		    	}
 			} catch (XPathExpressionException e) {
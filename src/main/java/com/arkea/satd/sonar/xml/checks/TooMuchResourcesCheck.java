@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -28,6 +25,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Check number of resource callouts present in the bundle.
@@ -36,8 +35,12 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "TooMuchResourcesCheck")
+@RootElements({"APIProxy", "SharedFlowBundle"})
 public class TooMuchResourcesCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath RESOURCES_COUNT = CompiledXPath.compile("count(/*/Resources/Resource)");
+	private static final CompiledXPath RESOURCES = CompiledXPath.compile("/*/Resources");
+
 	@RuleProperty(type = "INTEGER",
 		    defaultValue = "20",
 		    description = "Maximum resources count allowed in a proxy")
@@ -59,18 +62,15 @@ public class TooMuchResourcesCheck extends SonarXmlCheck {
 				  									  "SharedFlowBundle".equals(document.getDocumentElement().getNodeName()))) {
 	    	
 	    	// Search for policies declaration of an APIProxy document
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
 		    
 		    try {
-			    XPathExpression exprDisplayName = xpath.compile("count(/*/Resources/Resource)");
-			    double resourcesCount = (double)exprDisplayName.evaluate(document, XPathConstants.NUMBER);
+			    double resourcesCount = (double)RESOURCES_COUNT.evaluate(document, XPathConstants.NUMBER);
 			    
 		    	// If there are more than 'maxAllowedResources' resources, this is a violation.
 		    	if(resourcesCount > maxAllowedResources) {
 		    
 		    		// Search for the <ProxyEndpoints> node (it's a better location to indicate the violation
-		    		Node resourcesNode = (Node)xpath.evaluate("/*/Resources", document, XPathConstants.NODE);
+		    		Node resourcesNode = (Node)RESOURCES.evaluate(document, XPathConstants.NODE);
 		    		reportIssue(resourcesNode, "A high number of resource callouts is indicative of underutilizing out of the box Apigee policies.");
 		    	}
 			} catch (XPathExpressionException e) {
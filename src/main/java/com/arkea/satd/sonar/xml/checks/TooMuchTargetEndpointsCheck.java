@@ -15,11 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -28,6 +25,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Discourage the use of numerous target endpoints.
@@ -35,8 +34,12 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "TooMuchTargetEndpointsCheck")
+@RootElements("APIProxy")
 public class TooMuchTargetEndpointsCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath TARGET_ENDPOINTS_COUNT = CompiledXPath.compile("count(/APIProxy/TargetEndpoints/TargetEndpoint)");
+	private static final CompiledXPath TARGET_ENDPOINTS = CompiledXPath.compile("/APIProxy/TargetEndpoints");
+
 	@RuleProperty(type = "INTEGER",
 		    defaultValue = "5",
 		    description = "Maximum targts count allowed in a proxy")
@@ -58,17 +61,14 @@ public class TooMuchTargetEndpointsCheck extends SonarXmlCheck {
 
 	    	
 	    	// Search for targets definitions of an APIProxy document
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
 		    
 		    try {
-			    XPathExpression exprDisplayName = xpath.compile("count(/APIProxy/TargetEndpoints/TargetEndpoint)");
-			    double targetsCount = (double)exprDisplayName.evaluate(document, XPathConstants.NUMBER);
+			    double targetsCount = (double)TARGET_ENDPOINTS_COUNT.evaluate(document, XPathConstants.NUMBER);
 			    
 		    	// If there are more than 'maxAllowedTargets' TargetEndpoint, this is a violation.
 		    	if(targetsCount > maxAllowedTargets) {
 		    		// Search for the <TargetEndpoints> node (it's a better location to indicate the violation
-		    		Node targetEndpointsNode = (Node)xpath.evaluate("/APIProxy/TargetEndpoints", document, XPathConstants.NODE);
+		    		Node targetEndpointsNode = (Node)TARGET_ENDPOINTS.evaluate(document, XPathConstants.NODE);
 	    			reportIssue(targetEndpointsNode, "Discourage the use of numerous target endpoints.");
 		    	}
 			} catch (XPathExpressionException e) {
@@ -17,17 +17,15 @@ package com.arkea.satd.sonar.xml.checks;
 
 import java.util.List;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Unattached policies are dead code and should be removed from production bundles.
@@ -35,7 +33,9 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UnattachedPolicyCheck")
-public class UnattachedPolicyCheck extends SonarXmlCheck {
+public class UnattachedPolicyCheck extends AbstractBundleCheck {
+
+	private static final CompiledXPath POLICY_NAME = CompiledXPath.compile("/*/@name");
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -47,18 +47,15 @@ public class UnattachedPolicyCheck extends SonarXmlCheck {
 
 	    	if(!"Manifest".equals(rootNodeName) && !"xsl:stylesheet".equals(rootNodeName) && !"wsdl:definitions".equals(rootNodeName) && !"xs:schema".equals(rootNodeName) ) {
 
-			    XPathFactory xPathfactory = XPathFactory.newInstance();
-			    XPath xpath = xPathfactory.newXPath();
-			    
 			    try {
 			    	// Select in one shot the name attribute
-			    	String attrName = (String)xpath.evaluate("/*/@name", document, XPathConstants.STRING);
+			    	String attrName = (String)POLICY_NAME.evaluate(document, XPathConstants.STRING);
 			    	
 			    	// Verify that this is a policy :
-			    	if(BundleRecorder.searchPoliciesByName(attrName) != null) {
+			    	if(bundleRecorder().searchPoliciesByName(inputFile(), attrName) != null) {
 			    		
 			    		// Search for a step with the same name
-			    		List<XmlFile> stepsList = BundleRecorder.searchByStepName(attrName);
+			    		List<XmlFile> stepsList = bundleRecorder().searchByStepName(inputFile(), attrName);
 			    		if(stepsList==null || stepsList.isEmpty()) {
 			    			reportIssue(document.getDocumentElement(), "This policy is not attached to a Step in the bundle.");
 			    		}
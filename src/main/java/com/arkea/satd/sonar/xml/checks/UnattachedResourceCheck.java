@@ -17,10 +17,8 @@ package com.arkea.satd.sonar.xml.checks;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 
 /**
  * Unattached resources are dead code and should be removed from production bundles.
@@ -28,7 +26,8 @@ import com.arkea.satd.sonar.xml.BundleRecorder;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UnattachedResourceCheck")
-public class UnattachedResourceCheck extends SonarXmlCheck {
+@RootElements({"xsl:stylesheet", "wsdl:definitions", "xs:schema"})
+public class UnattachedResourceCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
@@ -49,7 +48,7 @@ public class UnattachedResourceCheck extends SonarXmlCheck {
 		    	String resourceURL = protocol + xmlFile.getInputFile().filename();
 		    	
 		    	// Verify that there is a least a policy :
-		    	if(BundleRecorder.searchPoliciesByResourceURL(resourceURL).isEmpty()) {
+		    	if(bundleRecorder().searchPoliciesByResourceURL(inputFile(), resourceURL).isEmpty()) {
 		    		reportIssue(document.getDocumentElement(), "This resource is not attached to a Policy in the bundle.");
 		    	}
 		    }
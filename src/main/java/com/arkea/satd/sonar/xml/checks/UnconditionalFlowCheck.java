@@ -15,18 +15,11 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
 
 /**
  * Only one unconditional flow will get executed. Error if more than one was detected.
@@ -34,38 +27,28 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UnconditionalFlowCheck")
-public class UnconditionalFlowCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class UnconditionalFlowCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-	    
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-	    
-	    try {
-	    	// Select the Flow nodes
-	    	NodeList flowNodeList = (NodeList)xpath.evaluate("/ProxyEndpoint/Flows/Flow", document, XPathConstants.NODESET);
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
 	    	
 	    	int noConditionCount = 0;
-    		for(int i=0; i<flowNodeList.getLength(); i++) {
-    			Node flowNode = flowNodeList.item(i);
-
-    			// Search Condition value
-    			String cond = (String)xpath.evaluate("Condition", flowNode, XPathConstants.STRING);
-				if(cond==null || cond.isEmpty() || "true".equalsIgnoreCase(cond)) {
+    		for(Flow flow : endpoint.getFlows()) {
+    			String cond = flow.getCondition();
+				if(conditions().isUnconditional(cond)) {
 					noConditionCount++;
 					
     				// Create a violation for each flow node
 	    			if(noConditionCount>1) {
-	    				reportIssue(flowNode, "Only one unconditional flow will get executed.");
+	    				reportIssue(flow.getNode(), "Only one unconditional flow will get executed.");
 	    			}
     			}
     		}	    
-		} catch (XPathExpressionException e) {
-			// Nothing to do
-		}
+	    }
 	}
 
 }
@@ -16,19 +16,14 @@
 package com.arkea.satd.sonar.xml.checks;
 
 import java.util.Collections;
-
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.List;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.XmlTextRange;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
 
 /**
  * A default flow must be defined.
@@ -36,31 +31,25 @@ import org.w3c.dom.Node;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UnknownResourceFlowCheck")
-public class UnknownResourceFlowCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class UnknownResourceFlowCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-	    
-	    try {
-	    	// Select the last Flow node
-	    	Node flowsNode = (Node)xpath.evaluate("/ProxyEndpoint/Flows", document, XPathConstants.NODE);
-	    	String condition = (String)xpath.evaluate("/ProxyEndpoint/Flows/Flow[last()]/Condition/text()", document, XPathConstants.STRING);
-			if(flowsNode!=null && 
-				condition!=null && 
-				condition.length()>0 && 
-				!"true".equalsIgnoreCase(condition)) {
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType()) && endpoint.getFlowsNode() != null) {
+	    	
+	    	// Condition of the last Flow
+	    	List<Flow> flows = endpoint.getFlows();
+	    	String condition = flows.isEmpty() ? null : flows.get(flows.size()-1).getCondition();
+			if(!conditions().isUnconditional(condition)) {
 				
 				// Find the closing tag
-				final XmlTextRange textRange = XmlFile.endLocation((Element)flowsNode);
+				final XmlTextRange textRange = XmlFile.endLocation(endpoint.getFlowsNode());
 				reportIssue(textRange, "There is no default flow in this proxy endpoint.", Collections.emptyList());								
 			}			    
-		} catch (XPathExpressionException e) {
-			// Nothing to do
-		}
+	    }
 	}
 
 }
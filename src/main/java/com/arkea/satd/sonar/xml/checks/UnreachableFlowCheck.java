@@ -15,17 +15,13 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.List;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
 
 /**
  * Flow without a condition must be last.
@@ -33,34 +29,25 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UnreachableFlowCheck")
-public class UnreachableFlowCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class UnreachableFlowCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-	    XPathFactory xPathfactory = XPathFactory.newInstance();
-	    XPath xpath = xPathfactory.newXPath();
-	    
-	    try {
-	    	// Select the Flow nodes
-	    	NodeList flowNodeList = (NodeList)xpath.evaluate("/ProxyEndpoint/Flows/Flow", document, XPathConstants.NODESET);
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
 	    	
-    		for(int i=0; i<flowNodeList.getLength(); i++) {
-    			Node flowNode = flowNodeList.item(i);
-
-    			// Search Condition value
-    			String cond = (String)xpath.evaluate("Condition", flowNode, XPathConstants.STRING);
-				if(i < flowNodeList.getLength()-1 &&
-					(cond==null || cond.isEmpty() || "true".equalsIgnoreCase(cond)) ) {
+	    	List<Flow> flows = endpoint.getFlows();
+    		for(int i=0; i<flows.size()-1; i++) {
+    			String cond = flows.get(i).getCondition();
+				if(conditions().isUnconditional(cond)) {
 
 					// Create a violation if flow node is not the last one
-					reportIssue(flowNode, "Flow without a condition should be last.");
+					reportIssue(flows.get(i).getNode(), "Flow without a condition should be last.");
     			}
     		}	    
-		} catch (XPathExpressionException e) {
-			// Nothing to do
-		}
+	    }
 	}
 
 }
@@ -15,17 +15,14 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
 
 /**
  * Only one RouteRule should be present without a condition
@@ -33,32 +30,25 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UnreachableRouteRuleCheck")
-public class UnreachableRouteRuleCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class UnreachableRouteRuleCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-	    if (document.getDocumentElement() != null && "ProxyEndpoint".equals(document.getDocumentElement().getNodeName())) {
-
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
-		    try {
-		    	// Select the RouteRule without Condition (or "true")
-			    NodeList routeRuleList = (NodeList)xpath.evaluate("//RouteRule[not(Condition) or Condition/text()='true' or string-length(Condition/text())=0]", document, XPathConstants.NODESET);
-		    	if(routeRuleList!=null && routeRuleList.getLength()>1) {
-		    		for(int i=0; i<routeRuleList.getLength(); i++) {
-		    			Node routeRuleNode = routeRuleList.item(i);
-
-	    				// Create a violation if flow node is not the last one
-		    			reportIssue(routeRuleNode, "Only one RouteRule should be present without a condition.");
-		    		}
-		    	}
-
-			} catch (XPathExpressionException e) {
-				// Nothing to do
-			}			    	
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
+
+	    	// Select the RouteRule without Condition (or always true, see Conditions.isUnconditional)
+	    	List<RouteRule> unconditionalRouteRules = endpoint.getRouteRules().stream()
+	    			.filter(routeRule -> conditions().isUnconditional(routeRule.getCondition()))
+	    			.collect(Collectors.toList());
+	    	if(unconditionalRouteRules.size()>1) {
+	    		for(RouteRule routeRule : unconditionalRouteRules) {
+    				// Create a violation if flow node is not the last one
+	    			reportIssue(routeRule.getNode(), "Only one RouteRule should be present without a condition.");
+	    		}
+	    	}
 	    }
 	}
 
@@ -28,6 +28,7 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UseFaultRulesCheck")
+@RootElements("ProxyEndpoint")
 public class UseFaultRulesCheck extends SonarXmlCheck {
 
 	@Override
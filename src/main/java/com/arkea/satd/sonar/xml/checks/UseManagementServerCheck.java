@@ -15,10 +15,8 @@
  */
 package com.arkea.satd.sonar.xml.checks;
 
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
@@ -26,6 +24,8 @@ import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
 
 /**
  * Definition : Discourage accessing management server from a proxy.
@@ -35,18 +35,17 @@ import org.w3c.dom.Node;
 @Rule(key = "UseManagementServerCheck")
 public class UseManagementServerCheck extends SonarXmlCheck {
 
+	private static final CompiledXPath MANAGEMENT_SERVER_URL = CompiledXPath.compile("//HTTPTargetConnection/URL[contains(text(), '/v1/organizations') or contains(text(), 'enterprise.apigee.com')]");
+
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
 	    Document document = xmlFile.getDocument();
 	    if (document.getDocumentElement() != null) {
     	
-		    XPathFactory xPathfactory = XPathFactory.newInstance();
-		    XPath xpath = xPathfactory.newXPath();
-		    
 		    try {
 		    	// Select the URL which points to the management server
-			    Node urlNode = (Node)xpath.evaluate("//HTTPTargetConnection/URL[contains(text(), '/v1/organizations') or contains(text(), 'enterprise.apigee.com')]", document, XPathConstants.NODE);
+			    Node urlNode = (Node)MANAGEMENT_SERVER_URL.evaluate(document, XPathConstants.NODE);
 		    	if(urlNode!=null) {
     				reportIssue(urlNode, "HTTPTargetConnection appears to be connecting to Management Server.");
 		    	}
@@ -20,11 +20,10 @@ import java.util.Set;
 
 import org.sonar.check.Rule;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
-import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
-import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
 
 /**
  * Encourage the use of target servers.
@@ -32,33 +31,29 @@ import org.w3c.dom.NodeList;
  * @author Nicolas Tisserand
  */
 @Rule(key = "UseTargetServersCheck")
-public class UseTargetServersCheck extends SonarXmlCheck {
+@RootElements("ProxyEndpoint")
+public class UseTargetServersCheck extends AbstractBundleCheck {
 
 	@Override
 	public void scanFile(XmlFile xmlFile) {
 		
-	    Document document = xmlFile.getDocument();
-	    if (document.getDocumentElement() != null && "ProxyEndpoint".equals(document.getDocumentElement().getNodeName())) {
+	    Endpoint endpoint = bundleRecorder().getEndpoint(xmlFile);
+	    if(endpoint != null && Endpoint.PROXY_ENDPOINT.equals(endpoint.getType())) {
 
-	    	// Search for last Flow of an ProxyEndpoint document
-	    	NodeList targetNodeList = document.getDocumentElement().getElementsByTagName("TargetEndpoint");
-	    	NodeList routesNodeList = document.getDocumentElement().getElementsByTagName("RouteRule");
-	    	
-	    	
-	    	boolean hasNoroute = false;
-	    	if(routesNodeList.getLength() > targetNodeList.getLength()) {
-	    		hasNoroute = true;
-	    	}
-	    	
 	    	Set<String> targetRefSet = new HashSet<>();
-	    	int nbOfRouteRulesWithTarget = targetNodeList.getLength();
+	    	int nbOfRouteRulesWithTarget = 0;
 
-	    	Node nodeWithIssue = document.getDocumentElement(); // By default
-	    	for(int i=0; i<targetNodeList.getLength(); i++) {
-		    	targetRefSet.add(targetNodeList.item(i).getTextContent());
-	    		// Use the <TargetEndpoint> node, it's a better location to indicate the violation
-		    	nodeWithIssue = targetNodeList.item(i);
+	    	Node nodeWithIssue = endpoint.getNode(); // By default
+	    	for(RouteRule routeRule : endpoint.getRouteRules()) {
+	    		if(routeRule.getTargetEndpointNode() != null) {
+	    			nbOfRouteRulesWithTarget++;
+	    			targetRefSet.add(routeRule.getTargetEndpoint());
+	    			// Use the <TargetEndpoint> node, it's a better location to indicate the violation
+	    			nodeWithIssue = routeRule.getTargetEndpointNode();
+	    		}
 	    	}
+	    	
+	    	boolean hasNoroute = endpoint.getRouteRules().size() > nbOfRouteRulesWithTarget;
 
     		// If there are more than ONE TargetEndpoint, this is ok (default behaviour).
 	    	// If there is only NoRoute (without TargetEndpoint), then it's not a violation.
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Comparison of two operands, like request.verb = "GET" or proxy.pathsuffix MatchesPath "/users/**"
+ * @author Nicolas Tisserand
+ */
+public final class Comparison extends Expression {
+
+	private final Operator operator;
+	private final Expression left;
+	private final Expression right;
+
+	Comparison(Operator operator, Expression left, Expression right) {
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public Expression getLeft() {
+		return left;
+	}
+
+	public Expression getRight() {
+		return right;
+	}
+
+	@Override
+	public List<Expression> getOperands() {
+		return Arrays.asList(left, right);
+	}
+
+	@Override
+	public String toString() {
+		return left + " " + operator.getSymbols().get(0) + " " + right;
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recursive descent parser of the Apigee conditions.
+ * Precedence, from the lowest : or, and, not, then comparisons and parentheses.
+ * @author Nicolas Tisserand
+ */
+final class ConditionParser {
+
+	// Longest symbols first, so that ~~ is not read as two ~
+	private static final List<String> SYMBOLS = Arrays.asList("~~", "~/", "=|", "==", "!=", ":=", ">=", "<=", "&&", "||", "=", ">", "<", "~", "!");
+	private static final String SYMBOL_CHARACTERS = "~=!:<>&|";
+
+	private enum TokenType {
+		OPEN, CLOSE, STRING, WORD, SYMBOL
+	}
+
+	private static final class Token {
+		private final TokenType type;
+		private final String text;
+		private final int position;
+
+		private Token(TokenType type, String text, int position) {
+			this.type = type;
+			this.text = text;
+			this.position = position;
+		}
+	}
+
+	private final String text;
+	private final List<Token> tokens;
+	private int index;
+
+	private ConditionParser(String text) {
+		this.text = text;
+		this.tokens = tokenize(text);
+	}
+
+	/**
+	 * Parses a condition. A blank condition is true.
+	 * @param text
+	 * @return
+	 * @throws IllegalArgumentException if the condition does not follow the Apigee syntax
+	 */
+	static Expression parse(String text) {
+		ConditionParser parser = new ConditionParser(text);
+		if(parser.tokens.isEmpty()) {
+			return new Literal("true", false);
+		}
+		Expression expression = parser.or();
+		if(parser.index < parser.tokens.size()) {
+			throw parser.error("Unexpected " + parser.tokens.get(parser.index).text);
+		}
+		return expression;
+	}
+
+	private Expression or() {
+		Expression expression = and();
+		while(acceptKeyword("or", "||")) {
+			expression = new Logical(Logical.Operator.OR, expression, and());
+		}
+		return expression;
+	}
+
+	private Expression and() {
+		Expression expression = not();
+		while(acceptKeyword("and", "&&")) {
+			expression = new Logical(Logical.Operator.AND, expression, not());
+		}
+		return expression;
+	}
+
+	private Expression not() {
+		if(acceptKeyword("not", "!")) {
+			return new Not(not());
+		}
+		return comparison();
+	}
+
+	private Expression comparison() {
+		Expression left = primary();
+		Token token = peek();
+		Operator operator = token != null && (token.type == TokenType.SYMBOL || token.type == TokenType.WORD) ? Operator.of(token.text) : null;
+		if(operator == null) {
+			return left;
+		}
+		index++;
+		return new Comparison(operator, left, primary());
+	}
+
+	private Expression primary() {
+		Token token = peek();
+		if(token == null) {
+			throw error("Unexpected end of condition");
+		}
+		index++;
+		switch(token.type) {
+		case OPEN:
+			Expression expression = or();
+			Token close = peek();
+			if(close == null || close.type != TokenType.CLOSE) {
+				throw error("Missing )");
+			}
+			index++;
+			return expression;
+		case STRING:
+			return new Literal(token.text, true);
+		case WORD:
+			if(isKeyword(token.text) || Operator.of(token.text) != null) {
+				throw error("Unexpected " + token.text, token.position);
+			}
+			return isConstant(token.text) ? new Literal(token.text, false) : new Variable(token.text);
+		default:
+			throw error("Unexpected " + token.text, token.position);
+		}
+	}
+
+	private static boolean isKeyword(String word) {
+		return "and".equalsIgnoreCase(word) || "or".equalsIgnoreCase(word) || "not".equalsIgnoreCase(word);
+	}
+
+	private static boolean isConstant(String word) {
+		return "true".equalsIgnoreCase(word) || "false".equalsIgnoreCase(word) || "null".equalsIgnoreCase(word)
+				|| word.matches("-?\\d+(\\.\\d+)?");
+	}
+
+	private boolean acceptKeyword(String keyword, String symbol) {
+		Token token = peek();
+		if(token != null && (token.type == TokenType.WORD && keyword.equalsIgnoreCase(token.text) || token.type == TokenType.SYMBOL && symbol.equals(token.text))) {
+			index++;
+			return true;
+		}
+		return false;
+	}
+
+	private Token peek() {
+		return index < tokens.size() ? tokens.get(index) : null;
+	}
+
+	private IllegalArgumentException error(String message) {
+		Token token = peek();
+		return error(message, token != null ? token.position : text.length());
+	}
+
+	private IllegalArgumentException error(String message, int position) {
+		return new IllegalArgumentException(message + " at position " + position + " of condition " + text);
+	}
+
+	private List<Token> tokenize(String text) {
+		List<Token> result = new ArrayList<>();
+		int position = 0;
+		while(position < text.length()) {
+			char c = text.charAt(position);
+			if(Character.isWhitespace(c)) {
+				position++;
+			} else if(c == '(' || c == ')') {
+				result.add(new Token(c == '(' ? TokenType.OPEN : TokenType.CLOSE, String.valueOf(c), position));
+				position++;
+			} else if(c == '"' || c == '\'') {
+				position = readString(text, position, result);
+			} else if(SYMBOL_CHARACTERS.indexOf(c) >= 0) {
+				position = readSymbol(text, position, result);
+			} else {
+				int start = position;
+				while(position < text.length() && isWordCharacter(text.charAt(position))) {
+					position++;
+				}
+				result.add(new Token(TokenType.WORD, text.substring(start, position), start));
+			}
+		}
+		return result;
+	}
+
+	private int readString(String text, int start, List<Token> result) {
+		char quote = text.charAt(start);
+		StringBuilder value = new StringBuilder();
+		int position = start + 1;
+		while(position < text.length() && text.charAt(position) != quote) {
+			if(text.charAt(position) == '\\' && position + 1 < text.length()) {
+				position++;
+			}
+			value.append(text.charAt(position));
+			position++;
+		}
+		if(position >= text.length()) {
+			throw error("Unterminated string", start);
+		}
+		result.add(new Token(TokenType.STRING, value.toString(), start));
+		return position + 1;
+	}
+
+	private int readSymbol(String text, int start, List<Token> result) {
+		for(String symbol : SYMBOLS) {
+			if(text.startsWith(symbol, start)) {
+				result.add(new Token(TokenType.SYMBOL, symbol, start));
+				return start + symbol.length();
+			}
+		}
+		throw error("Unexpected " + text.charAt(start), start);
+	}
+
+	private static boolean isWordCharacter(char c) {
+		return !Character.isWhitespace(c) && c != '(' && c != ')' && c != '"' && c != '\'' && SYMBOL_CHARACTERS.indexOf(c) < 0;
+	}
+}
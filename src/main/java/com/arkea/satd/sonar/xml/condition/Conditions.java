@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the parsed conditions of an analysis, by condition text.
+ * The same conditions are repeated in the steps and the flows of all the bundles,
+ * so each text is parsed once and its expression is shared by the rules.
+ * The cache is held by the AnalysisSession, and cleared with it.
+ * @author Nicolas Tisserand
+ */
+public final class Conditions {
+
+	private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns the expression of a condition
+	 * @param text
+	 * @return an Unparsed expression if the condition does not follow the Apigee syntax
+	 */
+	public Expression parse(String text) {
+		return expressions.computeIfAbsent(text, Conditions::parseText);
+	}
+
+	private static Expression parseText(String text) {
+		try {
+			return ConditionParser.parse(text);
+		} catch (IllegalArgumentException e) {
+			return new Unparsed(text);
+		}
+	}
+
+	/**
+	 * True if a Step, Flow or RouteRule with this Condition is always executed :
+	 * no Condition, an empty or blank Condition, or a condition always true like true, TRUE, (true) or "true or ...".
+	 * The literal true is matched ignoring case, like the other keywords of the condition language.
+	 * @param text text of the Condition, or null if absent
+	 * @return
+	 */
+	public boolean isUnconditional(String text) {
+		return text == null || parse(text).isAlwaysTrue();
+	}
+
+	/**
+	 * Number of distinct conditions parsed
+	 * @return
+	 */
+	public int size() {
+		return expressions.size();
+	}
+
+	public void clear() {
+		expressions.clear();
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Node of the syntax tree of an Apigee Condition (see Conditions.parse).
+ * Expressions are immutable, and shared by all the steps having the same condition text.
+ * @author Nicolas Tisserand
+ */
+public abstract class Expression {
+
+	Expression() {
+		// Subclasses of this package only
+	}
+
+	/**
+	 * Direct operands of the expression
+	 * @return
+	 */
+	public List<Expression> getOperands() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * True if the expression is true whatever the values of the variables, like true or (true or a = "b")
+	 * @return
+	 */
+	public boolean isAlwaysTrue() {
+		return false;
+	}
+
+	/**
+	 * True if the expression is false whatever the values of the variables, like false or not true
+	 * @return
+	 */
+	public boolean isAlwaysFalse() {
+		return false;
+	}
+
+	/**
+	 * Names of the variables read by the expression, in order of appearance
+	 * @return
+	 */
+	public Set<String> getVariables() {
+		Set<String> variables = new LinkedHashSet<>();
+		for(Expression expression : getDescendants()) {
+			if(expression instanceof Variable) {
+				variables.add(((Variable) expression).getName());
+			}
+		}
+		return variables;
+	}
+
+	/**
+	 * Comparisons of the expression, in order of appearance
+	 * @return
+	 */
+	public List<Comparison> getComparisons() {
+		List<Comparison> comparisons = new ArrayList<>();
+		for(Expression expression : getDescendants()) {
+			if(expression instanceof Comparison) {
+				comparisons.add((Comparison) expression);
+			}
+		}
+		return comparisons;
+	}
+
+	/**
+	 * The expression and all its operands, recursively, in order of appearance
+	 * @return
+	 */
+	public List<Expression> getDescendants() {
+		List<Expression> descendants = new ArrayList<>();
+		addDescendants(this, descendants);
+		return descendants;
+	}
+
+	private static void addDescendants(Expression expression, List<Expression> descendants) {
+		descendants.add(expression);
+		expression.getOperands().forEach(operand -> addDescendants(operand, descendants));
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+/**
+ * Constant of a condition : quoted string, number, true, false or null
+ * @author Nicolas Tisserand
+ */
+public final class Literal extends Expression {
+
+	private final String value;
+	private final boolean quoted;
+
+	Literal(String value, boolean quoted) {
+		this.value = value;
+		this.quoted = quoted;
+	}
+
+	/**
+	 * Value of the constant, without the quotes
+	 * @return
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * True for a quoted string
+	 * @return
+	 */
+	public boolean isQuoted() {
+		return quoted;
+	}
+
+	@Override
+	public boolean isAlwaysTrue() {
+		return !quoted && "true".equalsIgnoreCase(value);
+	}
+
+	@Override
+	public boolean isAlwaysFalse() {
+		return !quoted && ("false".equalsIgnoreCase(value) || "null".equalsIgnoreCase(value));
+	}
+
+	@Override
+	public String toString() {
+		return quoted ? "\"" + value.replace("\"", "\\\"") + "\"" : value;
+	}
+}
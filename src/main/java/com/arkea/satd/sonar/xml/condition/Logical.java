@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conjunction or disjunction of two expressions : and, AND, &amp;&amp;, or, OR, ||
+ * @author Nicolas Tisserand
+ */
+public final class Logical extends Expression {
+
+	public enum Operator {
+		AND, OR
+	}
+
+	private final Operator operator;
+	private final Expression left;
+	private final Expression right;
+
+	Logical(Operator operator, Expression left, Expression right) {
+		this.operator = operator;
+		this.left = left;
+		this.right = right;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public Expression getLeft() {
+		return left;
+	}
+
+	public Expression getRight() {
+		return right;
+	}
+
+	@Override
+	public List<Expression> getOperands() {
+		return Arrays.asList(left, right);
+	}
+
+	@Override
+	public boolean isAlwaysTrue() {
+		return operator == Operator.AND ? left.isAlwaysTrue() && right.isAlwaysTrue() : left.isAlwaysTrue() || right.isAlwaysTrue();
+	}
+
+	@Override
+	public boolean isAlwaysFalse() {
+		return operator == Operator.AND ? left.isAlwaysFalse() || right.isAlwaysFalse() : left.isAlwaysFalse() && right.isAlwaysFalse();
+	}
+
+	@Override
+	public String toString() {
+		return "(" + left + " " + operator.name().toLowerCase() + " " + right + ")";
+	}
+}
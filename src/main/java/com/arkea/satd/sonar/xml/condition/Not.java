@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Negation of an expression : not, NOT or !
+ * @author Nicolas Tisserand
+ */
+public final class Not extends Expression {
+
+	private final Expression operand;
+
+	Not(Expression operand) {
+		this.operand = operand;
+	}
+
+	public Expression getOperand() {
+		return operand;
+	}
+
+	@Override
+	public List<Expression> getOperands() {
+		return Collections.singletonList(operand);
+	}
+
+	@Override
+	public boolean isAlwaysTrue() {
+		return operand.isAlwaysFalse();
+	}
+
+	@Override
+	public boolean isAlwaysFalse() {
+		return operand.isAlwaysTrue();
+	}
+
+	@Override
+	public String toString() {
+		return "not " + operand;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.condition;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Comparison operators of the Apigee conditions, with their symbols and their aliases
+ * @author Nicolas Tisserand
+ */
+public enum Operator {
+
+	EQUALS("=", "Equals", "==", "Is"),
+	NOT_EQUALS("!=", "NotEquals", "IsNot"),
+	EQUALS_CASE_INSENSITIVE(":=", "EqualsCaseInsensitive"),
+	GREATER_THAN(">", "GreaterThan"),
+	GREATER_THAN_OR_EQUALS(">=", "GreaterThanOrEquals"),
+	LESSER_THAN("<", "LesserThan"),
+	LESSER_THAN_OR_EQUALS("<=", "LesserThanOrEquals"),
+	STARTS_WITH("=|", "StartsWith"),
+	MATCHES("~", "Matches", "Like"),
+	JAVA_REGEX("~~", "JavaRegex"),
+	MATCHES_PATH("~/", "MatchesPath", "LikePath");
+
+	private final List<String> symbols;
+
+	Operator(String... symbols) {
+		this.symbols = Collections.unmodifiableList(Arrays.asList(symbols));
+	}
+
+	/**
+	 * The symbol, the name, then the other aliases of the operator
+	 * @return
+	 */
+	public List<String> getSymbols() {
+		return symbols;
+	}
+
+	/**
+	 * Name of the operator, like JavaRegex
+	 * @return
+	 */
+	public String getName() {
+		return symbols.get(1);
+	}
+
+	/**
+	 * Returns the operator of a symbol or an alias, aliases being case insensitive
+	 * @param symbol
+	 * @return null if the symbol is not an operator
+	 */
+	public static Operator of(String symbol) {
+		for(Operator operator : values()) {
+			for(String operatorSymbol : operator.symbols) {
+				if(operatorSymbol.equalsIgnoreCase(symbol)) {
+					return operator;
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.flow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Navigation in the child elements of a DOM element, for the flow model and the checks
+ * @author Nicolas Tisserand
+ */
+public final class Elements {
+
+	private Elements() {
+		// Private constructor
+	}
+
+	/**
+	 * Returns the child elements named name, in document order
+	 */
+	public static List<Element> children(Element parent, String name) {
+		List<Element> children = new ArrayList<>();
+		for(Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if(child.getNodeType() == Node.ELEMENT_NODE && name.equals(child.getNodeName())) {
+				children.add((Element) child);
+			}
+		}
+		return children;
+	}
+
+	/**
+	 * Returns the first child element named name, or null
+	 */
+	public static Element child(Element parent, String name) {
+		for(Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if(child.getNodeType() == Node.ELEMENT_NODE && name.equals(child.getNodeName())) {
+				return (Element) child;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the text content of the first child element named name, or null
+	 */
+	public static String childText(Element parent, String name) {
+		Element child = child(parent, name);
+		return child != null ? child.getTextContent() : null;
+	}
+}
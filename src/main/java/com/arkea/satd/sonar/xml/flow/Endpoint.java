@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Model of a ProxyEndpoint or a TargetEndpoint : its flows, their steps, and its route rules.
+ * The model is read once from the DOM, and keeps the elements to locate the issues.
+ * It is shared by the checks of the file (see BundleRecorder.getEndpoint).
+ * @author Nicolas Tisserand
+ */
+public final class Endpoint {
+
+	public static final String PROXY_ENDPOINT = "ProxyEndpoint";
+	public static final String TARGET_ENDPOINT = "TargetEndpoint";
+
+	private final Element node;
+	private final String name;
+	private final Flow preFlow;
+	private final Element flowsNode;
+	private final List<Flow> flows;
+	private final Flow postFlow;
+	private final Flow postClientFlow;
+	private final List<Flow> faultRules;
+	private final Flow defaultFaultRule;
+	private final List<RouteRule> routeRules;
+	private final List<Step> steps;
+
+	private Endpoint(Element node) {
+		this.node = node;
+		this.name = node.getAttribute("name");
+		this.preFlow = Flow.of(Elements.child(node, "PreFlow"));
+		this.flowsNode = Elements.child(node, "Flows");
+		this.postFlow = Flow.of(Elements.child(node, "PostFlow"));
+		this.postClientFlow = Flow.of(Elements.child(node, "PostClientFlow"));
+		this.defaultFaultRule = Flow.of(Elements.child(node, "DefaultFaultRule"));
+
+		List<Flow> allFlows = new ArrayList<>();
+		Elements.children(node, "Flows").forEach(flowsElement -> Elements.children(flowsElement, "Flow").forEach(flow -> allFlows.add(Flow.of(flow))));
+		this.flows = Collections.unmodifiableList(allFlows);
+
+		List<Flow> allFaultRules = new ArrayList<>();
+		Elements.children(node, "FaultRules").forEach(faultRulesElement -> Elements.children(faultRulesElement, "FaultRule").forEach(faultRule -> allFaultRules.add(Flow.of(faultRule))));
+		this.faultRules = Collections.unmodifiableList(allFaultRules);
+
+		List<RouteRule> allRouteRules = new ArrayList<>();
+		NodeList routeRuleNodes = node.getElementsByTagName("RouteRule");
+		for(int i=0; i<routeRuleNodes.getLength(); i++) {
+			allRouteRules.add(RouteRule.of((Element) routeRuleNodes.item(i)));
+		}
+		this.routeRules = Collections.unmodifiableList(allRouteRules);
+
+		List<Step> allSteps = new ArrayList<>();
+		for(Flow flow : getAllFlows()) {
+			allSteps.addAll(flow.getSteps());
+		}
+		this.steps = Collections.unmodifiableList(allSteps);
+	}
+
+	/**
+	 * Reads the model of an endpoint document
+	 * @param document
+	 * @return null if the document is neither a ProxyEndpoint nor a TargetEndpoint
+	 */
+	public static Endpoint of(Document document) {
+		Element root = document.getDocumentElement();
+		if(root == null || !(PROXY_ENDPOINT.equals(root.getNodeName()) || TARGET_ENDPOINT.equals(root.getNodeName()))) {
+			return null;
+		}
+		return new Endpoint(root);
+	}
+
+	/**
+	 * The root element, to locate the issues
+	 * @return
+	 */
+	public Element getNode() {
+		return node;
+	}
+
+	/**
+	 * ProxyEndpoint or TargetEndpoint
+	 * @return
+	 */
+	public String getType() {
+		return node.getNodeName();
+	}
+
+	/**
+	 * Value of the name attribute, empty if absent
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * PreFlow, or null
+	 * @return
+	 */
+	public Flow getPreFlow() {
+		return preFlow;
+	}
+
+	/**
+	 * The first Flows element, or null
+	 * @return
+	 */
+	public Element getFlowsNode() {
+		return flowsNode;
+	}
+
+	/**
+	 * Conditional flows, in document order
+	 * @return
+	 */
+	public List<Flow> getFlows() {
+		return flows;
+	}
+
+	/**
+	 * PostFlow, or null
+	 * @return
+	 */
+	public Flow getPostFlow() {
+		return postFlow;
+	}
+
+	/**
+	 * PostClientFlow, or null
+	 * @return
+	 */
+	public Flow getPostClientFlow() {
+		return postClientFlow;
+	}
+
+	/**
+	 * FaultRules, in document order
+	 * @return
+	 */
+	public List<Flow> getFaultRules() {
+		return faultRules;
+	}
+
+	/**
+	 * DefaultFaultRule, or null
+	 * @return
+	 */
+	public Flow getDefaultFaultRule() {
+		return defaultFaultRule;
+	}
+
+	/**
+	 * RouteRules, in document order. A TargetEndpoint has none.
+	 * @return
+	 */
+	public List<RouteRule> getRouteRules() {
+		return routeRules;
+	}
+
+	/**
+	 * All the flows in execution order : PreFlow, Flows, PostFlow, PostClientFlow, FaultRules and DefaultFaultRule
+	 * @return
+	 */
+	public List<Flow> getAllFlows() {
+		List<Flow> allFlows = new ArrayList<>();
+		addFlow(allFlows, preFlow);
+		allFlows.addAll(flows);
+		addFlow(allFlows, postFlow);
+		addFlow(allFlows, postClientFlow);
+		allFlows.addAll(faultRules);
+		addFlow(allFlows, defaultFaultRule);
+		return allFlows;
+	}
+
+	private static void addFlow(List<Flow> allFlows, Flow flow) {
+		if(flow != null) {
+			allFlows.add(flow);
+		}
+	}
+
+	/**
+	 * All the steps of the endpoint, in the order of getAllFlows()
+	 * @return
+	 */
+	public List<Step> getSteps() {
+		return steps;
+	}
+}
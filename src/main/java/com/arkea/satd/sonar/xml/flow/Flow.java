@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.flow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.w3c.dom.Element;
+
+/**
+ * Flow of an endpoint : PreFlow, conditional Flow, PostFlow, PostClientFlow, FaultRule or DefaultFaultRule.
+ * The steps of a flow are in its Request and Response elements, and directly in the element for the fault rules.
+ * @author Nicolas Tisserand
+ */
+public final class Flow {
+
+	private final Element node;
+	private final String name;
+	private final Element conditionNode;
+	private final String condition;
+	private final List<Step> request;
+	private final List<Step> response;
+	private final List<Step> steps;
+
+	private Flow(Element node) {
+		this.node = node;
+		this.name = node.getAttribute("name");
+		this.conditionNode = Elements.child(node, "Condition");
+		this.condition = conditionNode != null ? conditionNode.getTextContent() : null;
+		this.request = stepsOf(Elements.child(node, "Request"));
+		this.response = stepsOf(Elements.child(node, "Response"));
+
+		List<Step> allSteps = new ArrayList<>(stepsOf(node));
+		allSteps.addAll(request);
+		allSteps.addAll(response);
+		this.steps = Collections.unmodifiableList(allSteps);
+	}
+
+	/**
+	 * Returns the flow of the element, or null if the element is null
+	 */
+	static Flow of(Element node) {
+		return node != null ? new Flow(node) : null;
+	}
+
+	private static List<Step> stepsOf(Element parent) {
+		List<Step> steps = new ArrayList<>();
+		if(parent != null) {
+			Elements.children(parent, "Step").forEach(stepNode -> steps.add(Step.of(stepNode)));
+		}
+		return Collections.unmodifiableList(steps);
+	}
+
+	/**
+	 * The flow element, to locate the issues
+	 * @return
+	 */
+	public Element getNode() {
+		return node;
+	}
+
+	/**
+	 * Value of the name attribute, empty if absent
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The Condition element, or null if the flow has no Condition
+	 * @return
+	 */
+	public Element getConditionNode() {
+		return conditionNode;
+	}
+
+	/**
+	 * Text of the Condition, or null if the flow has no Condition
+	 * @return
+	 */
+	public String getCondition() {
+		return condition;
+	}
+
+	/**
+	 * Steps of the Request element
+	 * @return
+	 */
+	public List<Step> getRequest() {
+		return request;
+	}
+
+	/**
+	 * Steps of the Response element
+	 * @return
+	 */
+	public List<Step> getResponse() {
+		return response;
+	}
+
+	/**
+	 * All the steps of the flow : the steps of a fault rule, then the Request and the Response steps
+	 * @return
+	 */
+	public List<Step> getSteps() {
+		return steps;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.flow;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Element;
+
+/**
+ * HTTPProxyConnection of a ProxyEndpoint, or HTTPTargetConnection of a TargetEndpoint or a ServiceCallout :
+ * its transport Properties and its LoadBalancer
+ * @author Nicolas Tisserand
+ */
+public final class HttpConnection {
+
+	public static final String HTTP_PROXY_CONNECTION = "HTTPProxyConnection";
+	public static final String HTTP_TARGET_CONNECTION = "HTTPTargetConnection";
+
+	private final Element node;
+	private final Map<String, Element> properties;
+	private final Element loadBalancerNode;
+	private final List<Element> servers;
+	private final Element healthMonitorNode;
+
+	private HttpConnection(Element node) {
+		this.node = node;
+
+		Map<String, Element> allProperties = new LinkedHashMap<>();
+		Element propertiesNode = Elements.child(node, "Properties");
+		if(propertiesNode != null) {
+			// The last definition of a property wins
+			Elements.children(propertiesNode, "Property").forEach(property -> allProperties.put(property.getAttribute("name").trim(), property));
+		}
+		this.properties = Collections.unmodifiableMap(allProperties);
+		this.loadBalancerNode = Elements.child(node, "LoadBalancer");
+		this.servers = Collections.unmodifiableList(loadBalancerNode != null ? Elements.children(loadBalancerNode, "Server") : Collections.emptyList());
+		this.healthMonitorNode = Elements.child(node, "HealthMonitor");
+	}
+
+	/**
+	 * Returns the HTTPProxyConnection or the HTTPTargetConnection child of the element
+	 * @param parent ProxyEndpoint, TargetEndpoint or ServiceCallout element
+	 * @return null if the element has no HTTP connection (LocalTargetConnection, ScriptTarget...)
+	 */
+	public static HttpConnection of(Element parent) {
+		Element node = Elements.child(parent, HTTP_TARGET_CONNECTION);
+		if(node == null) {
+			node = Elements.child(parent, HTTP_PROXY_CONNECTION);
+		}
+		return node != null ? new HttpConnection(node) : null;
+	}
+
+	/**
+	 * The connection element, to locate the issues
+	 * @return
+	 */
+	public Element getNode() {
+		return node;
+	}
+
+	/**
+	 * Property elements by name, in document order
+	 * @return
+	 */
+	public Map<String, Element> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Trimmed value of the property, or null if the property is not set
+	 * @param name
+	 * @return
+	 */
+	public String getProperty(String name) {
+		Element property = properties.get(name);
+		return property != null ? property.getTextContent().trim() : null;
+	}
+
+	/**
+	 * The LoadBalancer element, or null if the connection uses a URL
+	 * @return
+	 */
+	public Element getLoadBalancerNode() {
+		return loadBalancerNode;
+	}
+
+	/**
+	 * Server elements of the LoadBalancer, fallback servers included
+	 * @return
+	 */
+	public List<Element> getServers() {
+		return servers;
+	}
+
+	/**
+	 * The HealthMonitor element, or null
+	 * @return
+	 */
+	public Element getHealthMonitorNode() {
+		return healthMonitorNode;
+	}
+
+	/**
+	 * RetryEnabled of the LoadBalancer, true by default
+	 * @return false if the connection has no LoadBalancer
+	 */
+	public boolean isRetryEnabled() {
+		return loadBalancerNode != null && !"false".equalsIgnoreCase(trimmed(Elements.childText(loadBalancerNode, "RetryEnabled")));
+	}
+
+	/**
+	 * MaxFailures of the LoadBalancer : 0 by default, the servers are never taken out
+	 * @return 0 if the connection has no LoadBalancer, or if the value is not a number
+	 */
+	public int getMaxFailures() {
+		try {
+			return loadBalancerNode != null ? Integer.parseInt(trimmed(Elements.childText(loadBalancerNode, "MaxFailures"))) : 0;
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Worst case number of backend attempts of one call : when the LoadBalancer retries, each Server may be tried once
+	 * @return
+	 */
+	public int getMaxAttempts() {
+		return isRetryEnabled() ? Math.max(1, servers.size()) : 1;
+	}
+
+	private static String trimmed(String text) {
+		return text != null ? text.trim() : "";
+	}
+}
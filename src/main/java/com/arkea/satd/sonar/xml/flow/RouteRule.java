@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.flow;
+
+import org.w3c.dom.Element;
+
+/**
+ * RouteRule of a ProxyEndpoint : its Condition and the TargetEndpoint it routes to
+ * @author Nicolas Tisserand
+ */
+public final class RouteRule {
+
+	private final Element node;
+	private final String name;
+	private final Element conditionNode;
+	private final String condition;
+	private final Element targetEndpointNode;
+
+	private RouteRule(Element node) {
+		this.node = node;
+		this.name = node.getAttribute("name");
+		this.conditionNode = Elements.child(node, "Condition");
+		this.condition = conditionNode != null ? conditionNode.getTextContent() : null;
+		this.targetEndpointNode = Elements.child(node, "TargetEndpoint");
+	}
+
+	static RouteRule of(Element node) {
+		return new RouteRule(node);
+	}
+
+	/**
+	 * The RouteRule element, to locate the issues
+	 * @return
+	 */
+	public Element getNode() {
+		return node;
+	}
+
+	/**
+	 * Value of the name attribute, empty if absent
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The Condition element, or null if the RouteRule has no Condition
+	 * @return
+	 */
+	public Element getConditionNode() {
+		return conditionNode;
+	}
+
+	/**
+	 * Text of the Condition, or null if the RouteRule has no Condition
+	 * @return
+	 */
+	public String getCondition() {
+		return condition;
+	}
+
+	/**
+	 * The TargetEndpoint element, or null for a route without target
+	 * @return
+	 */
+	public Element getTargetEndpointNode() {
+		return targetEndpointNode;
+	}
+
+	/**
+	 * Name of the TargetEndpoint, or null for a route without target
+	 * @return
+	 */
+	public String getTargetEndpoint() {
+		return targetEndpointNode != null ? targetEndpointNode.getTextContent() : null;
+	}
+}
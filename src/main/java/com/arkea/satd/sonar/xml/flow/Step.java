@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.flow;
+
+import org.w3c.dom.Element;
+
+/**
+ * Step of a flow : the Name of the policy it executes, and its Condition
+ * @author Nicolas Tisserand
+ */
+public final class Step {
+
+	private final Element node;
+	private final String name;
+	private final Element conditionNode;
+	private final String condition;
+
+	private Step(Element node) {
+		this.node = node;
+		String nameText = Elements.childText(node, "Name");
+		this.name = nameText != null ? nameText.trim() : null;
+		this.conditionNode = Elements.child(node, "Condition");
+		this.condition = conditionNode != null ? conditionNode.getTextContent() : null;
+	}
+
+	static Step of(Element node) {
+		return new Step(node);
+	}
+
+	/**
+	 * The Step element, to locate the issues
+	 * @return
+	 */
+	public Element getNode() {
+		return node;
+	}
+
+	/**
+	 * Name of the policy, trimmed like the step names of the bundle index, or null if the Step has no Name
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The Condition element, or null if the Step has no Condition
+	 * @return
+	 */
+	public Element getConditionNode() {
+		return conditionNode;
+	}
+
+	/**
+	 * Text of the Condition, or null if the Step has no Condition
+	 * @return
+	 */
+	public String getCondition() {
+		return condition;
+	}
+}
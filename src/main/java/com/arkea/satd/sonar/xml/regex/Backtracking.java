@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.regex;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Worst case backtracking of a regex, estimated from its structure :
+ * <ul>
+ * <li>exponential : a repeated element which can match the same text in several ways,
+ * like nested quantifiers on overlapping characters (a+)+ or (.*a)*, or overlapping alternatives (a|ab)*</li>
+ * <li>polynomial : quantifiers on overlapping characters one after the other, like \d+\.?\d+ or .*.*</li>
+ * </ul>
+ * Possessive quantifiers and atomic groups never backtrack, and are ignored.
+ * @author Nicolas Tisserand
+ */
+public final class Backtracking {
+
+	public enum Complexity {
+		LINEAR, POLYNOMIAL, EXPONENTIAL
+	}
+
+	private static final Backtracking LINEAR = new Backtracking(Complexity.LINEAR, 1, null);
+
+	private final Complexity complexity;
+	private final int degree;
+	private final String cause;
+
+	private Backtracking(Complexity complexity, int degree, String cause) {
+		this.complexity = complexity;
+		this.degree = degree;
+		this.cause = cause;
+	}
+
+	/**
+	 * Analyses a regex
+	 * @param regex
+	 * @return null if the regex is invalid, or uses constructs which are not analysed (class intersections)
+	 */
+	public static Backtracking of(String regex) {
+		RegexNode root;
+		try {
+			Pattern.compile(regex);
+			root = RegexParser.parse(regex);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			return null;
+		}
+		Backtracking exponential = exponential(root);
+		if(exponential != null) {
+			return exponential;
+		}
+		int degree = polynomialDegree(root);
+		return degree > 1 ? new Backtracking(Complexity.POLYNOMIAL, degree, "quantifiers on overlapping characters follow each other") : LINEAR;
+	}
+
+	public Complexity getComplexity() {
+		return complexity;
+	}
+
+	/**
+	 * Degree of a polynomial complexity, 1 for a linear one
+	 * @return
+	 */
+	public int getDegree() {
+		return degree;
+	}
+
+	/**
+	 * Structure causing the backtracking, or null for a linear complexity
+	 * @return
+	 */
+	public String getCause() {
+		return cause;
+	}
+
+	@Override
+	public String toString() {
+		switch(complexity) {
+		case EXPONENTIAL:
+			return "O(2^n)";
+		case POLYNOMIAL:
+			return "O(n^" + degree + ")";
+		default:
+			return "O(n)";
+		}
+	}
+
+	private static Backtracking exponential(RegexNode node) {
+		if(node.getKind() == RegexNode.Kind.ATOMIC) {
+			return null;
+		}
+		if(node.isLargeRepeat()) {
+			RegexNode body = node.getChildren().get(0);
+			if(hasAmbiguousRepeat(body, body)) {
+				return new Backtracking(Complexity.EXPONENTIAL, 0, "nested quantifiers can match the same characters");
+			}
+			if(hasOverlappingAlternatives(body)) {
+				return new Backtracking(Complexity.EXPONENTIAL, 0, "repeated alternatives can match the same characters");
+			}
+		}
+		for(RegexNode child : node.getChildren()) {
+			Backtracking backtracking = exponential(child);
+			if(backtracking != null) {
+				return backtracking;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * True if the body of a repeat holds an inner repeat, such that one iteration of the body
+	 * can also be matched by several iterations : all the other mandatory characters of the body
+	 * can be consumed by the inner repeat as well.
+	 */
+	private static boolean hasAmbiguousRepeat(RegexNode body, RegexNode node) {
+		if(node.getKind() == RegexNode.Kind.ATOMIC || node.getKind() == RegexNode.Kind.LOOKAROUND) {
+			return false;
+		}
+		if(node.isLargeRepeat() && node.getChildren().get(0).getCharacters().containsAll(mandatoryCharacters(body, node))) {
+			return true;
+		}
+		for(RegexNode child : node.getChildren()) {
+			if(hasAmbiguousRepeat(body, child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Characters the element must consume besides the excluded one
+	 */
+	private static CharSet mandatoryCharacters(RegexNode node, RegexNode excluded) {
+		if(node == excluded || (node.isNullable() && !contains(node, excluded))) {
+			return CharSet.empty();
+		}
+		switch(node.getKind()) {
+		case CHARACTER:
+			return node.getCharacters();
+		case ALTERNATION:
+			// Only the alternative holding the excluded element must match
+			for(RegexNode child : node.getChildren()) {
+				if(contains(child, excluded)) {
+					return mandatoryCharacters(child, excluded);
+				}
+			}
+			return node.getCharacters();
+		case LOOKAROUND:
+		case EMPTY:
+			return CharSet.empty();
+		default:
+			CharSet characters = CharSet.empty();
+			for(RegexNode child : node.getChildren()) {
+				characters = characters.union(mandatoryCharacters(child, excluded));
+			}
+			return characters;
+		}
+	}
+
+	private static boolean contains(RegexNode node, RegexNode searched) {
+		if(node == searched) {
+			return true;
+		}
+		for(RegexNode child : node.getChildren()) {
+			if(contains(child, searched)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * True if two alternatives of the body start with the same characters, and one only uses characters of the other
+	 */
+	private static boolean hasOverlappingAlternatives(RegexNode body) {
+		if(body.getKind() != RegexNode.Kind.ALTERNATION) {
+			return false;
+		}
+		List<RegexNode> alternatives = body.getChildren();
+		for(int i=0; i<alternatives.size(); i++) {
+			for(int j=i+1; j<alternatives.size(); j++) {
+				RegexNode first = alternatives.get(i);
+				RegexNode second = alternatives.get(j);
+				if(first.getFirstCharacters().intersects(second.getFirstCharacters())
+						&& (first.getCharacters().containsAll(second.getCharacters()) || second.getCharacters().containsAll(first.getCharacters()))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Longest chain of quantifiers on overlapping characters, only separated by optional elements
+	 */
+	private static int polynomialDegree(RegexNode node) {
+		if(node.getKind() == RegexNode.Kind.ATOMIC) {
+			return 1;
+		}
+		int degree = 1;
+		if(node.getKind() == RegexNode.Kind.SEQUENCE) {
+			int chain = 0;
+			RegexNode previous = null;
+			for(RegexNode item : node.getChildren()) {
+				if(item.isLargeRepeat()) {
+					boolean overlaps = previous != null && previous.getChildren().get(0).getCharacters().intersects(item.getChildren().get(0).getCharacters());
+					chain = overlaps ? chain + 1 : 1;
+					previous = item;
+					degree = Math.max(degree, chain);
+				} else if(!item.isNullable()) {
+					chain = 0;
+					previous = null;
+				}
+			}
+		}
+		for(RegexNode child : node.getChildren()) {
+			degree = Math.max(degree, polynomialDegree(child));
+		}
+		return degree;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.regex;
+
+import java.util.BitSet;
+
+/**
+ * Approximation of the characters a regex element can match : the ASCII characters one by one,
+ * and all the other characters as a whole. It is precise enough to tell whether two quantifiers can
+ * match the same characters.
+ * @author Nicolas Tisserand
+ */
+final class CharSet {
+
+	private static final int ASCII = 128;
+
+	static final CharSet ALL = range(0, ASCII - 1).withOthers();
+	static final CharSet DOT = ALL.minus(of('\n'));
+	static final CharSet DIGITS = range('0', '9');
+	static final CharSet WORDS = range('a', 'z').union(range('A', 'Z')).union(DIGITS).union(of('_'));
+	static final CharSet SPACES = of(' ', '\t', '\n', '\u000B', '\f', '\r');
+
+	private final BitSet ascii;
+	private final boolean others;
+
+	private CharSet(BitSet ascii, boolean others) {
+		this.ascii = ascii;
+		this.others = others;
+	}
+
+	static CharSet empty() {
+		return new CharSet(new BitSet(ASCII), false);
+	}
+
+	static CharSet of(char... characters) {
+		BitSet bits = new BitSet(ASCII);
+		boolean others = false;
+		for(char c : characters) {
+			if(c < ASCII) {
+				bits.set(c);
+			} else {
+				others = true;
+			}
+		}
+		return new CharSet(bits, others);
+	}
+
+	static CharSet range(int from, int to) {
+		BitSet bits = new BitSet(ASCII);
+		bits.set(Math.min(from, ASCII), Math.min(to + 1, ASCII));
+		return new CharSet(bits, to >= ASCII);
+	}
+
+	private CharSet withOthers() {
+		return new CharSet(ascii, true);
+	}
+
+	CharSet union(CharSet other) {
+		BitSet bits = (BitSet) ascii.clone();
+		bits.or(other.ascii);
+		return new CharSet(bits, others || other.others);
+	}
+
+	CharSet minus(CharSet other) {
+		BitSet bits = (BitSet) ascii.clone();
+		bits.andNot(other.ascii);
+		return new CharSet(bits, others && !other.others);
+	}
+
+	CharSet complement() {
+		return ALL.minus(this);
+	}
+
+	boolean intersects(CharSet other) {
+		return ascii.intersects(other.ascii) || (others && other.others);
+	}
+
+	boolean containsAll(CharSet other) {
+		return other.minus(this).isEmpty();
+	}
+
+	boolean isEmpty() {
+		return ascii.isEmpty() && !others;
+	}
+}
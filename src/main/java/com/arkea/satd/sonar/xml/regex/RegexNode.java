@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.regex;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Element of the tree of a regex, as read by RegexParser
+ * @author Nicolas Tisserand
+ */
+final class RegexNode {
+
+	static final int UNBOUNDED = -1;
+
+	enum Kind {
+		// One character of a set : literal, class, escape or dot
+		CHARACTER,
+		// Elements one after the other
+		SEQUENCE,
+		// Alternatives separated by |
+		ALTERNATION,
+		// Element with a quantifier
+		REPEAT,
+		// Group which matches its content, but never gives back what it matched : atomic group
+		ATOMIC,
+		// Lookaround : its content is checked, but no character is consumed
+		LOOKAROUND,
+		// Anchor, back reference or inline flags : no character of its own
+		EMPTY
+	}
+
+	private final Kind kind;
+	private final CharSet characters;
+	private final List<RegexNode> children;
+	private final int min;
+	private final int max;
+	private final boolean possessive;
+
+	private RegexNode(Kind kind, CharSet characters, List<RegexNode> children, int min, int max, boolean possessive) {
+		this.kind = kind;
+		this.characters = characters;
+		this.children = children;
+		this.min = min;
+		this.max = max;
+		this.possessive = possessive;
+	}
+
+	static RegexNode character(CharSet characters) {
+		return new RegexNode(Kind.CHARACTER, characters, Collections.emptyList(), 1, 1, false);
+	}
+
+	static RegexNode group(Kind kind, List<RegexNode> children) {
+		return new RegexNode(kind, null, Collections.unmodifiableList(children), 1, 1, false);
+	}
+
+	static RegexNode repeat(RegexNode child, int min, int max, boolean possessive) {
+		return new RegexNode(Kind.REPEAT, null, Collections.singletonList(child), min, max, possessive);
+	}
+
+	static RegexNode empty() {
+		return new RegexNode(Kind.EMPTY, null, Collections.emptyList(), 1, 1, false);
+	}
+
+	Kind getKind() {
+		return kind;
+	}
+
+	List<RegexNode> getChildren() {
+		return children;
+	}
+
+	int getMin() {
+		return min;
+	}
+
+	int getMax() {
+		return max;
+	}
+
+	boolean isPossessive() {
+		return possessive;
+	}
+
+	/**
+	 * True if the element can match the empty string
+	 */
+	boolean isNullable() {
+		switch(kind) {
+		case CHARACTER:
+			return false;
+		case SEQUENCE:
+			return children.stream().allMatch(RegexNode::isNullable);
+		case ALTERNATION:
+			return children.stream().anyMatch(RegexNode::isNullable);
+		case REPEAT:
+			return min == 0 || children.get(0).isNullable();
+		case ATOMIC:
+			return children.get(0).isNullable();
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Characters the element can consume
+	 */
+	CharSet getCharacters() {
+		if(kind == Kind.CHARACTER) {
+			return characters;
+		}
+		CharSet all = CharSet.empty();
+		if(kind != Kind.LOOKAROUND) {
+			for(RegexNode child : children) {
+				all = all.union(child.getCharacters());
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Characters the element can start with
+	 */
+	CharSet getFirstCharacters() {
+		switch(kind) {
+		case CHARACTER:
+			return characters;
+		case SEQUENCE:
+			CharSet first = CharSet.empty();
+			for(RegexNode child : children) {
+				first = first.union(child.getFirstCharacters());
+				if(!child.isNullable()) {
+					break;
+				}
+			}
+			return first;
+		case ALTERNATION:
+			CharSet all = CharSet.empty();
+			for(RegexNode child : children) {
+				all = all.union(child.getFirstCharacters());
+			}
+			return all;
+		case REPEAT:
+		case ATOMIC:
+			return children.get(0).getFirstCharacters();
+		default:
+			return CharSet.empty();
+		}
+	}
+
+	/**
+	 * True for a quantifier which can repeat its content many times
+	 */
+	boolean isLargeRepeat() {
+		return kind == Kind.REPEAT && !possessive && (max == UNBOUNDED || max >= 10) && !children.get(0).getCharacters().isEmpty();
+	}
+}
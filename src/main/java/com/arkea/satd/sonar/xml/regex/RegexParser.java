@@ -0,0 +1,351 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.xml.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser of the java.util.regex syntax, into the tree analysed by Backtracking.
+ * Only what matters for backtracking is kept : inline flags, anchors and back references are empty elements,
+ * and the case insensitivity is ignored.
+ * @author Nicolas Tisserand
+ */
+final class RegexParser {
+
+	private final String regex;
+	private int position;
+
+	private RegexParser(String regex) {
+		this.regex = regex;
+	}
+
+	/**
+	 * Parses a regex, already checked by Pattern.compile
+	 * @param regex
+	 * @return
+	 * @throws IllegalArgumentException on the constructs the parser does not support, like class intersections
+	 */
+	static RegexNode parse(String regex) {
+		RegexParser parser = new RegexParser(regex);
+		RegexNode node = parser.alternation();
+		if(parser.position < regex.length()) {
+			throw parser.error("Unexpected )");
+		}
+		return node;
+	}
+
+	private RegexNode alternation() {
+		List<RegexNode> alternatives = new ArrayList<>();
+		alternatives.add(sequence());
+		while(accept('|')) {
+			alternatives.add(sequence());
+		}
+		return alternatives.size() == 1 ? alternatives.get(0) : RegexNode.group(RegexNode.Kind.ALTERNATION, alternatives);
+	}
+
+	private RegexNode sequence() {
+		List<RegexNode> items = new ArrayList<>();
+		while(position < regex.length() && peek() != '|' && peek() != ')') {
+			if(regex.startsWith("\\Q", position)) {
+				quoted(items);
+			} else {
+				items.add(quantifier(atom()));
+			}
+		}
+		return items.size() == 1 ? items.get(0) : RegexNode.group(RegexNode.Kind.SEQUENCE, items);
+	}
+
+	private void quoted(List<RegexNode> items) {
+		position += 2;
+		int end = regex.indexOf("\\E", position);
+		String literal = regex.substring(position, end < 0 ? regex.length() : end);
+		for(char c : literal.toCharArray()) {
+			items.add(RegexNode.character(CharSet.of(c)));
+		}
+		position = end < 0 ? regex.length() : end + 2;
+	}
+
+	private RegexNode atom() {
+		char c = next();
+		switch(c) {
+		case '(':
+			return group();
+		case '[':
+			return RegexNode.character(characterClass());
+		case '.':
+			return RegexNode.character(CharSet.DOT);
+		case '^':
+		case '$':
+			return RegexNode.empty();
+		case '\\':
+			return escape();
+		default:
+			return RegexNode.character(CharSet.of(c));
+		}
+	}
+
+	private RegexNode group() {
+		RegexNode.Kind kind = null;
+		if(accept('?')) {
+			if(accept(':')) {
+				kind = RegexNode.Kind.SEQUENCE;
+			} else if(accept('>')) {
+				kind = RegexNode.Kind.ATOMIC;
+			} else if(accept('=') || accept('!')) {
+				kind = RegexNode.Kind.LOOKAROUND;
+			} else if(regex.startsWith("<=", position) || regex.startsWith("<!", position)) {
+				position += 2;
+				kind = RegexNode.Kind.LOOKAROUND;
+			} else if(accept('<')) {
+				// Named group
+				position = regex.indexOf('>', position) + 1;
+				kind = RegexNode.Kind.SEQUENCE;
+			} else {
+				// Inline flags : (?i) or (?i:X)
+				while(position < regex.length() && Character.isLetter(peek()) || peek() == '-') {
+					position++;
+				}
+				if(accept(')')) {
+					return RegexNode.empty();
+				}
+				expect(':');
+				kind = RegexNode.Kind.SEQUENCE;
+			}
+		} else {
+			kind = RegexNode.Kind.SEQUENCE;
+		}
+		RegexNode content = alternation();
+		expect(')');
+		if(kind == RegexNode.Kind.SEQUENCE) {
+			return content;
+		}
+		List<RegexNode> children = new ArrayList<>();
+		children.add(content);
+		return RegexNode.group(kind, children);
+	}
+
+	private RegexNode quantifier(RegexNode atom) {
+		int min;
+		int max;
+		if(accept('*')) {
+			min = 0;
+			max = RegexNode.UNBOUNDED;
+		} else if(accept('+')) {
+			min = 1;
+			max = RegexNode.UNBOUNDED;
+		} else if(accept('?')) {
+			min = 0;
+			max = 1;
+		} else if(peek() == '{' && regex.substring(position).matches("\\{\\d+(,\\d*)?\\}.*")) {
+			int end = regex.indexOf('}', position);
+			String[] bounds = regex.substring(position + 1, end).split(",", -1);
+			min = Integer.parseInt(bounds[0]);
+			max = bounds.length == 1 ? min : bounds[1].isEmpty() ? RegexNode.UNBOUNDED : Integer.parseInt(bounds[1]);
+			position = end + 1;
+		} else {
+			return atom;
+		}
+		// Lazy quantifiers backtrack as well, possessive ones do not
+		boolean possessive = accept('+');
+		if(!possessive) {
+			accept('?');
+		}
+		return RegexNode.repeat(atom, min, max, possessive);
+	}
+
+	private RegexNode escape() {
+		char c = next();
+		switch(c) {
+		case 'b':
+		case 'B':
+		case 'A':
+		case 'G':
+		case 'z':
+		case 'Z':
+			return RegexNode.empty();
+		case 'k':
+			position = regex.indexOf('>', position) + 1;
+			return RegexNode.empty();
+		default:
+			if(c >= '1' && c <= '9') {
+				// Back reference
+				return RegexNode.empty();
+			}
+			return RegexNode.character(escapedCharacters(c));
+		}
+	}
+
+	private CharSet escapedCharacters(char c) {
+		switch(c) {
+		case 'd':
+			return CharSet.DIGITS;
+		case 'D':
+			return CharSet.DIGITS.complement();
+		case 'w':
+			return CharSet.WORDS;
+		case 'W':
+			return CharSet.WORDS.complement();
+		case 's':
+			return CharSet.SPACES;
+		case 'S':
+			return CharSet.SPACES.complement();
+		case 'p':
+		case 'P':
+			// Unicode classes : any character
+			if(accept('{')) {
+				position = regex.indexOf('}', position) + 1;
+			} else {
+				next();
+			}
+			return CharSet.ALL;
+		case 'X':
+		case 'R':
+		case 'h':
+		case 'H':
+		case 'v':
+		case 'V':
+			return CharSet.ALL;
+		default:
+			return CharSet.of(escapedCharacter(c));
+		}
+	}
+
+	/**
+	 * Character of a single character escape, like \t, \x41 or \.
+	 */
+	private char escapedCharacter(char c) {
+		switch(c) {
+		case 't':
+			return '\t';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 'f':
+			return '\f';
+		case 'e':
+			return '\u001B';
+		case 'a':
+			return '\u0007';
+		case 'c':
+			return (char) (next() & 0x1F);
+		case 'x':
+			return (char) Integer.parseInt(hexadecimal(), 16);
+		case 'u':
+			return (char) Integer.parseInt(next(4), 16);
+		case '0':
+			int start = position;
+			while(position < regex.length() && position - start < 3 && peek() >= '0' && peek() <= '7') {
+				position++;
+			}
+			return (char) Integer.parseInt(regex.substring(start, position), 8);
+		default:
+			return c;
+		}
+	}
+
+	private String hexadecimal() {
+		if(accept('{')) {
+			int end = regex.indexOf('}', position);
+			String hex = regex.substring(position, end);
+			position = end + 1;
+			return hex;
+		}
+		return next(2);
+	}
+
+	private CharSet characterClass() {
+		boolean negated = accept('^');
+		CharSet characters = CharSet.empty();
+		boolean first = true;
+		while(position < regex.length() && (first || peek() != ']')) {
+			first = false;
+			if(regex.startsWith("&&", position)) {
+				throw error("Class intersections are not supported");
+			}
+			CharSet item = null;
+			char c = next();
+			if(c == '[') {
+				item = characterClass();
+			} else if(c == '\\') {
+				char escaped = next();
+				if(isClassEscape(escaped)) {
+					item = escapedCharacters(escaped);
+				} else {
+					c = escapedCharacter(escaped);
+				}
+			}
+			if(item == null) {
+				item = CharSet.of(c);
+				// Range like a-z, but not a trailing -
+				if(peek() == '-' && position + 1 < regex.length() && regex.charAt(position + 1) != ']') {
+					position++;
+					char to = next();
+					if(to == '\\') {
+						to = escapedCharacter(next());
+					}
+					item = CharSet.range(c, to);
+				}
+			}
+			characters = characters.union(item);
+		}
+		expect(']');
+		return negated ? characters.complement() : characters;
+	}
+
+	private static boolean isClassEscape(char escaped) {
+		return "dDwWsSpPXRhHvV".indexOf(escaped) >= 0;
+	}
+
+	private char peek() {
+		return position < regex.length() ? regex.charAt(position) : 0;
+	}
+
+	private char next() {
+		if(position >= regex.length()) {
+			throw error("Unexpected end of regex");
+		}
+		return regex.charAt(position++);
+	}
+
+	private String next(int count) {
+		if(position + count > regex.length()) {
+			throw error("Unexpected end of regex");
+		}
+		String text = regex.substring(position, position + count);
+		position += count;
+		return text;
+	}
+
+	private boolean accept(char c) {
+		if(peek() == c && position < regex.length()) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(char c) {
+		if(!accept(c)) {
+			throw error("Missing " + c);
+		}
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + position + " of regex " + regex);
+	}
+}
@@ -35,14 +35,14 @@ public class ApigeePluginTest {
   @Test
   public void count_extensions_for_sonarqube_server_6_0() throws Exception {
     Plugin.Context context = setupContext(SonarRuntimeImpl.forSonarQube(Version.create(6, 0), SonarQubeSide.SERVER, SonarEdition.COMMUNITY));
-    assertThat(context.getExtensions()).as("Number of extensions for SQ 6.0").hasSize(3);
+    assertThat(context.getExtensions()).as("Number of extensions for SQ 6.0").hasSize(7);
   }
 
   @SuppressWarnings("unchecked")
   @Test
   public void count_extensions_for_sonarqube_server_6_2() throws Exception {
     Plugin.Context context = setupContext(SonarRuntimeImpl.forSonarQube(Version.create(6, 2), SonarQubeSide.SERVER, SonarEdition.COMMUNITY));
-    assertThat(context.getExtensions()).as("Number of extensions for SQ 6.2").hasSize(3);
+    assertThat(context.getExtensions()).as("Number of extensions for SQ 6.2").hasSize(7);
   }
   
   
@@ -21,15 +21,29 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputFile.Type;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
@@ -40,8 +54,11 @@ import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.plugins.xml.Xml;
 
+import com.arkea.satd.sonar.generator.BundleGenerator;
 import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
 import com.arkea.satd.sonar.xml.CheckRepository;
 
@@ -50,6 +67,9 @@ public class ApigeeXmlSensorTest extends AbstractXmlPluginTester {
 	@Rule
 	public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
+	@Rule
+	public LogTester logTester = new LogTester();
+
 	private DefaultFileSystem fs;
 	private ApigeeXmlSensor sensor;
 	private SensorContextTester context;
@@ -71,9 +91,6 @@ public class ApigeeXmlSensorTest extends AbstractXmlPluginTester {
 				.extracting("ruleKey")
 				.containsExactlyInAnyOrder(RuleKey.of(CheckRepository.REPOSITORY_KEY, "TooMuchProxyEndpointsCheck"),
 						RuleKey.of(CheckRepository.REPOSITORY_KEY, "TooMuchTargetEndpointsCheck"));
-
-		// Important : clean the context !!!!
-		ApigeeXmlSensor.setContext(null);
 	}
 
 	@Test
@@ -92,13 +109,79 @@ public class ApigeeXmlSensorTest extends AbstractXmlPluginTester {
 		}
 
 		sensor.execute(context);
-		assertThat(context.allIssues()).hasSize(59);
-		
-		// Important : clean the context !!!!
-		ApigeeXmlSensor.setContext(null);
+		assertThat(context.allIssues()).hasSize(64);
 	}	
 	
 
+	/**
+	 * The statistics of each rule are logged and written in the work directory : the issues of all rules sum up to the issues of the analysis,
+	 * and each rule only visits the files of the root elements it handles
+	 */
+	@Test
+	public void testSensorStatistics() throws Exception {
+
+		init();
+		context.settings().setProperty(ApigeeXmlSensor.STATISTICS_PROPERTY_KEY, true);
+
+		String basePath = "src/test/resources/MyAwfulProxy/apiproxy";
+		Collection<File> allFiles = FileUtils.listFiles(new File(basePath), TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		for(File f : allFiles) {
+			fs.add(createInputFile(f.getAbsolutePath()));
+		}
+
+		sensor.execute(context);
+
+		assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Apigee rules statistics :") && log.contains("DescriptionCheck"));
+
+		File statisticsFile = new File(fs.workDir(), "apigee-rules-statistics.json");
+		assertThat(statisticsFile).exists();
+		String json = FileUtils.readFileToString(statisticsFile, StandardCharsets.UTF_8);
+
+		Matcher matcher = Pattern.compile("\\{\"rule\": \"([^\"]+)\", \"timeMs\": \\d+, \"files\": (\\d+), \"issues\": (\\d+), \"exceptions\": (\\d+)\\}").matcher(json);
+		Map<String, Integer> filesByRule = new HashMap<>();
+		int issues = 0;
+		while(matcher.find()) {
+			filesByRule.put(matcher.group(1), Integer.parseInt(matcher.group(2)));
+			issues += Integer.parseInt(matcher.group(3));
+		}
+		assertThat(filesByRule).hasSize(CheckRepository.getCheckClasses().size());
+		assertThat(issues).isEqualTo(context.allIssues().size()).isEqualTo(64);
+
+		// Files are dispatched to the checks handling their root element : all files for DescriptionCheck, the ProxyEndpoint for RouteRulesToTargetCheck
+		int parsedFiles = filesByRule.get(CheckRepository.REPOSITORY_KEY + ":DescriptionCheck");
+		assertThat(parsedFiles).isGreaterThan(20);
+		assertThat(filesByRule.get(CheckRepository.REPOSITORY_KEY + ":RouteRulesToTargetCheck")).isEqualTo(1);
+		assertThat(filesByRule.get(CheckRepository.REPOSITORY_KEY + ":TooMuchProxyEndpointsCheck")).isEqualTo(1);
+		assertThat(filesByRule.get(CheckRepository.REPOSITORY_KEY + ":CacheCoherenceCheck")).isEqualTo(2);
+		assertThat(filesByRule.get(CheckRepository.REPOSITORY_KEY + ":RegexLookAroundCheck")).isZero();
+	}
+
+	/**
+	 * Each file must be parsed only once : the parse count is logged at the end of the first loop
+	 */
+	@Test
+	public void testSensorParsesEachFileOnce() throws Exception {
+
+		init();
+
+		String basePath = "src/test/resources/MyAwfulProxy/apiproxy";
+		Collection<File> allFiles = FileUtils.listFiles(new File(basePath), TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		for(File f : allFiles) {
+			fs.add(createInputFile(f.getAbsolutePath()));
+		}
+
+		sensor.execute(context);
+
+		List<String> parseLogs = logTester.logs(LoggerLevel.INFO).stream()
+				.filter(log -> log.contains("Apigee XML files parsed"))
+				.collect(Collectors.toList());
+		assertThat(parseLogs).hasSize(1);
+
+		Matcher matcher = Pattern.compile("(\\d+) Apigee XML files parsed \\((\\d+) parse failures\\)").matcher(parseLogs.get(0));
+		assertThat(matcher.matches()).isTrue();
+		assertThat(Integer.parseInt(matcher.group(1)) + Integer.parseInt(matcher.group(2))).isEqualTo(allFiles.size());
+	}
+
 	@Test
 	public void testSensorOnMyAwfulSharedFlow() throws Exception {
 
@@ -116,20 +199,229 @@ public class ApigeeXmlSensorTest extends AbstractXmlPluginTester {
 
 		sensor.execute(context);
 		assertThat(context.allIssues()).hasSize(19);
-
-		// Important : clean the context !!!!
-		ApigeeXmlSensor.setContext(null);
 	}	
 	
 	
-	@SuppressWarnings("rawtypes")
+	/**
+	 * The parallel mode must raise exactly the same issues as the sequential mode
+	 */
+	@Test
+	public void testSensorInParallel() throws Exception {
+
+		List<String> sequentialIssues = analyseAwfulBundles(1);
+		List<String> parallelIssues = analyseAwfulBundles(4);
+
+		assertThat(sequentialIssues).hasSize(64 + 19);
+		assertThat(parallelIssues).containsExactlyInAnyOrderElementsOf(sequentialIssues);
+	}
+
+	/**
+	 * With a few DOMs in memory, the evicted files are parsed again when they are searched : the issues are the same
+	 */
+	@Test
+	public void testSensorWithBoundedDocuments() throws Exception {
+
+		List<String> unboundedIssues = analyseAwfulBundles(1);
+		List<String> boundedIssues = analyseAwfulBundles(1, 2);
+		List<String> parallelBoundedIssues = analyseAwfulBundles(4, 2);
+
+		assertThat(boundedIssues).containsExactlyInAnyOrderElementsOf(unboundedIssues);
+		assertThat(parallelBoundedIssues).containsExactlyInAnyOrderElementsOf(unboundedIssues);
+		Matcher matcher = Pattern.compile("(\\d+) Apigee XML documents parsed during the checks, (\\d+) evicted \\(at most 2 in memory\\)")
+				.matcher(logTester.logs(LoggerLevel.INFO).stream().filter(log -> log.contains("evicted")).findFirst().orElse(""));
+		assertThat(matcher.matches()).isTrue();
+		assertThat(Integer.parseInt(matcher.group(2))).isPositive();
+	}
+
+	/**
+	 * Generated bundles : the issues of a bundle do not depend on the other bundles nor on the number of threads
+	 */
+	@Test
+	public void testSensorScaling() throws Exception {
+
+		BundleGenerator generator = new BundleGenerator().proxyEndpoints(2).targetEndpoints(2).resources(2, 1, 1);
+
+		List<String> smallIssues = analyseGeneratedBundles(generator.proxies(4).sharedFlows(1), 1);
+		// The shared flow has a descriptor, a SharedFlow and 2 policies
+		assertThat(logTester.logs(LoggerLevel.INFO)).contains((4 * generator.filesPerProxy() + 4) + " Apigee XML files parsed (0 parse failures)");
+
+		List<String> largeIssues = analyseGeneratedBundles(generator.proxies(16).sharedFlows(4), 1);
+		List<String> parallelLargeIssues = analyseGeneratedBundles(generator, 4);
+
+		assertThat(smallIssues).isNotEmpty();
+		assertThat(largeIssues).containsAll(smallIssues).hasSizeGreaterThan(3 * smallIssues.size());
+		assertThat(parallelLargeIssues).containsExactlyInAnyOrderElementsOf(largeIssues);
+	}
+
+	private List<String> analyseGeneratedBundles(BundleGenerator generator, int threads) throws Exception {
+
+		File baseDir = temporaryFolder.newFolder();
+		generator.generate(baseDir.toPath());
+		return analyseDirectory(baseDir, temporaryFolder.newFolder().toPath(), threads, false);
+	}
+
+	private List<String> analyseDirectory(File baseDir, Path workDir, int threads, boolean incremental) throws Exception {
+		return analyseDirectory(baseDir, workDir, threads, incremental, null);
+	}
+
+	/**
+	 * @param changedFiles files added or modified by the pull request, null for a branch analysis
+	 */
+	private List<String> analyseDirectory(File baseDir, Path workDir, int threads, boolean incremental, Collection<Path> changedFiles) throws Exception {
+
+		context = SensorContextTester.create(baseDir);
+		context.settings().setProperty(ApigeeXmlSensor.THREADS_PROPERTY_KEY, threads);
+		context.settings().setProperty(ApigeeXmlSensor.INCREMENTAL_PROPERTY_KEY, incremental);
+		if(changedFiles != null) {
+			context.settings().setProperty("sonar.pullrequest.key", "42");
+		}
+		fs = new DefaultFileSystem(baseDir);
+		fs.setWorkDir(workDir);
+
+		for(File file : FileUtils.listFiles(baseDir, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+			DefaultInputFile inputFile = TestInputFileBuilder.create("modulekey", baseDir, file)
+					.setType(Type.MAIN)
+					.setLanguage(Xml.KEY)
+					.setStatus(changedFiles != null && !changedFiles.contains(file.toPath()) ? InputFile.Status.SAME : InputFile.Status.CHANGED)
+					.setCharset(StandardCharsets.UTF_8).build();
+			inputFile.setMetadata(new FileMetadata().readMetadata(new FileInputStream(inputFile.file()),
+					StandardCharsets.UTF_8, inputFile.absolutePath()));
+			fs.add(inputFile);
+		}
+
+		new ApigeeXmlSensor(fs, createCheckFactory()).execute(context);
+		// Issues keyed by relative path, to compare the analyses of different directories
+		return context.allIssues().stream()
+				.map(issue -> issue.ruleKey() + " " + baseDir.toURI().relativize(((InputFile) issue.primaryLocation().inputComponent()).uri()).getPath() + " " + issue.primaryLocation().textRange())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Incremental analyses of a pull request : the files which are not changed by the pull request are not checked, unless they depend on a changed file.
+	 * The issues of the checked files are the same as in a full analysis, and do not depend on the previous analysis.
+	 */
+	@Test
+	public void testIncrementalAnalysis() throws Exception {
+
+		File baseDir = temporaryFolder.newFolder();
+		Path workDir = temporaryFolder.newFolder().toPath();
+		List<Path> files = new BundleGenerator().proxies(3).sharedFlows(1).generate(baseDir.toPath());
+		List<String> fullIssues = analyseDirectory(baseDir, temporaryFolder.newFolder().toPath(), 1, false);
+
+		// Branch analysis : all the files, without index
+		logTester.clear();
+		assertThat(analyseDirectory(baseDir, workDir, 1, true)).containsExactlyInAnyOrderElementsOf(fullIssues);
+		assertThat(logTester.logs(LoggerLevel.INFO)).contains("Incremental analysis : not a pull request analysis, all the files are analysed");
+		assertThat(workDir.resolve("apigee-bundle-index.bin")).doesNotExist();
+
+		// First analysis of a pull request : no index, all the files
+		assertThat(analyseDirectory(baseDir, workDir, 1, true, Collections.emptyList())).containsExactlyInAnyOrderElementsOf(fullIssues);
+		assertThat(workDir.resolve("apigee-bundle-index.bin")).exists();
+
+		// No change : no file to check
+		logTester.clear();
+		assertThat(analyseDirectory(baseDir, workDir, 1, true, Collections.emptyList())).isEmpty();
+		assertThat(logTester.logs(LoggerLevel.INFO)).contains("Incremental analysis : 0 new or changed files, 0 removed files, 0 files to check out of " + files.size());
+
+		// Remove the first step of an endpoint : the policy of the step becomes unattached
+		Path endpoint = baseDir.toPath().resolve("proxy-001/apiproxy/proxies/endpoint-0.xml");
+		String content = new String(Files.readAllBytes(endpoint), StandardCharsets.UTF_8);
+		Matcher step = Pattern.compile("\\s*<Step>\\s*<Name>([^<]+)</Name>\\s*</Step>").matcher(content);
+		assertThat(step.find()).isTrue();
+		Files.write(endpoint, content.replace(step.group(), "").getBytes(StandardCharsets.UTF_8));
+		String unattachedPolicy = "proxy-001/apiproxy/policies/" + step.group(1) + ".xml";
+
+		logTester.clear();
+		List<String> incrementalIssues = analyseDirectory(baseDir, workDir, 1, true, Collections.singletonList(endpoint));
+		fullIssues = analyseDirectory(baseDir, temporaryFolder.newFolder().toPath(), 1, false);
+
+		assertThat(logTester.logs(LoggerLevel.INFO)).anyMatch(log -> log.startsWith("Incremental analysis : 1 new or changed files, 0 removed files"));
+		assertThat(incrementalIssues)
+			.anyMatch(issue -> issue.startsWith(CheckRepository.REPOSITORY_KEY + ":UnattachedPolicyCheck " + unattachedPolicy))
+			.noneMatch(issue -> issue.contains("proxy-000/") || issue.contains("sharedflow-000/"));
+		assertThat(fullIssues).containsAll(incrementalIssues);
+		assertThat(incrementalIssues).containsAll(fullIssues.stream().filter(issue -> issue.contains(" proxy-001/apiproxy/proxies/endpoint-0.xml ")).collect(Collectors.toList()));
+
+		// Same pull request analysed again without new commit : the changes are given by the status of the files, not by the index
+		assertThat(analyseDirectory(baseDir, workDir, 1, true, Collections.singletonList(endpoint))).containsExactlyInAnyOrderElementsOf(incrementalIssues);
+	}
+
+	/**
+	 * Several modules analysed at the same time in the same JVM must not share their context nor their files
+	 */
+	@Test
+	public void testConcurrentAnalyses() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for(int i = 0; i < 5; i++) {
+				Path proxyWorkDir = temporaryFolder.newFolder().toPath();
+				Path sharedFlowWorkDir = temporaryFolder.newFolder().toPath();
+				Future<Integer> proxyIssues = executor.submit(() -> analyseModule("src/test/resources/MyAwfulProxy/apiproxy", proxyWorkDir));
+				Future<Integer> sharedFlowIssues = executor.submit(() -> analyseModule("src/test/resources/MyAwfulSharedFlow/sharedflowbundle", sharedFlowWorkDir));
+
+				assertThat(proxyIssues.get()).isEqualTo(64);
+				assertThat(sharedFlowIssues.get()).isEqualTo(19);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Analyses a module with its own sensor and context
+	 * @return the number of issues
+	 */
+	private int analyseModule(String basePath, Path workDir) throws Exception {
+
+		File moduleBaseDir = new File("src/test/resources");
+		SensorContextTester moduleContext = SensorContextTester.create(moduleBaseDir);
+		DefaultFileSystem moduleFs = new DefaultFileSystem(moduleBaseDir);
+		moduleFs.setWorkDir(workDir);
+
+		for(File f : FileUtils.listFiles(new File(basePath), TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+			moduleFs.add(createInputFile(f.getAbsolutePath()));
+		}
+
+		new ApigeeXmlSensor(moduleFs, createCheckFactory()).execute(moduleContext);
+		return moduleContext.allIssues().size();
+	}
+
+	private List<String> analyseAwfulBundles(int threads) throws Exception {
+		return analyseAwfulBundles(threads, 0);
+	}
+
+	private List<String> analyseAwfulBundles(int threads, int maxDocuments) throws Exception {
+
+		init();
+		context.settings().setProperty(ApigeeXmlSensor.THREADS_PROPERTY_KEY, threads);
+		context.settings().setProperty(ApigeeXmlSensor.MAX_DOCUMENTS_PROPERTY_KEY, maxDocuments);
+
+		for(String basePath : Arrays.asList("src/test/resources/MyAwfulProxy/apiproxy", "src/test/resources/MyAwfulSharedFlow/sharedflowbundle")) {
+			for(File f : FileUtils.listFiles(new File(basePath), TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+				fs.add(createInputFile(f.getAbsolutePath()));
+			}
+		}
+
+		sensor.execute(context);
+		return context.allIssues().stream()
+				.map(issue -> issue.ruleKey() + " " + issue.primaryLocation().inputComponent().key() + " " + issue.primaryLocation().textRange())
+				.collect(Collectors.toList());
+	}
+
 	private void init() throws Exception {
 
 		File moduleBaseDir = new File("src/test/resources");
 		context = SensorContextTester.create(moduleBaseDir);
 
 		fs = new DefaultFileSystem(moduleBaseDir);
-		fs.setWorkDir(temporaryFolder.newFolder("temp").toPath());
+		fs.setWorkDir(temporaryFolder.newFolder().toPath());
+
+		sensor = new ApigeeXmlSensor(fs, createCheckFactory());
+	}
+
+	@SuppressWarnings("rawtypes")
+	private CheckFactory createCheckFactory() {
 	
 		// Activate all rules of the CheckRepository
 		ActiveRulesBuilder activeRuleBuilder = new ActiveRulesBuilder();
@@ -141,9 +433,7 @@ public class ApigeeXmlSensorTest extends AbstractXmlPluginTester {
 					.build()
 					);
 		}
-		CheckFactory checkFactory = new CheckFactory(activeRuleBuilder.build());
-
-		sensor = new ApigeeXmlSensor(fs, checkFactory);
+		return new CheckFactory(activeRuleBuilder.build());
 	}
 
 	private DefaultInputFile createInputFile(String name) throws FileNotFoundException {
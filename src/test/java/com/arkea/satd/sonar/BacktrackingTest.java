@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.arkea.satd.sonar.xml.regex.Backtracking;
+import com.arkea.satd.sonar.xml.regex.Backtracking.Complexity;
+
+public class BacktrackingTest {
+
+	@Test
+	public void test_linear() {
+		assertThat(complexityOf("^[a-z0-9._%+-]+@[a-z0-9.-]+\\.[a-z]{2,}$")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("(GET|POST|PUT)+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("([a-z]+,)+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("(a+b)+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf(".*foo.*")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("\\s*\\w*")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("<\\s*script\\b[^>]*>[^<]+<\\s*/\\s*script\\s*>")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("[\\s]*((delete)|(exec)|(drop\\s*table)|(insert)|(shutdown)|(update)|(\\bor\\b))")).isEqualTo(Complexity.LINEAR);
+		assertThat(Backtracking.of("[a-z]").toString()).isEqualTo("O(n)");
+	}
+
+	@Test
+	public void test_exponential() {
+		assertThat(complexityOf("(a+)+")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("(a*)*b")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("(.*a){12}")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("^(\\w+\\s?)*$")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("(\\d+|\\w+)+x")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("(?:a+|b)+")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("(a|aa)+")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("(\\w|\\d)*$")).isEqualTo(Complexity.EXPONENTIAL);
+		assertThat(complexityOf("([a-zA-Z0-9])(([\\-.]|[_]+)?([a-zA-Z0-9]+))*(@)")).isEqualTo(Complexity.EXPONENTIAL);
+
+		Backtracking backtracking = Backtracking.of("(x+x+)+y");
+		assertThat(backtracking.toString()).isEqualTo("O(2^n)");
+		assertThat(backtracking.getCause()).isEqualTo("nested quantifiers can match the same characters");
+	}
+
+	@Test
+	public void test_polynomial() {
+		assertThat(complexityOf("\\d+\\.?\\d+")).isEqualTo(Complexity.POLYNOMIAL);
+		assertThat(complexityOf(".*.*=.*")).isEqualTo(Complexity.POLYNOMIAL);
+
+		Backtracking backtracking = Backtracking.of("a*[ab]*b*c");
+		assertThat(backtracking.getDegree()).isEqualTo(3);
+		assertThat(backtracking.toString()).isEqualTo("O(n^3)");
+	}
+
+	@Test
+	public void test_no_backtracking() {
+		// Possessive quantifiers and atomic groups give nothing back
+		assertThat(complexityOf("(a++)+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("(?>a+)+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("\\d++\\d+")).isEqualTo(Complexity.LINEAR);
+		// Small bounds
+		assertThat(complexityOf("(a+){2}")).isEqualTo(Complexity.LINEAR);
+	}
+
+	@Test
+	public void test_syntax() {
+		assertThat(complexityOf("(?i)(?<word>\\w+)\\k<word>")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("\\Q(a+)+\\E")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("(?=a)(?<!b)[\\]\\[x-z]\\x41\\u0041\\t\\p{L}+\\.")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("[\\u00e0-\\u00ff]+[a-z]+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("[^a]+a+")).isEqualTo(Complexity.LINEAR);
+		assertThat(complexityOf("[^a]+b+")).isEqualTo(Complexity.POLYNOMIAL);
+		assertThat(complexityOf("a{1,3}?(b|c)")).isEqualTo(Complexity.LINEAR);
+
+		// Invalid or not analysed
+		assertThat(Backtracking.of("(a+")).isNull();
+		assertThat(Backtracking.of("[a-z&&[^e]]+")).isNull();
+	}
+
+	private static Complexity complexityOf(String regex) {
+		return Backtracking.of(regex).getComplexity();
+	}
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Node;
+
+import com.arkea.satd.sonar.checks.AbstractCheckTester;
+import com.arkea.satd.sonar.generator.BundleGenerator;
+import com.arkea.satd.sonar.xml.Bundle;
+import com.arkea.satd.sonar.xml.FactsScanner;
+import com.arkea.satd.sonar.xml.FileFacts;
+
+public class BundleRecorderTest extends AbstractCheckTester {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private XmlFile proxyEndpointXml;
+	private XmlFile targetEndpointXml;
+	private XmlFile xslPolicyXml;
+	private XmlFile quotaPolicyXml;
+
+	@Before
+	public void init() throws Exception {
+
+		bundleRecorder.clear();
+
+		proxyEndpointXml = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<ProxyEndpoint name=\"default\">\r\n" +
+				"    <PreFlow name=\"PreFlow\">\r\n" +
+				"        <Request>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>QuotaPolicy</Name>\r\n" +
+				"            </Step>\r\n" +
+				"        </Request>\r\n" +
+				"        <Response>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>QuotaPolicy</Name>\r\n" +
+				"            </Step>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>XSL-Transform</Name>\r\n" +
+				"            </Step>\r\n" +
+				"        </Response>\r\n" +
+				"    </PreFlow>\r\n" +
+				"    <RouteRule name=\"default\">\r\n" +
+				"        <TargetEndpoint>backend</TargetEndpoint>\r\n" +
+				"    </RouteRule>\r\n" +
+				"</ProxyEndpoint>");
+		bundleRecorder.storeFile(proxyEndpointXml);
+
+		targetEndpointXml = createTempFile("targetEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<TargetEndpoint name=\"backend\">\r\n" +
+				"    <PreFlow name=\"PreFlow\">\r\n" +
+				"        <Request>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>QuotaPolicy</Name>\r\n" +
+				"            </Step>\r\n" +
+				"        </Request>\r\n" +
+				"    </PreFlow>\r\n" +
+				"</TargetEndpoint>");
+		bundleRecorder.storeFile(targetEndpointXml);
+
+		xslPolicyXml = createTempFile("xslPolicy.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<XSL name=\"XSL-Transform\">\r\n" +
+				"    <ResourceURL>xsl://transform.xsl</ResourceURL>\r\n" +
+				"</XSL>");
+		bundleRecorder.storeFile(xslPolicyXml);
+
+		quotaPolicyXml = createTempFile("quotaPolicy.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<Quota name=\"QuotaPolicy\">\r\n" +
+				"    <Distributed>true</Distributed>\r\n" +
+				"</Quota>");
+		bundleRecorder.storeFile(quotaPolicyXml);
+	}
+
+	@Test
+	public void test_search_policies() throws Exception {
+
+		assertThat(bundleRecorder.searchPoliciesByName(proxyEndpointXml.getInputFile(), "QuotaPolicy")).isSameAs(quotaPolicyXml);
+		assertThat(bundleRecorder.searchPoliciesByName(proxyEndpointXml.getInputFile(), "XSL-Transform")).isSameAs(xslPolicyXml);
+		assertThat(bundleRecorder.searchPoliciesByName(proxyEndpointXml.getInputFile(), "default")).isNull();
+
+		assertThat(bundleRecorder.searchPoliciesByType(proxyEndpointXml.getInputFile(), "Quota")).containsExactly(quotaPolicyXml);
+		assertThat(bundleRecorder.searchPoliciesByType(proxyEndpointXml.getInputFile(), "ProxyEndpoint")).isEmpty();
+
+		assertThat(bundleRecorder.searchPoliciesByResourceURL(proxyEndpointXml.getInputFile(), "xsl://transform.xsl")).containsExactly(xslPolicyXml);
+		assertThat(bundleRecorder.searchPoliciesByResourceURL(proxyEndpointXml.getInputFile(), "xsl://other.xsl")).isEmpty();
+	}
+
+	@Test
+	public void test_search_steps() throws Exception {
+
+		assertThat(bundleRecorder.searchByStepName(proxyEndpointXml.getInputFile(), "QuotaPolicy")).containsExactly(proxyEndpointXml, targetEndpointXml);
+		assertThat(bundleRecorder.searchByStepName(proxyEndpointXml.getInputFile(), "XSL-Transform")).containsExactly(proxyEndpointXml);
+		assertThat(bundleRecorder.searchByStepName(proxyEndpointXml.getInputFile(), "Unknown")).isEmpty();
+
+		Map<Node, XmlFile> steps = bundleRecorder.searchStepsByName(proxyEndpointXml.getInputFile(), "QuotaPolicy");
+		assertThat(steps).hasSize(3);
+		assertThat(steps.keySet()).allMatch(step -> "Step".equals(step.getNodeName()));
+		assertThat(steps.values()).containsExactly(proxyEndpointXml, proxyEndpointXml, targetEndpointXml);
+	}
+
+	@Test
+	public void test_search_steps_with_padded_name() throws Exception {
+
+		String content = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<SharedFlow name=\"default\">\r\n" +
+				"    <Step>\r\n" +
+				"        <Name>\r\n" +
+				"            XSL-Transform\r\n" +
+				"        </Name>\r\n" +
+				"    </Step>\r\n" +
+				"</SharedFlow>";
+		XmlFile sharedFlowXml = createTempFile("sharedFlow.xml", content);
+		bundleRecorder.storeFile(sharedFlowXml);
+
+		// The step names are trimmed, by the scanner and in the DOM, like the names of the policies
+		InputFile inputFile = TestInputFileBuilder.create("key", "file.xml").setContents(content).setCharset(StandardCharsets.UTF_8).build();
+		assertThat(FactsScanner.scan(inputFile).getStepNames()).containsExactly("XSL-Transform");
+		assertThat(FileFacts.of(sharedFlowXml.getDocument()).getStepNames()).containsExactly("XSL-Transform");
+
+		assertThat(bundleRecorder.searchByStepName(proxyEndpointXml.getInputFile(), "XSL-Transform")).containsExactly(proxyEndpointXml, sharedFlowXml);
+		assertThat(bundleRecorder.searchStepsByName(proxyEndpointXml.getInputFile(), "XSL-Transform").values()).containsExactly(proxyEndpointXml, sharedFlowXml);
+	}
+
+	@Test
+	public void test_search_targets() throws Exception {
+
+		assertThat(bundleRecorder.searchTargetEndpointByName(proxyEndpointXml.getInputFile(), "backend")).isSameAs(targetEndpointXml);
+		assertThat(bundleRecorder.searchTargetEndpointByName(proxyEndpointXml.getInputFile(), "default")).isNull();
+	}
+
+	@Test
+	public void test_store_same_file_twice() throws Exception {
+
+		XmlFile newQuotaPolicyXml = createTempFile("quotaPolicy.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<Quota name=\"RenamedQuotaPolicy\">\r\n" +
+				"    <Distributed>true</Distributed>\r\n" +
+				"</Quota>");
+		bundleRecorder.storeFile(newQuotaPolicyXml);
+
+		assertThat(bundleRecorder.searchPoliciesByName(proxyEndpointXml.getInputFile(), "QuotaPolicy")).isNull();
+		assertThat(bundleRecorder.searchPoliciesByName(proxyEndpointXml.getInputFile(), "RenamedQuotaPolicy")).isSameAs(newQuotaPolicyXml);
+		assertThat(bundleRecorder.searchPoliciesByType(proxyEndpointXml.getInputFile(), "Quota")).containsExactly(newQuotaPolicyXml);
+	}
+
+	@Test
+	public void test_bundles_are_isolated() throws Exception {
+
+		XmlFile proxyAPolicyXml = createTempFile("proxyA/apiproxy/policies/Quota.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<Quota name=\"Quota\">\r\n" +
+				"    <Distributed>true</Distributed>\r\n" +
+				"</Quota>");
+		bundleRecorder.storeFile(proxyAPolicyXml);
+
+		XmlFile proxyBEndpointXml = createTempFile("proxyB/apiproxy/proxies/default.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<ProxyEndpoint name=\"default\">\r\n" +
+				"    <PreFlow name=\"PreFlow\">\r\n" +
+				"        <Request>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>Quota</Name>\r\n" +
+				"            </Step>\r\n" +
+				"        </Request>\r\n" +
+				"    </PreFlow>\r\n" +
+				"</ProxyEndpoint>");
+		bundleRecorder.storeFile(proxyBEndpointXml);
+
+		XmlFile sharedFlowPolicyXml = createTempFile("sharedFlowC/sharedflowbundle/policies/Quota.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<Quota name=\"Quota\">\r\n" +
+				"    <Distributed>true</Distributed>\r\n" +
+				"</Quota>");
+		bundleRecorder.storeFile(sharedFlowPolicyXml);
+
+		assertThat(bundleRecorder.getBundle(proxyAPolicyXml.getInputFile()).getRootPath()).endsWith("proxyA/apiproxy");
+		assertThat(bundleRecorder.getBundle(proxyBEndpointXml.getInputFile()).getRootPath()).endsWith("proxyB/apiproxy");
+		assertThat(bundleRecorder.getBundle(sharedFlowPolicyXml.getInputFile()).getRootPath()).endsWith("sharedFlowC/sharedflowbundle");
+		assertThat(bundleRecorder.getBundle(quotaPolicyXml.getInputFile()).getRootPath()).isEmpty();
+
+		// The policy of proxyA is not attached, the step of proxyB refers to an unknown policy
+		assertThat(bundleRecorder.searchByStepName(proxyAPolicyXml.getInputFile(), "Quota")).isEmpty();
+		assertThat(bundleRecorder.searchPoliciesByName(proxyBEndpointXml.getInputFile(), "Quota")).isNull();
+		assertThat(bundleRecorder.searchPoliciesByType(sharedFlowPolicyXml.getInputFile(), "Quota")).containsExactly(sharedFlowPolicyXml);
+	}
+
+	/**
+	 * Storing the files from several threads, in any order, must record the same content as a serial storage
+	 */
+	@Test
+	public void test_parallel_storage() throws Exception {
+
+		File baseDir = new File("src/test/resources");
+		List<File> fixtures = new ArrayList<>(FileUtils.listFiles(new File(baseDir, "MyAwfulProxy"), TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE));
+
+		bundleRecorder.clear();
+		for(File fixture : fixtures) {
+			storeFixture(baseDir, fixture);
+		}
+		String serialContent = bundleRecorder.getBundles().toString();
+
+		bundleRecorder.clear();
+		Collections.reverse(fixtures);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+			for(File fixture : fixtures) {
+				tasks.add(executor.submit(() -> {
+					storeFixture(baseDir, fixture);
+					return null;
+				}));
+			}
+			for(Future<?> task : tasks) {
+				task.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		String parallelContent = bundleRecorder.getBundles().toString();
+
+		assertThat(bundleRecorder.getBundles()).hasSize(1);
+		assertThat(serialContent).doesNotContain("policiesByName={}", "stepsByName={}");
+		assertThat(parallelContent).isEqualTo(serialContent);
+	}
+
+	/**
+	 * Generated bundles : each bundle records its own files, and each Step refers to a policy of its bundle
+	 */
+	@Test
+	public void test_generated_bundles() throws Exception {
+
+		Path baseDir = temporaryFolder.newFolder().toPath();
+		BundleGenerator generator = new BundleGenerator().proxies(20).sharedFlows(5).flowsPerEndpoint(5).stepsPerFlow(4);
+		List<Path> files = generator.generate(baseDir);
+
+		bundleRecorder.clear();
+		Map<String, XmlFile> xmlFiles = new HashMap<>();
+		for(Path file : files) {
+			xmlFiles.put(baseDir.relativize(file).toString().replace('\\', '/'), storeFixture(baseDir.toFile(), file.toFile()));
+		}
+
+		List<Bundle> bundles = bundleRecorder.getBundles();
+		assertThat(bundles).hasSize(20 + 5);
+		assertThat(bundles.get(0).getRootPath()).endsWith("proxy-000/apiproxy");
+		assertThat(bundles.get(20).getRootPath()).endsWith("sharedflow-000/sharedflowbundle");
+
+		XmlFile endpoint = xmlFiles.get("proxy-019/apiproxy/proxies/endpoint-0.xml");
+		assertThat(bundleRecorder.searchTargetEndpointByName(endpoint.getInputFile(), "target-0")).isSameAs(xmlFiles.get("proxy-019/apiproxy/targets/target-0.xml"));
+		int policiesCount = 0;
+		for(Map.Entry<String, XmlFile> entry : xmlFiles.entrySet()) {
+			if(entry.getKey().startsWith("proxy-019/apiproxy/policies/")) {
+				String policyName = entry.getValue().getDocument().getDocumentElement().getAttribute("name");
+				assertThat(bundleRecorder.searchPoliciesByName(endpoint.getInputFile(), policyName)).isSameAs(entry.getValue());
+				assertThat(bundleRecorder.searchStepsByName(endpoint.getInputFile(), policyName)).hasSize(1);
+				policiesCount++;
+			}
+		}
+		assertThat(policiesCount).isEqualTo(generator.policiesPerProxy());
+	}
+
+	/**
+	 * The facts streamed in the first loop of the sensor must be the facts read from the DOM
+	 */
+	@Test
+	public void test_scanned_facts() throws Exception {
+
+		File baseDir = new File("src/test/resources");
+		List<String> contents = new ArrayList<>();
+		for(File fixture : FileUtils.listFiles(baseDir, new String[] { "xml", "xsl", "wsdl", "xsd" }, true)) {
+			contents.add(FileUtils.readFileToString(fixture, StandardCharsets.UTF_8));
+		}
+		// Text nodes split by comments and CDATA sections, nested Steps, prefixed names, malformed file
+		contents.add("<LookupCache name=\"Lookup\"><CacheKey><Prefix>a<!-- comment -->b</Prefix><KeyFragment ref=\"request.uri\"/>"
+				+ "<KeyFragment>k<![CDATA[<c>]]>d<e>f</e>g</KeyFragment></CacheKey><CacheKey><Prefix>other</Prefix></CacheKey></LookupCache>");
+		contents.add("<SharedFlow name=\"default\"><Step><Name>A<!-- comment --><![CDATA[B]]></Name><Step><Name>C</Name></Step></Step><Name>D</Name></SharedFlow>");
+		contents.add("<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" version=\"1.0\"><ResourceURL>x<b>y</b></ResourceURL></xsl:stylesheet>");
+		contents.add("<Quota name=\"unclosed\">");
+
+		int parsedFiles = 0;
+		for(String content : contents) {
+			InputFile inputFile = TestInputFileBuilder.create("key", "file.xml").setContents(content).setCharset(StandardCharsets.UTF_8).build();
+			XmlFile xmlFile = createTempFile("file.xml", content);
+			if(xmlFile == null) {
+				assertThatThrownBy(() -> FactsScanner.scan(inputFile)).isInstanceOf(XMLStreamException.class);
+			} else {
+				assertThat(FactsScanner.scan(inputFile)).isEqualTo(FileFacts.of(xmlFile.getDocument()));
+				parsedFiles++;
+			}
+		}
+		assertThat(parsedFiles).isEqualTo(contents.size() - 1);
+
+		FileFacts facts = FactsScanner.scan(TestInputFileBuilder.create("key", "file.xml").setContents(contents.get(contents.size() - 4)).build());
+		assertThat(facts.getCacheKey()).isEqualTo("a--k<c>d");
+	}
+
+	private XmlFile storeFixture(File baseDir, File fixture) throws IOException {
+		String relativePath = baseDir.toURI().relativize(fixture.toURI()).getPath();
+		XmlFile xmlFile = createTempFile(relativePath, FileUtils.readFileToString(fixture, StandardCharsets.UTF_8));
+		if(xmlFile != null) {
+			bundleRecorder.storeFile(xmlFile);
+		}
+		return xmlFile;
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.xpath.XPathConstants;
+
+import org.junit.Test;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+import org.w3c.dom.Node;
+
+import com.arkea.satd.sonar.checks.AbstractCheckTester;
+import com.arkea.satd.sonar.xml.CompiledXPath;
+
+public class CompiledXPathTest extends AbstractCheckTester {
+
+	@Test
+	public void test_registry() throws Exception {
+
+		assertThat(CompiledXPath.compile("/Quota/@name")).isSameAs(CompiledXPath.compile("/Quota/@name"));
+		assertThat(CompiledXPath.compile("/Quota/@name")).isNotSameAs(CompiledXPath.compile("/Quota/Distributed"));
+
+		// Not added to the registry
+		assertThat(CompiledXPath.compileUnshared("/Quota/@name")).isNotSameAs(CompiledXPath.compile("/Quota/@name"));
+		assertThat(CompiledXPath.compileUnshared("/Quota/@name")).isNotSameAs(CompiledXPath.compileUnshared("/Quota/@name"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_invalid_expression() throws Exception {
+
+		CompiledXPath.compile("/Quota/[");
+	}
+
+	@Test
+	public void test_evaluate_from_several_threads() throws Exception {
+
+		XmlFile quotaPolicyXml = createTempFile("quotaPolicy.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<Quota name=\"QuotaPolicy\">\r\n" +
+				"    <Distributed>true</Distributed>\r\n" +
+				"</Quota>");
+		CompiledXPath name = CompiledXPath.compile("/Quota/@name");
+		CompiledXPath distributed = CompiledXPath.compile("/Quota/Distributed");
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for(int i = 0; i < 100; i++) {
+				// Each thread has its own DOM, as in the sensor
+				XmlFile xmlFile = createTempFile("quotaPolicy" + i + ".xml", "<Quota name=\"Quota" + i + "\"><Distributed>true</Distributed></Quota>");
+				results.add(executor.submit(() -> (String) name.evaluate(xmlFile.getDocument(), XPathConstants.STRING)));
+			}
+			for(int i = 0; i < 100; i++) {
+				assertThat(results.get(i).get()).isEqualTo("Quota" + i);
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(name.evaluate(quotaPolicyXml.getDocument(), XPathConstants.STRING)).isEqualTo("QuotaPolicy");
+		assertThat(((Node) distributed.evaluate(quotaPolicyXml.getDocument(), XPathConstants.NODE)).getTextContent()).isEqualTo("true");
+	}
+
+}
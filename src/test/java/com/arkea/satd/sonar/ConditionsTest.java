@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.arkea.satd.sonar.xml.condition.Comparison;
+import com.arkea.satd.sonar.xml.condition.Conditions;
+import com.arkea.satd.sonar.xml.condition.Expression;
+import com.arkea.satd.sonar.xml.condition.Literal;
+import com.arkea.satd.sonar.xml.condition.Logical;
+import com.arkea.satd.sonar.xml.condition.Not;
+import com.arkea.satd.sonar.xml.condition.Operator;
+import com.arkea.satd.sonar.xml.condition.Unparsed;
+import com.arkea.satd.sonar.xml.condition.Variable;
+
+public class ConditionsTest {
+
+	@Test
+	public void test_comparison() {
+		Conditions conditions = new Conditions();
+
+		Expression expression = conditions.parse("request.verb = \"GET\"");
+		assertThat(expression).isInstanceOf(Comparison.class);
+		Comparison comparison = (Comparison) expression;
+		assertThat(comparison.getOperator()).isEqualTo(Operator.EQUALS);
+		assertThat(((Variable) comparison.getLeft()).getName()).isEqualTo("request.verb");
+		assertThat(((Literal) comparison.getRight()).getValue()).isEqualTo("GET");
+		assertThat(expression.isAlwaysTrue()).isFalse();
+		assertThat(expression.isAlwaysFalse()).isFalse();
+	}
+
+	@Test
+	public void test_operators() {
+		Conditions conditions = new Conditions();
+
+		assertThat(operatorOf(conditions, "proxy.pathsuffix ~~ \"/a/.*\"")).isEqualTo(Operator.JAVA_REGEX);
+		assertThat(operatorOf(conditions, "proxy.pathsuffix JavaRegex \"/a/.*\"")).isEqualTo(Operator.JAVA_REGEX);
+		assertThat(operatorOf(conditions, "proxy.pathsuffix MatchesPath \"/a/**\"")).isEqualTo(Operator.MATCHES_PATH);
+		assertThat(operatorOf(conditions, "proxy.pathsuffix ~/ \"/a/*\"")).isEqualTo(Operator.MATCHES_PATH);
+		assertThat(operatorOf(conditions, "proxy.pathsuffix ~ \"/a*\"")).isEqualTo(Operator.MATCHES);
+		assertThat(operatorOf(conditions, "proxy.pathsuffix like \"/a*\"")).isEqualTo(Operator.MATCHES);
+		assertThat(operatorOf(conditions, "proxy.pathsuffix =| \"/a\"")).isEqualTo(Operator.STARTS_WITH);
+		assertThat(operatorOf(conditions, "request.verb!=\"GET\"")).isEqualTo(Operator.NOT_EQUALS);
+		assertThat(operatorOf(conditions, "request.verb := \"get\"")).isEqualTo(Operator.EQUALS_CASE_INSENSITIVE);
+		assertThat(operatorOf(conditions, "response.status.code >= 400")).isEqualTo(Operator.GREATER_THAN_OR_EQUALS);
+		assertThat(operatorOf(conditions, "response.status.code LesserThan 400")).isEqualTo(Operator.LESSER_THAN);
+	}
+
+	private static Operator operatorOf(Conditions conditions, String condition) {
+		return ((Comparison) conditions.parse(condition)).getOperator();
+	}
+
+	@Test
+	public void test_logical() {
+		Conditions conditions = new Conditions();
+
+		Expression expression = conditions.parse("(proxy.pathsuffix MatchesPath \"/a\") and (request.verb = \"GET\" OR request.verb = \"HEAD\") && !(request.header.x-debug = \"true\")");
+		assertThat(expression).isInstanceOf(Logical.class);
+		assertThat(((Logical) expression).getOperator()).isEqualTo(Logical.Operator.AND);
+		assertThat(((Logical) expression).getRight()).isInstanceOf(Not.class);
+		assertThat(expression.getVariables()).containsExactly("proxy.pathsuffix", "request.verb", "request.header.x-debug");
+		assertThat(expression.getComparisons()).hasSize(4);
+
+		// and has precedence over or
+		Expression precedence = conditions.parse("a = 1 or b = 2 and c = 3");
+		assertThat(((Logical) precedence).getOperator()).isEqualTo(Logical.Operator.OR);
+		assertThat(precedence).hasToString("(a = 1 or (b = 2 and c = 3))");
+	}
+
+	@Test
+	public void test_always_true() {
+		Conditions conditions = new Conditions();
+
+		assertThat(conditions.isUnconditional(null)).isTrue();
+		assertThat(conditions.isUnconditional("")).isTrue();
+		assertThat(conditions.isUnconditional("  ")).isTrue();
+		assertThat(conditions.isUnconditional("true")).isTrue();
+		assertThat(conditions.isUnconditional("TRUE")).isTrue();
+		assertThat(conditions.isUnconditional("(true)")).isTrue();
+		assertThat(conditions.isUnconditional("true or request.verb = \"GET\"")).isTrue();
+		assertThat(conditions.isUnconditional("not false")).isTrue();
+		assertThat(conditions.isUnconditional("\"true\"")).isFalse();
+		assertThat(conditions.isUnconditional("true and request.verb = \"GET\"")).isFalse();
+		assertThat(conditions.isUnconditional("request.verb = \"GET\"")).isFalse();
+
+		assertThat(conditions.parse("false and request.verb = \"GET\"").isAlwaysFalse()).isTrue();
+		assertThat(conditions.parse("not (true)").isAlwaysFalse()).isTrue();
+	}
+
+	@Test
+	public void test_strings() {
+		Conditions conditions = new Conditions();
+
+		Comparison comparison = (Comparison) conditions.parse("request.header.x = 'a \\'b\\' and (c)'");
+		assertThat(((Literal) comparison.getRight()).getValue()).isEqualTo("a 'b' and (c)");
+		assertThat(((Literal) comparison.getRight()).isQuoted()).isTrue();
+		assertThat(comparison.getVariables()).containsExactly("request.header.x");
+	}
+
+	@Test
+	public void test_unparsed() {
+		Conditions conditions = new Conditions();
+
+		assertThat(conditions.parse("request.verb = ")).isInstanceOf(Unparsed.class);
+		assertThat(conditions.parse("(request.verb = \"GET\"")).isInstanceOf(Unparsed.class);
+		assertThat(conditions.parse("request.verb = \"GET")).isInstanceOf(Unparsed.class);
+		assertThat(conditions.parse("request.verb = \"GET\")")).isInstanceOf(Unparsed.class);
+		assertThat(conditions.parse("a & b")).isInstanceOf(Unparsed.class);
+
+		Expression unparsed = conditions.parse("request.verb = and");
+		assertThat(((Unparsed) unparsed).getText()).isEqualTo("request.verb = and");
+		assertThat(unparsed.isAlwaysTrue()).isFalse();
+		assertThat(unparsed.getVariables()).isEmpty();
+	}
+
+	@Test
+	public void test_cache() {
+		Conditions conditions = new Conditions();
+
+		Expression expression = conditions.parse("request.verb = \"GET\"");
+		assertThat(conditions.parse("request.verb = \"GET\"")).isSameAs(expression);
+		assertThat(conditions.parse("request.verb = \"POST\"")).isNotSameAs(expression);
+		assertThat(conditions.size()).isEqualTo(2);
+
+		conditions.clear();
+		assertThat(conditions.size()).isZero();
+		assertThat(conditions.parse("request.verb = \"GET\"")).isNotSameAs(expression);
+	}
+}
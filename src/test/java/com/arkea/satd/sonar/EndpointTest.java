@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.sonarsource.analyzer.commons.xml.XmlFile;
+
+import com.arkea.satd.sonar.checks.AbstractCheckTester;
+import com.arkea.satd.sonar.xml.flow.Endpoint;
+import com.arkea.satd.sonar.xml.flow.Flow;
+import com.arkea.satd.sonar.xml.flow.RouteRule;
+import com.arkea.satd.sonar.xml.flow.Step;
+
+public class EndpointTest extends AbstractCheckTester {
+
+	private static final String PROXY_ENDPOINT = "<ProxyEndpoint name=\"default\">\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"fault\">\r\n" +
+			"            <Step><Name>RF-Fault</Name></Step>\r\n" +
+			"            <Condition>fault.name = \"Error\"</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>VA-Key</Name></Step>\r\n" +
+			"            <Step><Name>Quota</Name><Condition>request.verb = \"GET\"</Condition></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"get\">\r\n" +
+			"            <Request/>\r\n" +
+			"            <Response><Step><Name>AM-Get</Name></Step></Response>\r\n" +
+			"            <Condition>request.verb = \"GET\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"        <Flow name=\"default\"/>\r\n" +
+			"    </Flows>\r\n" +
+			"    <PostFlow name=\"PostFlow\"/>\r\n" +
+			"    <RouteRule name=\"noroute\">\r\n" +
+			"        <Condition>request.verb = \"OPTIONS\"</Condition>\r\n" +
+			"    </RouteRule>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>backend</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>";
+
+	@Test
+	public void test_proxy_endpoint() throws Exception {
+
+		Endpoint endpoint = Endpoint.of(createTempFile("proxies/default.xml", PROXY_ENDPOINT).getDocument());
+
+		assertThat(endpoint.getType()).isEqualTo(Endpoint.PROXY_ENDPOINT);
+		assertThat(endpoint.getName()).isEqualTo("default");
+		assertThat(endpoint.getPreFlow().getRequest()).extracting(Step::getName).containsExactly("VA-Key", "Quota");
+		assertThat(endpoint.getPreFlow().getRequest().get(1).getCondition()).isEqualTo("request.verb = \"GET\"");
+		assertThat(endpoint.getPreFlow().getResponse()).isEmpty();
+		assertThat(endpoint.getFlowsNode().getNodeName()).isEqualTo("Flows");
+		assertThat(endpoint.getFlows()).extracting(Flow::getName).containsExactly("get", "default");
+		assertThat(endpoint.getFlows()).extracting(Flow::getCondition).containsExactly("request.verb = \"GET\"", null);
+		assertThat(endpoint.getPostFlow().getSteps()).isEmpty();
+		assertThat(endpoint.getPostClientFlow()).isNull();
+		assertThat(endpoint.getFaultRules()).hasSize(1);
+		assertThat(endpoint.getFaultRules().get(0).getSteps()).extracting(Step::getName).containsExactly("RF-Fault");
+		assertThat(endpoint.getDefaultFaultRule()).isNull();
+		assertThat(endpoint.getRouteRules()).extracting(RouteRule::getTargetEndpoint).containsExactly(null, "backend");
+		assertThat(endpoint.getRouteRules()).extracting(RouteRule::getCondition).containsExactly("request.verb = \"OPTIONS\"", null);
+
+		// Execution order : PreFlow, Flows, PostFlow, FaultRules
+		assertThat(endpoint.getSteps().stream().map(Step::getName).collect(Collectors.toList()))
+			.containsExactly("VA-Key", "Quota", "AM-Get", "RF-Fault");
+	}
+
+	@Test
+	public void test_not_an_endpoint() throws Exception {
+
+		assertThat(Endpoint.of(createTempFile("policies/quota.xml", "<Quota name=\"Quota\"/>").getDocument())).isNull();
+		assertThat(Endpoint.of(createTempFile("targets/backend.xml", "<TargetEndpoint name=\"backend\"/>").getDocument()).getRouteRules()).isEmpty();
+	}
+
+	/**
+	 * The model of a stored file is read once, and shared by the checks
+	 */
+	@Test
+	public void test_shared_model() throws Exception {
+
+		bundleRecorder.clear();
+		XmlFile storedFile = createTempFile("apiproxy/proxies/default.xml", PROXY_ENDPOINT);
+		bundleRecorder.storeFile(storedFile);
+		bundleRecorder.freeze();
+		assertThat(bundleRecorder.getEndpoint(storedFile)).isSameAs(bundleRecorder.getEndpoint(storedFile));
+
+		XmlFile otherFile = createTempFile("other/proxies/default.xml", PROXY_ENDPOINT);
+		assertThat(bundleRecorder.getEndpoint(otherFile)).isNotSameAs(bundleRecorder.getEndpoint(otherFile));
+	}
+}
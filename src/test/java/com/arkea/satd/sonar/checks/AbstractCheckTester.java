@@ -33,10 +33,15 @@ import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
 import com.arkea.satd.sonar.AbstractXmlPluginTester;
-import com.arkea.satd.sonar.xml.ApigeeXmlSensor;
+import com.arkea.satd.sonar.xml.AnalysisSession;
+import com.arkea.satd.sonar.xml.BundleRecorder;
+import com.arkea.satd.sonar.xml.checks.AbstractBundleCheck;
 
 public abstract class AbstractCheckTester extends AbstractXmlPluginTester {
 
+	// Files of the bundle, searched by the checks extending AbstractBundleCheck
+	protected final BundleRecorder bundleRecorder = new BundleRecorder();
+
 	protected Collection<Issue> getIssues(SonarXmlCheck check, String content) throws IOException {
 		
 		SensorContextTester context = SensorContextTester
@@ -48,9 +53,9 @@ public abstract class AbstractCheckTester extends AbstractXmlPluginTester {
 						.build()
 						)
 				.build());		
-		ApigeeXmlSensor.setContext(context);
 	    XmlFile xmlFile = createTempFile("defaultTempFilename", content);
 	    if(xmlFile!=null) {
+	    	setSession(check, context);
 	    	check.scanFile(context, RuleKey.of(Xml.KEY, "ruleKey"), xmlFile);
 	    }
 		return context.allIssues();	    
@@ -70,13 +75,19 @@ public abstract class AbstractCheckTester extends AbstractXmlPluginTester {
 		
 		
 		
-		ApigeeXmlSensor.setContext(context);
 	    if(xmlFile!=null) {
+	    	setSession(check, context);
 	    	check.scanFile(context, RuleKey.of(Xml.KEY, "ruleKey"), xmlFile);
 	    }
 		return context.allIssues();	    
 	}	
 	
+	private void setSession(SonarXmlCheck check, SensorContextTester context) {
+		if(check instanceof AbstractBundleCheck) {
+			((AbstractBundleCheck) check).setSession(new AnalysisSession(context, bundleRecorder));
+		}
+	}
+
 	protected XmlFile createTempFile(String filename, String content) throws IOException {
 
 	    DefaultInputFile defaultInputFile = TestInputFileBuilder.create("key", filename)
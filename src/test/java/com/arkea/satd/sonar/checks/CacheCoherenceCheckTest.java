@@ -28,7 +28,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.CacheCoherenceCheck;
 
 public class CacheCoherenceCheckTest extends AbstractCheckTester {
@@ -46,8 +45,8 @@ public class CacheCoherenceCheckTest extends AbstractCheckTester {
 			"        <KeyFragment>fragment</KeyFragment>\r\n" + 
 			"    </CacheKey>\r\n" + 
 			"</LookupCache>");
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(lookupCacheXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(lookupCacheXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<PopulateCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Populate-Cache-1\">\r\n" + 
@@ -103,8 +102,8 @@ public class CacheCoherenceCheckTest extends AbstractCheckTester {
 			"        <KeyFragment>fragment</KeyFragment>\r\n" + 
 			"    </CacheKey>\r\n" + 
 			"</LookupCache>");
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(lookupCacheXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(lookupCacheXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<PopulateCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Populate-Cache-1\">\r\n" + 
@@ -125,11 +124,11 @@ public class CacheCoherenceCheckTest extends AbstractCheckTester {
 
 	@Test
 	public void test_ko4_bad_corresponding() throws Exception {
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 		
 		// Fake LookupCache file
 		String tempFileName1 = "lookupCache.xml";
-		BundleRecorder.storeFile(createTempFile(tempFileName1, 
+		bundleRecorder.storeFile(createTempFile(tempFileName1, 
 			"<LookupCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Lookup-Cache-1\">\r\n" + 
 			"    <CacheKey>\r\n" + 
 			"        <Prefix>thePrefix1</Prefix>\r\n" + 
@@ -138,7 +137,7 @@ public class CacheCoherenceCheckTest extends AbstractCheckTester {
 			"</LookupCache>"));
 		
 		String tempFileName2 = "populateCache.xml";
-		BundleRecorder.storeFile(createTempFile(tempFileName2, 
+		bundleRecorder.storeFile(createTempFile(tempFileName2, 
 			"<PopulateCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Populate-Cache-1\">\r\n" + 
 			"    <CacheKey>\r\n" + 
 			"        <Prefix>thePrefix</Prefix>\r\n" + 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.CatastrophicBacktrackingCheck;
+
+public class CatastrophicBacktrackingCheckTest extends AbstractCheckTester {
+
+	@Test
+	public void test_ok() throws Exception {
+		Collection<Issue> issues = getIssues(new CatastrophicBacktrackingCheck(),
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<RegularExpressionProtection async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Regular-Expression-Protection-1\">\r\n" +
+			"     <URIPath>\r\n" +
+			"         <Pattern>[\\s]*(?i)((delete)|(exec)|(drop\\s*table)|(insert)|(shutdown)|(update)|(\\bor\\b))</Pattern>\r\n" +
+			"     </URIPath>\r\n" +
+			"     <QueryParam name=\"a-query-param\">\r\n" +
+			"         <Pattern>&lt;\\s*script\\b[^&gt;]*&gt;[^&lt;]+&lt;\\s*/\\s*script\\s*&gt;</Pattern>\r\n" +
+			"         <Pattern/>\r\n" +
+			"     </QueryParam>\r\n" +
+			"</RegularExpressionProtection>"
+		);
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_regular_expression_protection() throws Exception {
+		Collection<Issue> issues = getIssues(new CatastrophicBacktrackingCheck(),
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<RegularExpressionProtection async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Regular-Expression-Protection-1\">\r\n" +
+			"     <URIPath>\r\n" +
+			"         <Pattern>^(\\w+\\s?)*$</Pattern>\r\n" +
+			"     </URIPath>\r\n" +
+			"     <JSONPayload>\r\n" +
+			"         <JSONPath>\r\n" +
+			"             <Expression>$.store.book[*].author</Expression>\r\n" +
+			"             <Pattern>\\d+\\.?\\d+</Pattern>\r\n" +
+			"             <Pattern>(a+</Pattern>\r\n" +
+			"         </JSONPath>\r\n" +
+			"	</JSONPayload>\r\n" +
+			"</RegularExpressionProtection>"
+		);
+		assertEquals(2, issues.size());
+		Issue[] issueArray = issues.toArray(new Issue[] {});
+		assertEquals(4, issueArray[0].primaryLocation().textRange().start().line());
+		assertEquals("Regex can backtrack catastrophically, worst case O(2^n): nested quantifiers can match the same characters.", issueArray[0].primaryLocation().message());
+		assertEquals(9, issueArray[1].primaryLocation().textRange().start().line());
+		assertEquals("Regex can backtrack catastrophically, worst case O(n^2): quantifiers on overlapping characters follow each other.", issueArray[1].primaryLocation().message());
+	}
+
+	@Test
+	public void test_conditions() throws Exception {
+		Collection<Issue> issues = getIssues(new CatastrophicBacktrackingCheck(),
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step>\r\n" +
+			"                <Name>VA-Verify-API-Key</Name>\r\n" +
+			"                <Condition>request.header.x-id JavaRegex \"(a|aa)+\"</Condition>\r\n" +
+			"            </Step>\r\n" +
+			"            <Step>\r\n" +
+			"                <Name>AM-Test</Name>\r\n" +
+			"                <Condition>request.header.x-id ~~ \"[a-z]+\" and request.header.x-id Matches \"(a+)+\"</Condition>\r\n" +
+			"            </Step>\r\n" +
+			"        </Request>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"users\">\r\n" +
+			"            <Condition>proxy.pathsuffix ~~ \"/users/(.*/)*\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <Condition>request.verb ~~ \"(GET|HEAD)\"</Condition>\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>"
+		);
+		assertEquals(2, issues.size());
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.ConnectionTimeoutsCheck;
+
+public class ConnectionTimeoutsCheckTest extends AbstractCheckTester {
+
+	private ConnectionTimeoutsCheck check = new ConnectionTimeoutsCheck();
+
+	@Test
+	public void test_ok() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">2000</Property>\r\n" +
+			"            <Property name=\"io.timeout.millis\">10000</Property>\r\n" +
+			"            <Property name=\"keepalive.timeout.millis\">{keepalive}</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(0, issues.size());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ServiceCallout name=\"Service-Callout-1\">\r\n" +
+			"    <Response>calloutResponse</Response>\r\n" +
+			"    <Timeout>5000</Timeout>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">2000</Property>\r\n" +
+			"            <Property name=\"io.timeout.millis\">5000</Property>\r\n" +
+			"            <Property name=\"keepalive.timeout.millis\">30000</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</ServiceCallout>");
+		assertEquals(0, issues.size());
+
+		// No HTTP connection to audit
+		issues = getIssues(check, "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"local\">\r\n" +
+			"    <LocalTargetConnection>\r\n" +
+			"        <Path>/v1/other</Path>\r\n" +
+			"    </LocalTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_missing_properties() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">2000</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(3, issue.primaryLocation().textRange().start().line());
+		assertEquals("Set io.timeout.millis, keepalive.timeout.millis in the HTTPTargetConnection instead of relying on the default values.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_excessive_properties() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">10000</Property>\r\n" +
+			"            <Property name=\"io.timeout.millis\">120000</Property>\r\n" +
+			"            <Property name=\"keepalive.timeout.millis\">60000</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(2, issues.size());
+		assertEquals(5, issues.stream().filter(i -> i.primaryLocation().message().equals("connect.timeout.millis of 10000 ms is too long: use at most 5000 ms.")).findFirst().get().primaryLocation().textRange().start().line());
+		assertEquals(6, issues.stream().filter(i -> i.primaryLocation().message().equals("io.timeout.millis of 120000 ms is too long: use at most 30000 ms.")).findFirst().get().primaryLocation().textRange().start().line());
+
+		// Thresholds from the Quality Profile
+		ConnectionTimeoutsCheck permissiveCheck = new ConnectionTimeoutsCheck() {{
+			maxConnectTimeoutMillis = 10000;
+			maxIoTimeoutMillis = 120000;
+			maxKeepAliveTimeoutMillis = 30000;
+		}};
+		issues = getIssues(permissiveCheck,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">10000</Property>\r\n" +
+			"            <Property name=\"io.timeout.millis\">120000</Property>\r\n" +
+			"            <Property name=\"keepalive.timeout.millis\">60000</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		assertEquals("keepalive.timeout.millis of 60000 ms is too long: use at most 30000 ms.", issues.iterator().next().primaryLocation().message());
+	}
+
+	@Test
+	public void test_service_callout_timeout() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ServiceCallout name=\"Service-Callout-1\">\r\n" +
+			"    <Response>calloutResponse</Response>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">2000</Property>\r\n" +
+			"            <Property name=\"io.timeout.millis\">5000</Property>\r\n" +
+			"            <Property name=\"keepalive.timeout.millis\">30000</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</ServiceCallout>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(2, issue.primaryLocation().textRange().start().line());
+		assertEquals("Set a Timeout on the ServiceCallout: without it, the callout waits for the backend as long as the connection allows.", issue.primaryLocation().message());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ServiceCallout name=\"Service-Callout-1\">\r\n" +
+			"    <Response>calloutResponse</Response>\r\n" +
+			"    <Timeout>60000</Timeout>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"connect.timeout.millis\">2000</Property>\r\n" +
+			"            <Property name=\"io.timeout.millis\">5000</Property>\r\n" +
+			"            <Property name=\"keepalive.timeout.millis\">30000</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</ServiceCallout>");
+		assertEquals(1, issues.size());
+		issue = issues.iterator().next();
+		assertEquals(4, issue.primaryLocation().textRange().start().line());
+		assertEquals("Timeout of 60000 ms is too long: use at most 30000 ms.", issue.primaryLocation().message());
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
+
+import com.arkea.satd.sonar.xml.checks.ExpensiveConditionCheck;
+
+public class ExpensiveConditionCheckTest extends AbstractCheckTester {
+
+	private SonarXmlCheck check = new ExpensiveConditionCheck();
+
+	@Test
+	public void test_ok() throws Exception {
+
+		Collection<Issue> issues = getIssues(check,
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<ProxyEndpoint name=\"default\">\r\n" +
+				"    <PreFlow name=\"PreFlow\">\r\n" +
+				"        <Request>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>VA-Verify-API-Key</Name>\r\n" +
+				"                <Condition>request.verb != \"OPTIONS\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"        </Request>\r\n" +
+				"        <Response/>\r\n" +
+				"    </PreFlow>\r\n" +
+				"    <Flows>\r\n" +
+				"        <Flow name=\"user\">\r\n" +
+				"            <Condition>(proxy.pathsuffix MatchesPath \"/users/{id}\") and (request.verb = \"GET\")</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"    </Flows>\r\n" +
+				"</ProxyEndpoint>"
+			);
+
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_expensive_conditions() throws Exception {
+
+		Collection<Issue> issues = getIssues(check,
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<ProxyEndpoint name=\"default\">\r\n" +
+				"    <PreFlow name=\"PreFlow\">\r\n" +
+				"        <Request>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>VA-Verify-API-Key</Name>\r\n" +
+				"                <Condition>proxy.pathsuffix ~~ \"/users/.*\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>AM-Verb</Name>\r\n" +
+				"                <Condition>request.verb JavaRegex \"^GET$\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>AM-Ok</Name>\r\n" +
+				"                <Condition>proxy.pathsuffix StartsWith \"/users/\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"        </Request>\r\n" +
+				"        <Response/>\r\n" +
+				"    </PreFlow>\r\n" +
+				"    <Flows>\r\n" +
+				"        <Flow name=\"orders\">\r\n" +
+				"            <Request/>\r\n" +
+				"            <Response/>\r\n" +
+				"            <Condition>(proxy.pathsuffix MatchesPath \"/users/*/orders/*\") and (request.verb = \"GET\")</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"        <Flow name=\"user\">\r\n" +
+				"            <Request/>\r\n" +
+				"            <Response/>\r\n" +
+				"            <Condition>(proxy.pathsuffix MatchesPath \"/users/*\") and (request.verb = \"GET\")</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"        <Flow name=\"search\">\r\n" +
+				"            <Request>\r\n" +
+				"                <Step>\r\n" +
+				"                    <Name>AM-Search</Name>\r\n" +
+				"                    <Condition>request.queryparam.q ~~ \"[a-z]+\"</Condition>\r\n" +
+				"                </Step>\r\n" +
+				"            </Request>\r\n" +
+				"            <Response/>\r\n" +
+				"            <Condition>proxy.pathsuffix MatchesPath \"/search\"</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"    </Flows>\r\n" +
+				"    <PostFlow name=\"PostFlow\"/>\r\n" +
+				"</ProxyEndpoint>"
+			);
+
+		assertEquals(Arrays.asList(7, 11, 24, 35), issues.stream().map(issue -> issue.primaryLocation().textRange().start().line()).sorted().collect(Collectors.toList()));
+		assertEquals("Condition uses JavaRegex on a path evaluated on most requests: use StartsWith \"/users/\" instead.", issues.stream().filter(issue -> issue.primaryLocation().textRange().start().line() == 7).findFirst().get().primaryLocation().message());
+		assertEquals("Condition uses JavaRegex on a path evaluated on most requests: use = \"GET\" instead.", issues.stream().filter(issue -> issue.primaryLocation().textRange().start().line() == 11).findFirst().get().primaryLocation().message());
+		assertEquals("Condition uses MatchesPath on a path evaluated on most requests: prefer = or StartsWith, or move the condition to a less frequent path.", issues.stream().filter(issue -> issue.primaryLocation().textRange().start().line() == 24).findFirst().get().primaryLocation().message());
+	}
+
+	@Test
+	public void test_properties() throws Exception {
+
+		// Only the first Flow is a hot path, and MatchesPath is always expensive
+		ExpensiveConditionCheck propertiesCheck = new ExpensiveConditionCheck() {
+			{
+				expensiveOperators = "~~, MatchesPath, Unknown";
+				maxWildcards = 2;
+				hotFlows = 1;
+			}
+		};
+		Collection<Issue> issues = getIssues(propertiesCheck,
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<ProxyEndpoint name=\"default\">\r\n" +
+				"    <PreFlow name=\"PreFlow\">\r\n" +
+				"        <Request>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>VA-Verify-API-Key</Name>\r\n" +
+				"                <Condition>proxy.pathsuffix ~~ \"/users/.*\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>AM-Verb</Name>\r\n" +
+				"                <Condition>request.verb JavaRegex \"^GET$\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"            <Step>\r\n" +
+				"                <Name>AM-Ok</Name>\r\n" +
+				"                <Condition>proxy.pathsuffix StartsWith \"/users/\"</Condition>\r\n" +
+				"            </Step>\r\n" +
+				"        </Request>\r\n" +
+				"        <Response/>\r\n" +
+				"    </PreFlow>\r\n" +
+				"    <Flows>\r\n" +
+				"        <Flow name=\"orders\">\r\n" +
+				"            <Request/>\r\n" +
+				"            <Response/>\r\n" +
+				"            <Condition>(proxy.pathsuffix MatchesPath \"/users/*/orders/*\") and (request.verb = \"GET\")</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"        <Flow name=\"user\">\r\n" +
+				"            <Request/>\r\n" +
+				"            <Response/>\r\n" +
+				"            <Condition>(proxy.pathsuffix MatchesPath \"/users/*\") and (request.verb = \"GET\")</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"        <Flow name=\"search\">\r\n" +
+				"            <Request>\r\n" +
+				"                <Step>\r\n" +
+				"                    <Name>AM-Search</Name>\r\n" +
+				"                    <Condition>request.queryparam.q ~~ \"[a-z]+\"</Condition>\r\n" +
+				"                </Step>\r\n" +
+				"            </Request>\r\n" +
+				"            <Response/>\r\n" +
+				"            <Condition>proxy.pathsuffix MatchesPath \"/search\"</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"    </Flows>\r\n" +
+				"    <PostFlow name=\"PostFlow\"/>\r\n" +
+				"</ProxyEndpoint>"
+			);
+
+		assertEquals(Arrays.asList(7, 11, 24), issues.stream().map(issue -> issue.primaryLocation().textRange().start().line()).sorted().collect(Collectors.toList()));
+	}
+
+	@Test
+	public void test_multi_segment_wildcard() throws Exception {
+
+		// "**" is one wildcard : only the second pattern has two wildcards
+		Collection<Issue> issues = getIssues(check,
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<ProxyEndpoint name=\"default\">\r\n" +
+				"    <Flows>\r\n" +
+				"        <Flow name=\"users\">\r\n" +
+				"            <Condition>proxy.pathsuffix MatchesPath \"/users/**\"</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"        <Flow name=\"orders\">\r\n" +
+				"            <Condition>proxy.pathsuffix MatchesPath \"/users/*/orders/**\"</Condition>\r\n" +
+				"        </Flow>\r\n" +
+				"    </Flows>\r\n" +
+				"</ProxyEndpoint>"
+			);
+
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(8, issue.primaryLocation().textRange().start().line());
+		assertEquals("Condition uses MatchesPath on a path evaluated on most requests: prefer = or StartsWith, or move the condition to a less frequent path.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_not_an_endpoint() throws Exception {
+
+		Collection<Issue> issues = getIssues(check,
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+				"<AssignMessage name=\"AM-Test\">\r\n" +
+				"    <Condition>proxy.pathsuffix ~~ \"/users/.*\"</Condition>\r\n" +
+				"</AssignMessage>"
+			);
+
+		assertEquals(0, issues.size());
+	}
+}
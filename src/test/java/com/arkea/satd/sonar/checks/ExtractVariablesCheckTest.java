@@ -26,7 +26,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.ExtractVariablesCheck;
 
 public class ExtractVariablesCheckTest extends AbstractCheckTester {
@@ -53,8 +52,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -88,8 +87,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -123,8 +122,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -164,8 +163,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -205,8 +204,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -245,8 +244,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -276,8 +275,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -311,8 +310,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -346,8 +345,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -387,8 +386,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -419,8 +418,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -482,8 +481,8 @@ public class ExtractVariablesCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
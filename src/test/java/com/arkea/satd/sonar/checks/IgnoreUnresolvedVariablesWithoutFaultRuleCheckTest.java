@@ -24,7 +24,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.IgnoreUnresolvedVariablesWithoutFaultRuleCheck;
 
 public class IgnoreUnresolvedVariablesWithoutFaultRuleCheckTest extends AbstractCheckTester {
@@ -69,8 +68,8 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheckTest extends Abstract
 				"    </DefaultFaultRule>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -109,8 +108,8 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheckTest extends Abstract
 				"    </DefaultFaultRule>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -150,8 +149,8 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheckTest extends Abstract
 				"    </FaultRules>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -184,8 +183,8 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheckTest extends Abstract
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -218,8 +217,8 @@ public class IgnoreUnresolvedVariablesWithoutFaultRuleCheckTest extends Abstract
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
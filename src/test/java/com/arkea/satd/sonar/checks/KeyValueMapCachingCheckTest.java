@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.rule.Severity;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.KeyValueMapCachingCheck;
+
+public class KeyValueMapCachingCheckTest extends AbstractCheckTester {
+
+	private KeyValueMapCachingCheck check = new KeyValueMapCachingCheck();
+
+	@Before
+	public void storeEndpoint() throws Exception {
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(createTempFile("proxyEndpoint.xml",
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>KVM-Hot</Name></Step>\r\n" +
+			"            <Step>\r\n" +
+			"                <Name>KVM-Conditional</Name>\r\n" +
+			"                <Condition>request.verb = \"POST\"</Condition>\r\n" +
+			"            </Step>\r\n" +
+			"        </Request>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"users\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>KVM-Flow</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>proxy.pathsuffix MatchesPath \"/users\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"        <Flow name=\"default\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>KVM-Default</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"</ProxyEndpoint>"));
+	}
+
+	@Test
+	public void test_ok() throws Exception {
+		// Default expiry
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Hot\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <Get assignTo=\"private.secret\"><Key><Parameter>secret</Parameter></Key></Get>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(0, issues.size());
+
+		// Long expiry
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Hot\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <ExpiryTimeInSecs>600</ExpiryTimeInSecs>\r\n" +
+			"    <Get assignTo=\"private.secret\"><Key><Parameter>secret</Parameter></Key></Get>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(0, issues.size());
+
+		// Flow variable
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Hot\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <ExpiryTimeInSecs>{ttl}</ExpiryTimeInSecs>\r\n" +
+			"    <Get assignTo=\"private.secret\"><Key><Parameter>secret</Parameter></Key></Get>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(0, issues.size());
+
+		// Writes only when needed
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Conditional\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <Put override=\"true\"><Key><Parameter>last</Parameter></Key><Value ref=\"request.header.x-id\"/></Put>\r\n" +
+			"    <Delete><Key><Parameter>old</Parameter></Key></Delete>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(0, issues.size());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Flow\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <Put override=\"true\"><Key><Parameter>last</Parameter></Key><Value ref=\"request.header.x-id\"/></Put>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_short_expiry() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Flow\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <ExpiryTimeInSecs>5</ExpiryTimeInSecs>\r\n" +
+			"    <Get assignTo=\"private.secret\"><Key><Parameter>secret</Parameter></Key></Get>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(4, issue.primaryLocation().textRange().start().line());
+		assertEquals("ExpiryTimeInSecs of 5 seconds makes the Get operations read the backing store almost every time: cache the values at least 60 seconds.", issue.primaryLocation().message());
+		assertNull(issue.overriddenSeverity());
+	}
+
+	@Test
+	public void test_short_expiry_on_every_request() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Hot\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <ExpiryTimeInSecs>5</ExpiryTimeInSecs>\r\n" +
+			"    <Get assignTo=\"private.secret\"><Key><Parameter>secret</Parameter></Key></Get>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals("ExpiryTimeInSecs of 5 seconds makes the Get operations read the backing store almost every time: cache the values at least 60 seconds. This policy is executed on every request.", issue.primaryLocation().message());
+		assertEquals(Severity.CRITICAL, issue.overriddenSeverity());
+
+		// Unconditional Flow
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Default\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <ExpiryTimeInSecs>1</ExpiryTimeInSecs>\r\n" +
+			"    <Get assignTo=\"private.secret\"><Key><Parameter>secret</Parameter></Key></Get>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(1, issues.size());
+		assertEquals(Severity.CRITICAL, issues.iterator().next().overriddenSeverity());
+	}
+
+	@Test
+	public void test_writes_on_every_request() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<KeyValueMapOperations async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"KVM-Hot\" mapIdentifier=\"config\">\r\n" +
+			"    <Scope>environment</Scope>\r\n" +
+			"    <Put override=\"true\"><Key><Parameter>last</Parameter></Key><Value ref=\"request.header.x-id\"/></Put>\r\n" +
+			"    <Delete><Key><Parameter>old</Parameter></Key></Delete>\r\n" +
+			"</KeyValueMapOperations>");
+		assertEquals(2, issues.size());
+		assertEquals("This Put operation writes to the backing store on every request: execute it only when the value changes.", issues.stream().filter(issue -> issue.primaryLocation().textRange().start().line() == 4).findFirst().get().primaryLocation().message());
+		assertEquals("This Delete operation writes to the backing store on every request: execute it only when the value changes.", issues.stream().filter(issue -> issue.primaryLocation().textRange().start().line() == 5).findFirst().get().primaryLocation().message());
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.MessageLoggingInRequestPathCheck;
+
+public class MessageLoggingInRequestPathCheckTest extends AbstractCheckTester {
+
+	private MessageLoggingInRequestPathCheck check = new MessageLoggingInRequestPathCheck();
+
+	@Before
+	public void storePolicies() throws Exception {
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(createTempFile("messageLogging.xml",
+			"<MessageLogging async=\"false\" continueOnError=\"true\" enabled=\"true\" name=\"ML-Syslog\">\r\n" +
+			"    <Syslog>\r\n" +
+			"        <Message>{request.verb} {proxy.pathsuffix}</Message>\r\n" +
+			"        <Host>logs.example.com</Host>\r\n" +
+			"        <Port>514</Port>\r\n" +
+			"    </Syslog>\r\n" +
+			"</MessageLogging>"));
+	}
+
+	@Test
+	public void test_ok() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"all\">\r\n" +
+			"            <Step><Name>ML-Syslog</Name></Step>\r\n" +
+			"            <Condition>fault.name != null</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>VA-Verify-API-Key</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostClientFlow name=\"PostClientFlow\">\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>ML-Syslog</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PostClientFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_request_path() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>ML-Syslog</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"users\">\r\n" +
+			"            <Response>\r\n" +
+			"                <Step>\r\n" +
+			"                    <Name>ML-Syslog</Name>\r\n" +
+			"                    <Condition>response.status.code >= 500</Condition>\r\n" +
+			"                </Step>\r\n" +
+			"            </Response>\r\n" +
+			"            <Condition>proxy.pathsuffix MatchesPath \"/users\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>ML-Syslog</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(3, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals("Move this MessageLogging to the PostClientFlow of the ProxyEndpoint: here it delays the response to the client.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_target_endpoint() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>ML-Syslog</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PostFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <URL>https://backend.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		assertEquals(5, issues.iterator().next().primaryLocation().textRange().start().line());
+	}
+}
@@ -24,7 +24,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.MultipleStatsCollectorsCheck;
 
 public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
@@ -42,8 +41,8 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(policyXml1);
 
 		XmlFile policyXml2 = createTempFile("policy2.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<StatisticsCollector name=\"__collect-statistics-request2__\">\r\n" + 
@@ -52,7 +51,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml2);
+		bundleRecorder.storeFile(policyXml2);
 		
 		Collection<Issue> issues = getIssues(check, policyXml2);
 		assertEquals(0, issues.size());
@@ -69,8 +68,8 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(policyXml1);
 
 		XmlFile policyXml2 = createTempFile("policy2.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<StatisticsCollector name=\"__collect-statistics-request2__\">\r\n" + 
@@ -79,7 +78,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml2);
+		bundleRecorder.storeFile(policyXml2);
 
 		Collection<Issue> issues = getIssues(check, policyXml2);
 		assertEquals(1, issues.size());
@@ -89,7 +88,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_with_conditions_ok() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -110,7 +109,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -121,7 +120,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		XmlFile policyXml2 = createTempFile("policy2.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<StatisticsCollector name=\"__collect-statistics-request2__\">\r\n" + 
@@ -130,7 +129,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml2);
+		bundleRecorder.storeFile(policyXml2);
 
 		Collection<Issue> issues = getIssues(check, policyXml2);
 		assertEquals(0, issues.size());
@@ -140,7 +139,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_with_conditions_ko1() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -160,7 +159,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -171,7 +170,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		XmlFile policyXml2 = createTempFile("policy2.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<StatisticsCollector name=\"__collect-statistics-request2__\">\r\n" + 
@@ -180,7 +179,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml2);
+		bundleRecorder.storeFile(policyXml2);
 
 		Collection<Issue> issues = getIssues(check, policyXml2);
 		assertEquals(3, issues.size());
@@ -189,7 +188,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_with_conditions_ko2() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -209,7 +208,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -220,7 +219,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(3, issues.size());
@@ -230,7 +229,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_in_different_flows_without_conditions_ok() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -258,7 +257,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -269,7 +268,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(0, issues.size());
@@ -278,7 +277,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_in_different_flows_without_conditions_ko1() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -305,7 +304,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		// Fake StatisticsCollector file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -315,7 +314,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(3, issues.size());
@@ -324,7 +323,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_in_different_flows_without_conditions_ko2() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -351,7 +350,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </PostFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		// Fake StatisticsCollector file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -361,7 +360,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(3, issues.size());
@@ -370,7 +369,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_duplicated_with_conditions_ko1() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -391,7 +390,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -402,7 +401,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		XmlFile policyXml2 = createTempFile("policy2.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<StatisticsCollector name=\"__collect-statistics-request2__\">\r\n" + 
@@ -411,7 +410,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml2);
+		bundleRecorder.storeFile(policyXml2);
 
 		Collection<Issue> issues = getIssues(check, policyXml2);
 		assertEquals(1, issues.size());
@@ -420,7 +419,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_duplicated_with_conditions_ko2() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -440,7 +439,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -451,7 +450,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		XmlFile policyXml2 = createTempFile("policy2.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<StatisticsCollector name=\"__collect-statistics-request2__\">\r\n" + 
@@ -460,7 +459,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml2);
+		bundleRecorder.storeFile(policyXml2);
 
 		Collection<Issue> issues = getIssues(check, policyXml2);
 		assertEquals(4, issues.size());
@@ -469,7 +468,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_faultrule_with_conditions_ok() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -496,7 +495,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </FaultRules>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -507,7 +506,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(0, issues.size());
@@ -516,7 +515,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_faultrule_with_conditions_ko() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -536,7 +535,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </FaultRules>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -547,7 +546,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(3, issues.size());
@@ -556,7 +555,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_defautfaultrule_with_conditions_ok() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -577,7 +576,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </DefaultFaultRule>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -588,7 +587,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(0, issues.size());
@@ -598,7 +597,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_defautfaultrule_with_conditions_ko() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -615,7 +614,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"    </DefaultFaultRule>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		
 		// Fake StatisticsCollector file
@@ -626,7 +625,7 @@ public class MultipleStatsCollectorsCheckTest extends AbstractCheckTester {
 				"	</Statistics>\r\n" +
 				"</StatisticsCollector>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 		assertEquals(3, issues.size());
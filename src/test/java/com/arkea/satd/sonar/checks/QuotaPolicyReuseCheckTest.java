@@ -24,7 +24,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.QuotaPolicyReuseCheck;
 
 
@@ -35,7 +34,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_ok1() throws Exception {
 		
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 		Collection<Issue> issues = getIssues(check, 
 				"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<Quota name=\"QuotaPolicy\" type=\"calendar\">" + 
@@ -52,7 +51,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_ok2() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -69,7 +68,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		// Fake StatisticsCollector file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -81,7 +80,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 				"	<Distributed></Distributed>" + 
 				"</Quota>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 
@@ -91,7 +90,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 	@Test
 	public void test_ko1() throws Exception {
 
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -112,7 +111,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		// Fake StatisticsCollector file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -124,7 +123,7 @@ public class QuotaPolicyReuseCheckTest extends AbstractCheckTester {
 				"	<Distributed></Distributed>" + 
 				"</Quota>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.QuotaSynchronizationCheck;
+
+public class QuotaSynchronizationCheckTest extends AbstractCheckTester {
+
+	private QuotaSynchronizationCheck check = new QuotaSynchronizationCheck();
+
+	@Test
+	public void test_ok() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Distributed>true</Distributed>\r\n" +
+			"    <Synchronous>false</Synchronous>\r\n" +
+			"    <AsynchronousConfiguration>\r\n" +
+			"        <SyncIntervalInSeconds>20</SyncIntervalInSeconds>\r\n" +
+			"    </AsynchronousConfiguration>\r\n" +
+			"    <Identifier ref=\"client_id\"/>\r\n" +
+			"</Quota>");
+		assertEquals(0, issues.size());
+
+		// Nondistributed quota : reported by NondistributedQuotaCheck only
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Synchronous>true</Synchronous>\r\n" +
+			"    <Identifier ref=\"client.ip\"/>\r\n" +
+			"</Quota>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_synchronous() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Distributed>true</Distributed>\r\n" +
+			"    <Synchronous>true</Synchronous>\r\n" +
+			"</Quota>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(7, issue.primaryLocation().textRange().start().line());
+		assertEquals("Synchronous distributed quota updates the shared counter on every request: set Synchronous to false and configure an AsynchronousConfiguration.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_sync_interval() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Distributed>true</Distributed>\r\n" +
+			"    <AsynchronousConfiguration>\r\n" +
+			"        <SyncIntervalInSeconds>2</SyncIntervalInSeconds>\r\n" +
+			"    </AsynchronousConfiguration>\r\n" +
+			"</Quota>");
+		assertEquals(1, issues.size());
+		assertEquals("SyncIntervalInSeconds of 2 seconds updates the shared counter almost on every request: use at least 10 seconds.", issues.iterator().next().primaryLocation().message());
+
+		// Threshold from the Quality Profile
+		QuotaSynchronizationCheck strictCheck = new QuotaSynchronizationCheck() {
+			{
+				minSyncIntervalInSeconds = 30;
+			}
+		};
+		issues = getIssues(strictCheck,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Distributed>true</Distributed>\r\n" +
+			"    <AsynchronousConfiguration>\r\n" +
+			"        <SyncIntervalInSeconds>20</SyncIntervalInSeconds>\r\n" +
+			"    </AsynchronousConfiguration>\r\n" +
+			"</Quota>");
+		assertEquals(1, issues.size());
+	}
+
+	@Test
+	public void test_identifier() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Distributed>true</Distributed>\r\n" +
+			"    <Identifier ref=\"proxy.client.ip\"/>\r\n" +
+			"</Quota>");
+		assertEquals(1, issues.size());
+		assertEquals("Identifier proxy.client.ip has a high cardinality: the distributed quota keeps a shared counter for each of its values.", issues.iterator().next().primaryLocation().message());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<Quota name=\"QuotaPolicy\" type=\"calendar\">\r\n" +
+			"    <Interval>1</Interval>\r\n" +
+			"    <TimeUnit>minute</TimeUnit>\r\n" +
+			"    <Allow count=\"100\"/>\r\n" +
+			"    <Distributed>true</Distributed>\r\n" +
+			"    <Identifier ref=\"request.header.X-Forwarded-For\"/>\r\n" +
+			"</Quota>");
+		assertEquals(1, issues.size());
+	}
+}
@@ -24,7 +24,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.ResponseCacheErrorResponseCheck;
 
 
@@ -70,7 +69,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 
 	@Test
 	public void test_ok3() throws Exception {
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -86,7 +85,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 				"    </PostFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		// Fake ResponseCache file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -100,7 +99,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 				"    </ExpirySettings>" + 
 				"</ResponseCache>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 	
@@ -109,7 +108,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 
 	@Test
 	public void test_ok4() throws Exception {
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -124,7 +123,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 				"    </PostFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		// Fake ResponseCache file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -138,7 +137,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 				"    </ExpirySettings>" + 
 				"</ResponseCache>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 	
@@ -148,7 +147,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 	
 	@Test
 	public void test_ko1() throws Exception {
-		BundleRecorder.clear();
+		bundleRecorder.clear();
 
 		// Fake ProxyEndpoint file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -163,7 +162,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 				"    </PostFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		// Fake ResponseCache file
 		XmlFile policyXml1 = createTempFile("policy1.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -177,7 +176,7 @@ public class ResponseCacheErrorResponseCheckTest extends AbstractCheckTester {
 				"    </ExpirySettings>" + 
 				"</ResponseCache>"
 				);
-		BundleRecorder.storeFile(policyXml1);
+		bundleRecorder.storeFile(policyXml1);
 
 		Collection<Issue> issues = getIssues(check, policyXml1);
 	
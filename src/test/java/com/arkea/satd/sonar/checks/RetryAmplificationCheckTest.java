@@ -0,0 +1,477 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.RetryAmplificationCheck;
+
+public class RetryAmplificationCheckTest extends AbstractCheckTester {
+
+	private RetryAmplificationCheck check = new RetryAmplificationCheck();
+
+	@Before
+	public void storePolicies() throws Exception {
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(createTempFile("serviceCallout.xml",
+			"<ServiceCallout async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"SC-Profile\">\r\n" +
+			"    <Response>profileResponse</Response>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"profile1\"/>\r\n" +
+			"            <Server name=\"profile2\"/>\r\n" +
+			"            <Server name=\"profile3\"/>\r\n" +
+			"            <Server name=\"profile4\"/>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <Path>/profile</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</ServiceCallout>"));
+		bundleRecorder.storeFile(createTempFile("simpleServiceCallout.xml",
+			"<ServiceCallout async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"SC-Simple\">\r\n" +
+			"    <Response>simpleResponse</Response>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <URL>https://simple.example.com</URL>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</ServiceCallout>"));
+	}
+
+	@Test
+	public void test_ok() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(0, issues.size());
+
+		// Four servers, without retry
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <Server name=\"target3\"/>\r\n" +
+			"            <Server name=\"target4\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"            <RetryEnabled>false</RetryEnabled>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_amplification() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <Server name=\"target3\"/>\r\n" +
+			"            <Server name=\"target4\">\r\n" +
+			"                <IsFallback>true</IsFallback>\r\n" +
+			"            </Server>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"            <ServerUnhealthyResponse>\r\n" +
+			"                <ResponseCode>503</ResponseCode>\r\n" +
+			"            </ServerUnhealthyResponse>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(9, issue.primaryLocation().textRange().start().line());
+		assertEquals("This LoadBalancer may make 4 backend attempts per call, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 4 backend attempts.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_amplification_not_hidden_by_callouts() throws Exception {
+		// Three and four ServiceCallouts without retries : the target still amplifies 10 times
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <Server name=\"target3\"/>\r\n" +
+			"            <Server name=\"target4\"/>\r\n" +
+			"            <Server name=\"target5\"/>\r\n" +
+			"            <Server name=\"target6\"/>\r\n" +
+			"            <Server name=\"target7\"/>\r\n" +
+			"            <Server name=\"target8\"/>\r\n" +
+			"            <Server name=\"target9\"/>\r\n" +
+			"            <Server name=\"target10\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		assertEquals("This LoadBalancer may make 10 backend attempts per call, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 13 backend attempts.", issues.iterator().next().primaryLocation().message());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <Server name=\"target3\"/>\r\n" +
+			"            <Server name=\"target4\"/>\r\n" +
+			"            <Server name=\"target5\"/>\r\n" +
+			"            <Server name=\"target6\"/>\r\n" +
+			"            <Server name=\"target7\"/>\r\n" +
+			"            <Server name=\"target8\"/>\r\n" +
+			"            <Server name=\"target9\"/>\r\n" +
+			"            <Server name=\"target10\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(13, issue.primaryLocation().textRange().start().line());
+		assertEquals("This LoadBalancer may make 10 backend attempts per call, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 14 backend attempts.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_amplification_with_service_callout() throws Exception {
+		// Only the ServiceCallout amplifies : the issues are on its steps
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"            <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(2, issues.size());
+		for(Issue issue : issues) {
+			assertEquals("ServiceCallout SC-Profile may make 4 backend attempts per call with its LoadBalancer, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 11 backend attempts.", issue.primaryLocation().message());
+		}
+		assertEquals(5 + 7, issues.stream().mapToInt(issue -> issue.primaryLocation().textRange().start().line()).sum());
+
+		// Amplification factor from the Quality Profile
+		RetryAmplificationCheck permissiveCheck = new RetryAmplificationCheck() {{
+			maxAmplificationFactor = 4;
+		}};
+		issues = getIssues(permissiveCheck,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_amplification_in_proxy_endpoint() throws Exception {
+		bundleRecorder.storeFile(createTempFile("proxyEndpoint.xml",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"profile\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>proxy.pathsuffix MatchesPath \"/profile\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1</BasePath>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>"));
+		bundleRecorder.storeFile(createTempFile("targetEndpoint.xml",
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>"));
+
+		// The ServiceCallouts of the ProxyEndpoint flows, then the TargetEndpoint routed to : 4 + 1 + 4 + 2 attempts
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Simple</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"profile\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>proxy.pathsuffix MatchesPath \"/profile\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1</BasePath>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(12, issue.primaryLocation().textRange().start().line());
+		assertEquals("ServiceCallout SC-Profile may make 4 backend attempts per call with its LoadBalancer, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 11 backend attempts.", issue.primaryLocation().message());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		issue = issues.iterator().next();
+		assertEquals(5, issue.primaryLocation().textRange().start().line());
+		assertEquals("ServiceCallout SC-Profile may make 4 backend attempts per call with its LoadBalancer, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 11 backend attempts.", issue.primaryLocation().message());
+
+		// No ProxyEndpoint routes to this TargetEndpoint
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"other\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Profile</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <HealthMonitor>\r\n" +
+			"            <IsEnabled>true</IsEnabled>\r\n" +
+			"            <IntervalInSec>5</IntervalInSec>\r\n" +
+			"        </HealthMonitor>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		assertEquals("ServiceCallout SC-Profile may make 4 backend attempts per call with its LoadBalancer, more than 3: disable RetryEnabled or reduce its Servers. In the worst case, a client request makes 6 backend attempts.", issues.iterator().next().primaryLocation().message());
+	}
+
+	@Test
+	public void test_health_monitor() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"            <MaxFailures>5</MaxFailures>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		assertEquals("Servers taken out after MaxFailures failures are never put back without a HealthMonitor: add a HealthMonitor to the HTTPTargetConnection.", issues.iterator().next().primaryLocation().message());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"            <Server name=\"target2\"/>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(1, issues.size());
+		assertEquals("A failing Server is never taken out of the LoadBalancer and keeps receiving requests: set MaxFailures and add a HealthMonitor to the HTTPTargetConnection.", issues.iterator().next().primaryLocation().message());
+
+		// A single server without MaxFailures : nothing to take out
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<TargetEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <HTTPTargetConnection>\r\n" +
+			"        <LoadBalancer>\r\n" +
+			"            <Server name=\"target1\"/>\r\n" +
+			"        </LoadBalancer>\r\n" +
+			"        <Path>/v1</Path>\r\n" +
+			"    </HTTPTargetConnection>\r\n" +
+			"</TargetEndpoint>");
+		assertEquals(0, issues.size());
+	}
+}
@@ -24,7 +24,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.RouteRulesToTargetCheck;
 
 public class RouteRulesToTargetCheckTest extends AbstractCheckTester {
@@ -39,8 +38,8 @@ public class RouteRulesToTargetCheckTest extends AbstractCheckTester {
 				"<TargetEndpoint name=\"existingTarget\">\r\n" + 
 				"</TargetEndpoint>"
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(targetEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(targetEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<ProxyEndpoint name=\"default\">\r\n" + 
@@ -74,8 +73,8 @@ public class RouteRulesToTargetCheckTest extends AbstractCheckTester {
 				"<TargetEndpoint name=\"anotherExistingTarget\">\r\n" + 
 				"</TargetEndpoint>"
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(targetEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(targetEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<ProxyEndpoint name=\"default\">\r\n" + 
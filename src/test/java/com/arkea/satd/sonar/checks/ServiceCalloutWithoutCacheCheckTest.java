@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.ServiceCalloutWithoutCacheCheck;
+
+public class ServiceCalloutWithoutCacheCheckTest extends AbstractCheckTester {
+
+	private ServiceCalloutWithoutCacheCheck check = new ServiceCalloutWithoutCacheCheck();
+
+	@Before
+	public void storePolicies() throws Exception {
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(createTempFile("serviceCallout.xml",
+			"<ServiceCallout async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"SC-Token\">\r\n" +
+			"    <Request variable=\"tokenRequest\"/>\r\n" +
+			"    <Response>tokenResponse</Response>\r\n" +
+			"</ServiceCallout>"));
+		bundleRecorder.storeFile(createTempFile("lookupCache.xml",
+			"<LookupCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"LC-Token\">\r\n" +
+			"    <CacheKey>\r\n" +
+			"        <Prefix>token</Prefix>\r\n" +
+			"        <KeyFragment ref=\"client_id\"/>\r\n" +
+			"    </CacheKey>\r\n" +
+			"</LookupCache>"));
+		bundleRecorder.storeFile(createTempFile("populateCache.xml",
+			"<PopulateCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"PC-Token\">\r\n" +
+			"    <CacheKey>\r\n" +
+			"        <Prefix>token</Prefix>\r\n" +
+			"        <KeyFragment ref=\"client_id\"/>\r\n" +
+			"    </CacheKey>\r\n" +
+			"</PopulateCache>"));
+		bundleRecorder.storeFile(createTempFile("otherPopulateCache.xml",
+			"<PopulateCache async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"PC-Other\">\r\n" +
+			"    <CacheKey>\r\n" +
+			"        <Prefix>other</Prefix>\r\n" +
+			"        <KeyFragment ref=\"client_id\"/>\r\n" +
+			"    </CacheKey>\r\n" +
+			"</PopulateCache>"));
+	}
+
+	@Test
+	public void test_ok_cached() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>LC-Token</Name></Step>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request/>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>PC-Token</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_ok_conditional() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>LC-Token</Name></Step>\r\n" +
+			"            <Step>\r\n" +
+			"                <Name>SC-Token</Name>\r\n" +
+			"                <Condition>lookupcache.LC-Token.cachehit = false</Condition>\r\n" +
+			"            </Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request/>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_no_cache() throws Exception {
+		// The ServiceCallout of the Flow is not executed on every request
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"token\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>SC-Token</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>proxy.pathsuffix MatchesPath \"/token\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request/>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(5, issue.primaryLocation().textRange().start().line());
+		assertEquals("This ServiceCallout is executed on every request without a LookupCache before it and a PopulateCache after it on the same cache key.", issue.primaryLocation().message());
+	}
+
+	@Test
+	public void test_bad_cache() throws Exception {
+		// Populate on another key
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>LC-Token</Name></Step>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"            <Step><Name>PC-Other</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request/>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(1, issues.size());
+
+		// Lookup after the callout, and ServiceCallout in the PostFlow
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"            <Step><Name>LC-Token</Name></Step>\r\n" +
+			"            <Step><Name>PC-Token</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request/>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(2, issues.size());
+	}
+
+	@Test
+	public void test_execution_order() throws Exception {
+		// The request of the PostFlow is executed before the response of the PreFlow
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>LC-Token</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>PC-Token</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+
+		// The response of the PreFlow is executed after the request of the PostFlow
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request/>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>SC-Token</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <PostFlow name=\"PostFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>LC-Token</Name></Step>\r\n" +
+			"            <Step><Name>PC-Token</Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response/>\r\n" +
+			"    </PostFlow>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(1, issues.size());
+	}
+}
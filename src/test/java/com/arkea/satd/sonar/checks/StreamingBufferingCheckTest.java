@@ -0,0 +1,261 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.checks;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.sensor.issue.Issue;
+
+import com.arkea.satd.sonar.xml.checks.StreamingBufferingCheck;
+
+public class StreamingBufferingCheckTest extends AbstractCheckTester {
+
+	private StreamingBufferingCheck check = new StreamingBufferingCheck();
+
+	@Before
+	public void storePolicies() throws Exception {
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(createTempFile("jsonThreatProtection.xml",
+			"<JSONThreatProtection async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"JTP-Body\">\r\n" +
+			"    <Source>request</Source>\r\n" +
+			"</JSONThreatProtection>"));
+		bundleRecorder.storeFile(createTempFile("extractPayload.xml",
+			"<ExtractVariables async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"EV-Payload\">\r\n" +
+			"    <JSONPayload>\r\n" +
+			"        <Variable name=\"id\"><JSONPath>$.id</JSONPath></Variable>\r\n" +
+			"    </JSONPayload>\r\n" +
+			"</ExtractVariables>"));
+		bundleRecorder.storeFile(createTempFile("extractHeader.xml",
+			"<ExtractVariables async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"EV-Header\">\r\n" +
+			"    <Header name=\"Authorization\">\r\n" +
+			"        <Pattern>Bearer {token}</Pattern>\r\n" +
+			"    </Header>\r\n" +
+			"</ExtractVariables>"));
+		bundleRecorder.storeFile(createTempFile("xsl.xml",
+			"<XSL async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"XSL-Transform\">\r\n" +
+			"    <ResourceURL>xsl://transform.xsl</ResourceURL>\r\n" +
+			"</XSL>"));
+	}
+
+	@Test
+	public void test_no_streaming() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>EV-Header</Name></Step>\r\n" +
+			"            <Step><Name> JTP-Body </Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"create\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>EV-Payload</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>request.verb = \"POST\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"threat\">\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"            <Condition>fault.name = \"ExecutionFailed\"</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1/files</BasePath>\r\n" +
+			"        <Properties>\r\n" +
+			"        </Properties>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>EV-Header</Name></Step>\r\n" +
+			"            <Step><Name> JTP-Body </Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"create\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>EV-Payload</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>request.verb = \"POST\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"threat\">\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"            <Condition>fault.name = \"ExecutionFailed\"</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1/files</BasePath>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"request.streaming.enabled\">false</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
+	@Test
+	public void test_request_streaming() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>EV-Header</Name></Step>\r\n" +
+			"            <Step><Name> JTP-Body </Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"create\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>EV-Payload</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>request.verb = \"POST\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"threat\">\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"            <Condition>fault.name = \"ExecutionFailed\"</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1/files</BasePath>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"request.streaming.enabled\">true</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(2, issues.size());
+		// JTP-Body is attached with a padded Name
+		assertEquals(6, issues.stream().filter(i -> i.primaryLocation().message().equals("JSONThreatProtection policy JTP-Body reads the whole payload: it buffers the request and defeats its streaming.")).findFirst().get().primaryLocation().textRange().start().line());
+		assertEquals(15, issues.stream().filter(i -> i.primaryLocation().message().equals("ExtractVariables policy EV-Payload reads the whole payload: it buffers the request and defeats its streaming.")).findFirst().get().primaryLocation().textRange().start().line());
+	}
+
+	@Test
+	public void test_response_streaming() throws Exception {
+		Collection<Issue> issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>EV-Header</Name></Step>\r\n" +
+			"            <Step><Name> JTP-Body </Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"create\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>EV-Payload</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>request.verb = \"POST\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"threat\">\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"            <Condition>fault.name = \"ExecutionFailed\"</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1/files</BasePath>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"response.streaming.enabled\">true</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(1, issues.size());
+		Issue issue = issues.iterator().next();
+		assertEquals(9, issue.primaryLocation().textRange().start().line());
+		assertEquals("XSL policy XSL-Transform reads the whole payload: it buffers the response and defeats its streaming.", issue.primaryLocation().message());
+
+		issues = getIssues(check,
+			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" +
+			"<ProxyEndpoint name=\"default\">\r\n" +
+			"    <PreFlow name=\"PreFlow\">\r\n" +
+			"        <Request>\r\n" +
+			"            <Step><Name>EV-Header</Name></Step>\r\n" +
+			"            <Step><Name> JTP-Body </Name></Step>\r\n" +
+			"        </Request>\r\n" +
+			"        <Response>\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"        </Response>\r\n" +
+			"    </PreFlow>\r\n" +
+			"    <Flows>\r\n" +
+			"        <Flow name=\"create\">\r\n" +
+			"            <Request>\r\n" +
+			"                <Step><Name>EV-Payload</Name></Step>\r\n" +
+			"            </Request>\r\n" +
+			"            <Condition>request.verb = \"POST\"</Condition>\r\n" +
+			"        </Flow>\r\n" +
+			"    </Flows>\r\n" +
+			"    <FaultRules>\r\n" +
+			"        <FaultRule name=\"threat\">\r\n" +
+			"            <Step><Name>XSL-Transform</Name></Step>\r\n" +
+			"            <Condition>fault.name = \"ExecutionFailed\"</Condition>\r\n" +
+			"        </FaultRule>\r\n" +
+			"    </FaultRules>\r\n" +
+			"    <HTTPProxyConnection>\r\n" +
+			"        <BasePath>/v1/files</BasePath>\r\n" +
+			"        <Properties>\r\n" +
+			"            <Property name=\"request.streaming.enabled\">true</Property>\r\n" +
+			"            <Property name=\"response.streaming.enabled\">true</Property>\r\n" +
+			"        </Properties>\r\n" +
+			"    </HTTPProxyConnection>\r\n" +
+			"    <RouteRule name=\"default\">\r\n" +
+			"        <TargetEndpoint>default</TargetEndpoint>\r\n" +
+			"    </RouteRule>\r\n" +
+			"</ProxyEndpoint>");
+		assertEquals(3, issues.size());
+	}
+}
@@ -26,7 +26,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.ThreatProtectionCheck;
 
 public class ThreatProtectionCheckTest extends AbstractCheckTester {
@@ -52,8 +51,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -83,8 +82,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -122,8 +121,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -159,8 +158,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -193,8 +192,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</TargetEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -222,8 +221,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -279,8 +278,8 @@ public class ThreatProtectionCheckTest extends AbstractCheckTester {
 				"    </Flows>\r\n" + 
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		Collection<Issue> issues = getIssues(check, 
 			"<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -25,7 +25,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.UnattachedPolicyCheck;
 
 public class UnattachedPolicyCheckTest extends AbstractCheckTester {
@@ -49,8 +48,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		String thePolicy = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<VerifyAPIKey async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Verify-API-Key-1\">\r\n" + 
@@ -83,8 +82,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    </FaultRules>" +
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		String thePolicy = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<AssignMessage async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"Assign-Message-UsedInFaultRule\">\r\n" + 
@@ -108,8 +107,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    </Step>" + 
 				"</SharedFlow>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(sharedFlowXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(sharedFlowXML);
 
 		String thePolicy = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<OAuthV2 async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"OA-verifyAccessToken\">\r\n" + 
@@ -139,8 +138,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    </PreFlow>\r\n" +  
 				"</ProxyEndpoint>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(proxyEndpointXML);
 
 		String thePolicyFilename = "thePolicy.xml";
 		XmlFile thePolicy = createTempFile(thePolicyFilename, "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -149,7 +148,7 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    <Properties/>\r\n" + 
 				"    <APIKey ref=\"request.header.apikey\"/>\r\n" + 
 				"</VerifyAPIKey>");
-		BundleRecorder.storeFile(thePolicy);
+		bundleRecorder.storeFile(thePolicy);
 		
 		Collection<Issue> issues = getIssues(check, thePolicy);
 		assertEquals(1, issues.size());
@@ -173,8 +172,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    </Step>" + 
 				"</SharedFlow>" 
 				);
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(sharedFlowXML);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(sharedFlowXML);
 
 		
 		String thePolicyFilename = "thePolicy.xml";
@@ -184,7 +183,7 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    <Properties/>\r\n" + 
 				"    <Operation>VerifyAccessToken</Operation>\r\n" + 
 				"</OAuthV2>");
-		BundleRecorder.storeFile(thePolicy);
+		bundleRecorder.storeFile(thePolicy);
 
 		Collection<Issue> issues = getIssues(check, thePolicy);
 		assertEquals(1, issues.size());
@@ -210,8 +209,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"    <TargetEndpoints/>\r\n" + 
 				"</Manifest>";
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(createTempFile("proxyEndpoint.xml", manifestXML));
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(createTempFile("proxyEndpoint.xml", manifestXML));
 		
 		Collection<Issue> issues = getIssues(check, manifestXML);
 		assertEquals(0, issues.size());
@@ -228,8 +227,8 @@ public class UnattachedPolicyCheckTest extends AbstractCheckTester {
 				"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\r\n" + 
 				"</xsl:stylesheet>");
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);
 
 		Collection<Issue> issues = getIssues(check, "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
 				"<XSL async=\"false\" continueOnError=\"false\" enabled=\"true\" name=\"XSL-Transform-1\">\r\n" + 
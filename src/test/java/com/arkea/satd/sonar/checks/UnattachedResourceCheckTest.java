@@ -24,7 +24,6 @@ import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonarsource.analyzer.commons.xml.XmlFile;
 import org.sonarsource.analyzer.commons.xml.checks.SonarXmlCheck;
 
-import com.arkea.satd.sonar.xml.BundleRecorder;
 import com.arkea.satd.sonar.xml.checks.UnattachedResourceCheck;
 
 public class UnattachedResourceCheckTest extends AbstractCheckTester {
@@ -40,8 +39,8 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\r\n" + 
 				"</xsl:stylesheet>");
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);		
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);		
 		
 		// Fake XMLPolicy file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -54,7 +53,7 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"    <OutputVariable></OutputVariable>\r\n" + 
 				"</XSL>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		Collection<Issue> issues = getIssues(check, tempScript);
 		assertEquals(0, issues.size());
@@ -69,8 +68,8 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\r\n" + 
 				"</xsl:stylesheet>");
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);
 	
 		Collection<Issue> issues = getIssues(check, tempScript);
 		assertEquals(1, issues.size());
@@ -90,8 +89,8 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"    </wsdl:types>\r\n" + 
 				"</wsdl:definitions>");
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);
 		
 		// Fake XMLPolicy file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -104,7 +103,7 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"    <ResourceURL>wsdl://"+tempFilename+"</ResourceURL>\r\n" + 
 				"</MessageValidation>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		Collection<Issue> issues = getIssues(check, tempScript);
 		assertEquals(0, issues.size());
@@ -124,8 +123,8 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"    </wsdl:types>\r\n" + 
 				"</wsdl:definitions>");
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);
 	
 		Collection<Issue> issues = getIssues(check, tempScript);
 		assertEquals(1, issues.size());
@@ -143,8 +142,8 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"</xs:schema>"
 			);
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);
 		
 		// Fake XMLPolicy file
 		XmlFile proxyEndpointXML = createTempFile("proxyEndpoint.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\r\n" + 
@@ -157,7 +156,7 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"    <ResourceURL>xsd://"+tempFilename+"</ResourceURL>\r\n" + 
 				"</MessageValidation>" 
 				);
-		BundleRecorder.storeFile(proxyEndpointXML);
+		bundleRecorder.storeFile(proxyEndpointXML);
 		
 		Collection<Issue> issues = getIssues(check, tempScript);
 		assertEquals(0, issues.size());
@@ -174,8 +173,8 @@ public class UnattachedResourceCheckTest extends AbstractCheckTester {
 				"</xs:schema>"
 			);
 
-		BundleRecorder.clear();
-		BundleRecorder.storeFile(tempScript);
+		bundleRecorder.clear();
+		bundleRecorder.storeFile(tempScript);
 	
 		Collection<Issue> issues = getIssues(check, tempScript);
 		assertEquals(1, issues.size());
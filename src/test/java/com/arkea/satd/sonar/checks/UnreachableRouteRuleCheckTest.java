@@ -87,4 +87,47 @@ public class UnreachableRouteRuleCheckTest extends AbstractCheckTester {
 		assertEquals(2, issues.size());
 	}	
 		
+	@Test
+	public void test_ko4_always_true_conditions() throws Exception {
+		// Blank conditions, and conditions always true, are unconditional
+		Collection<Issue> issues = getIssues(check, "<ProxyEndpoint name=\"default\">\r\n" + 
+				"    <RouteRule name=\"blank\">\r\n" + 
+				"        <TargetEndpoint>blank</TargetEndpoint>\r\n" + 
+				"        <Condition>   </Condition>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"    <RouteRule name=\"upperCase\">\r\n" + 
+				"        <TargetEndpoint>upperCase</TargetEndpoint>\r\n" + 
+				"        <Condition>TRUE</Condition>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"    <RouteRule name=\"parentheses\">\r\n" + 
+				"        <TargetEndpoint>parentheses</TargetEndpoint>\r\n" + 
+				"        <Condition>(true)</Condition>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"    <RouteRule name=\"alwaysTrue\">\r\n" + 
+				"        <TargetEndpoint>alwaysTrue</TargetEndpoint>\r\n" + 
+				"        <Condition>true or request.verb = \"GET\"</Condition>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"    <RouteRule name=\"conditional\">\r\n" + 
+				"        <TargetEndpoint>conditional</TargetEndpoint>\r\n" + 
+				"        <Condition>true and request.verb = \"GET\"</Condition>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"    <RouteRule name=\"default\">\r\n" + 
+				"        <TargetEndpoint>default</TargetEndpoint>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"</ProxyEndpoint>");
+		assertEquals(5, issues.size());
+
+		// Not always true
+		issues = getIssues(check, "<ProxyEndpoint name=\"default\">\r\n" + 
+				"    <RouteRule name=\"conditional\">\r\n" + 
+				"        <TargetEndpoint>conditional</TargetEndpoint>\r\n" + 
+				"        <Condition>true and request.verb = \"GET\"</Condition>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"    <RouteRule name=\"default\">\r\n" + 
+				"        <TargetEndpoint>default</TargetEndpoint>\r\n" + 
+				"    </RouteRule>\r\n" + 
+				"</ProxyEndpoint>");
+		assertEquals(0, issues.size());
+	}
+
 }
\ No newline at end of file
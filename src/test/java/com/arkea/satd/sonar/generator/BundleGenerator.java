@@ -0,0 +1,347 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.generator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of Apigee bundles (apiproxy and sharedflowbundle trees) of configurable size,
+ * for the benchmarks and the scaling tests.
+ * The same configuration always generates the same files : the policy types of each bundle are drawn from the mix
+ * with a Random initialized with the seed and the bundle index, so adding proxies does not change the previous ones.
+ * 
+ * Each proxy contains :
+ *  - the APIProxy descriptor
+ *  - proxyEndpoints ProxyEndpoints, with flowsPerEndpoint conditional Flows of stepsPerFlow Steps
+ *  - targetEndpoints TargetEndpoints, with a PreFlow of stepsPerFlow Steps, all routed from the ProxyEndpoints
+ *  - one policy per Step
+ *  - xslResources, wsdlResources and xsdResources resources, referenced by the XSL and MessageValidation policies
+ * Each shared flow contains the SharedFlowBundle descriptor, a SharedFlow of stepsPerFlow Steps and their policies.
+ * @author Nicolas Tisserand
+ */
+public class BundleGenerator {
+
+	/**
+	 * Types of the generated policies
+	 */
+	public enum PolicyType {
+		ASSIGN_MESSAGE("AssignMessage", "AM"),
+		EXTRACT_VARIABLES("ExtractVariables", "EV"),
+		QUOTA("Quota", "Quota"),
+		SPIKE_ARREST("SpikeArrest", "SA"),
+		XSL("XSL", "XSL"),
+		WSDL_VALIDATION("MessageValidation", "WSDL-Validation"),
+		XSD_VALIDATION("MessageValidation", "XSD-Validation"),
+		SERVICE_CALLOUT("ServiceCallout", "SC"),
+		RESPONSE_CACHE("ResponseCache", "RC"),
+		JSON_THREAT_PROTECTION("JSONThreatProtection", "JTP");
+
+		private final String rootElement;
+		private final String prefix;
+
+		PolicyType(String rootElement, String prefix) {
+			this.rootElement = rootElement;
+			this.prefix = prefix;
+		}
+
+		public String getRootElement() {
+			return rootElement;
+		}
+	}
+
+	private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+	private long seed = 42;
+	private int proxies = 1;
+	private int sharedFlows = 0;
+	private int proxyEndpoints = 1;
+	private int targetEndpoints = 1;
+	private int flowsPerEndpoint = 3;
+	private int stepsPerFlow = 2;
+	private int xslResources = 1;
+	private int wsdlResources = 1;
+	private int xsdResources = 1;
+	private List<PolicyType> policyMix = Arrays.asList(PolicyType.values());
+
+	public BundleGenerator seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	public BundleGenerator proxies(int proxies) {
+		this.proxies = proxies;
+		return this;
+	}
+
+	public BundleGenerator sharedFlows(int sharedFlows) {
+		this.sharedFlows = sharedFlows;
+		return this;
+	}
+
+	public BundleGenerator proxyEndpoints(int proxyEndpoints) {
+		this.proxyEndpoints = proxyEndpoints;
+		return this;
+	}
+
+	public BundleGenerator targetEndpoints(int targetEndpoints) {
+		this.targetEndpoints = targetEndpoints;
+		return this;
+	}
+
+	public BundleGenerator flowsPerEndpoint(int flowsPerEndpoint) {
+		this.flowsPerEndpoint = flowsPerEndpoint;
+		return this;
+	}
+
+	public BundleGenerator stepsPerFlow(int stepsPerFlow) {
+		this.stepsPerFlow = stepsPerFlow;
+		return this;
+	}
+
+	public BundleGenerator resources(int xslResources, int wsdlResources, int xsdResources) {
+		this.xslResources = xslResources;
+		this.wsdlResources = wsdlResources;
+		this.xsdResources = xsdResources;
+		return this;
+	}
+
+	/**
+	 * Policy types drawn for each Step. A type can be repeated to increase its weight.
+	 * @param policyMix
+	 * @return
+	 */
+	public BundleGenerator policyMix(PolicyType... policyMix) {
+		this.policyMix = Arrays.asList(policyMix);
+		return this;
+	}
+
+	/**
+	 * Number of policies generated in each proxy
+	 * @return
+	 */
+	public int policiesPerProxy() {
+		return (proxyEndpoints * flowsPerEndpoint + targetEndpoints) * stepsPerFlow;
+	}
+
+	/**
+	 * Number of files generated in each proxy
+	 * @return
+	 */
+	public int filesPerProxy() {
+		return 1 + proxyEndpoints + targetEndpoints + policiesPerProxy() + xslResources + wsdlResources + xsdResources;
+	}
+
+	/**
+	 * Generates the proxies (proxy-000/apiproxy...) and the shared flows (sharedflow-000/sharedflowbundle...) in baseDir
+	 * @param baseDir
+	 * @return the generated files, in generation order
+	 * @throws IOException
+	 */
+	public List<Path> generate(Path baseDir) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for(int i = 0; i < proxies; i++) {
+			generateProxy(baseDir, String.format("proxy-%03d", i), new Random(seed + i), files);
+		}
+		for(int i = 0; i < sharedFlows; i++) {
+			generateSharedFlow(baseDir, String.format("sharedflow-%03d", i), new Random(~(seed + i)), files);
+		}
+		return files;
+	}
+
+	private void generateProxy(Path baseDir, String proxyName, Random random, List<Path> files) throws IOException {
+		Path bundleDir = baseDir.resolve(proxyName).resolve("apiproxy");
+		List<String> policies = new ArrayList<>();
+
+		// Endpoints
+		List<String> proxyEndpointNames = names("endpoint", proxyEndpoints);
+		List<String> targetEndpointNames = names("target", targetEndpoints);
+		for(String proxyEndpointName : proxyEndpointNames) {
+			StringBuilder flows = new StringBuilder();
+			for(int f = 0; f < flowsPerEndpoint; f++) {
+				flows.append("        <Flow name=\"flow-").append(f).append("\">\n")
+					.append("            <Description>Flow ").append(f).append(" of ").append(proxyEndpointName).append("</Description>\n")
+					.append("            <Request>\n").append(steps(bundleDir, random, policies, files, "                ")).append("            </Request>\n")
+					.append("            <Response/>\n")
+					.append("            <Condition>(proxy.pathsuffix MatchesPath \"/resource-").append(f).append("\") and (request.verb = \"GET\")</Condition>\n")
+					.append("        </Flow>\n");
+			}
+			StringBuilder routeRules = new StringBuilder();
+			for(int t = 1; t < targetEndpoints; t++) {
+				routeRules.append("    <RouteRule name=\"").append(targetEndpointNames.get(t)).append("\">\n")
+					.append("        <Condition>request.header.target = \"").append(targetEndpointNames.get(t)).append("\"</Condition>\n")
+					.append("        <TargetEndpoint>").append(targetEndpointNames.get(t)).append("</TargetEndpoint>\n")
+					.append("    </RouteRule>\n");
+			}
+			if(targetEndpoints > 0) {
+				// Default route, last
+				routeRules.append("    <RouteRule name=\"default\">\n")
+					.append("        <TargetEndpoint>").append(targetEndpointNames.get(0)).append("</TargetEndpoint>\n")
+					.append("    </RouteRule>\n");
+			}
+			write(bundleDir.resolve("proxies").resolve(proxyEndpointName + ".xml"), files, XML_HEADER
+					+ "<ProxyEndpoint name=\"" + proxyEndpointName + "\">\n"
+					+ "    <Description>Proxy endpoint " + proxyEndpointName + " of " + proxyName + "</Description>\n"
+					+ "    <FaultRules/>\n"
+					+ "    <PreFlow name=\"PreFlow\">\n        <Request/>\n        <Response/>\n    </PreFlow>\n"
+					+ "    <Flows>\n" + flows + "    </Flows>\n"
+					+ "    <PostFlow name=\"PostFlow\">\n        <Request/>\n        <Response/>\n    </PostFlow>\n"
+					+ "    <HTTPProxyConnection>\n        <BasePath>/" + proxyName + "/" + proxyEndpointName + "</BasePath>\n        <VirtualHost>secure</VirtualHost>\n    </HTTPProxyConnection>\n"
+					+ routeRules
+					+ "</ProxyEndpoint>\n");
+		}
+		for(String targetEndpointName : targetEndpointNames) {
+			write(bundleDir.resolve("targets").resolve(targetEndpointName + ".xml"), files, XML_HEADER
+					+ "<TargetEndpoint name=\"" + targetEndpointName + "\">\n"
+					+ "    <Description>Target endpoint " + targetEndpointName + " of " + proxyName + "</Description>\n"
+					+ "    <FaultRules/>\n"
+					+ "    <PreFlow name=\"PreFlow\">\n        <Request>\n" + steps(bundleDir, random, policies, files, "            ") + "        </Request>\n        <Response/>\n    </PreFlow>\n"
+					+ "    <Flows/>\n"
+					+ "    <PostFlow name=\"PostFlow\">\n        <Request/>\n        <Response/>\n    </PostFlow>\n"
+					+ "    <HTTPTargetConnection>\n        <LoadBalancer>\n            <Server name=\"backend\"/>\n        </LoadBalancer>\n        <Path>/" + proxyName + "/" + targetEndpointName + "</Path>\n    </HTTPTargetConnection>\n"
+					+ "</TargetEndpoint>\n");
+		}
+
+		// Resources
+		List<String> resources = new ArrayList<>();
+		for(int r = 0; r < xslResources; r++) {
+			resources.add("xsl://transform-" + r + ".xsl");
+			write(bundleDir.resolve("resources").resolve("xsl").resolve("transform-" + r + ".xsl"), files, XML_HEADER
+					+ "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+					+ "    <xsl:template match=\"@*|node()\">\n        <xsl:copy>\n            <xsl:apply-templates select=\"@*|node()\"/>\n        </xsl:copy>\n    </xsl:template>\n"
+					+ "</xsl:stylesheet>\n");
+		}
+		for(int r = 0; r < wsdlResources; r++) {
+			resources.add("wsdl://service-" + r + ".wsdl");
+			write(bundleDir.resolve("resources").resolve("wsdl").resolve("service-" + r + ".wsdl"), files, XML_HEADER
+					+ "<wsdl:definitions name=\"service-" + r + "\" targetNamespace=\"http://example.com/service-" + r + "\" xmlns:wsdl=\"http://schemas.xmlsoap.org/wsdl/\">\n"
+					+ "    <wsdl:types/>\n"
+					+ "</wsdl:definitions>\n");
+		}
+		for(int r = 0; r < xsdResources; r++) {
+			resources.add("xsd://schema-" + r + ".xsd");
+			write(bundleDir.resolve("resources").resolve("xsd").resolve("schema-" + r + ".xsd"), files, XML_HEADER
+					+ "<xs:schema targetNamespace=\"http://example.com/schema-" + r + "\" xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\n"
+					+ "    <xs:element name=\"message\" type=\"xs:string\"/>\n"
+					+ "</xs:schema>\n");
+		}
+
+		// Descriptor
+		write(bundleDir.resolve(proxyName + ".xml"), files, XML_HEADER
+				+ "<APIProxy name=\"" + proxyName + "\">\n"
+				+ "    <Description>Generated proxy " + proxyName + "</Description>\n"
+				+ list("Policies", "Policy", policies)
+				+ list("ProxyEndpoints", "ProxyEndpoint", proxyEndpointNames)
+				+ list("Resources", "Resource", resources)
+				+ list("TargetEndpoints", "TargetEndpoint", targetEndpointNames)
+				+ "</APIProxy>\n");
+	}
+
+	private void generateSharedFlow(Path baseDir, String sharedFlowName, Random random, List<Path> files) throws IOException {
+		Path bundleDir = baseDir.resolve(sharedFlowName).resolve("sharedflowbundle");
+		List<String> policies = new ArrayList<>();
+
+		write(bundleDir.resolve("sharedflows").resolve("default.xml"), files, XML_HEADER
+				+ "<SharedFlow name=\"default\">\n"
+				+ steps(bundleDir, random, policies, files, "    ")
+				+ "</SharedFlow>\n");
+
+		write(bundleDir.resolve(sharedFlowName + ".xml"), files, XML_HEADER
+				+ "<SharedFlowBundle name=\"" + sharedFlowName + "\">\n"
+				+ "    <Description>Generated shared flow " + sharedFlowName + "</Description>\n"
+				+ list("Policies", "Policy", policies)
+				+ "    <Resources/>\n"
+				+ list("SharedFlows", "SharedFlow", Arrays.asList("default"))
+				+ "</SharedFlowBundle>\n");
+	}
+
+	/**
+	 * Generates stepsPerFlow policies and returns the Steps using them
+	 */
+	private String steps(Path bundleDir, Random random, List<String> policies, List<Path> files, String indent) throws IOException {
+		StringBuilder steps = new StringBuilder();
+		for(int s = 0; s < stepsPerFlow; s++) {
+			PolicyType type = policyMix.get(random.nextInt(policyMix.size()));
+			int index = policies.size();
+			String policyName = String.format("%s-%04d", type.prefix, index);
+			policies.add(policyName);
+			write(bundleDir.resolve("policies").resolve(policyName + ".xml"), files, XML_HEADER + policy(type, policyName, index));
+			steps.append(indent).append("<Step>\n")
+				.append(indent).append("    <Name>").append(policyName).append("</Name>\n")
+				.append(indent).append("</Step>\n");
+		}
+		return steps.toString();
+	}
+
+	private String policy(PolicyType type, String name, int index) {
+		String open = "<" + type.rootElement + " name=\"" + name + "\">\n    <DisplayName>" + name + "</DisplayName>\n";
+		switch (type) {
+		case ASSIGN_MESSAGE:
+			return open + "    <AssignVariable>\n        <Name>variable-" + index + "</Name>\n        <Value>value</Value>\n    </AssignVariable>\n"
+					+ "    <IgnoreUnresolvedVariables>false</IgnoreUnresolvedVariables>\n    <AssignTo createNew=\"false\" transport=\"http\" type=\"request\"/>\n</AssignMessage>\n";
+		case EXTRACT_VARIABLES:
+			return open + "    <Source>request</Source>\n    <JSONPayload>\n        <Variable name=\"id-" + index + "\">\n            <JSONPath>$.id</JSONPath>\n        </Variable>\n    </JSONPayload>\n</ExtractVariables>\n";
+		case QUOTA:
+			return open + "    <Allow count=\"100\"/>\n    <Interval>1</Interval>\n    <TimeUnit>minute</TimeUnit>\n    <Distributed>true</Distributed>\n    <Synchronous>false</Synchronous>\n</Quota>\n";
+		case SPIKE_ARREST:
+			return open + "    <Rate>30ps</Rate>\n</SpikeArrest>\n";
+		case XSL:
+			return open + "    <Source>response</Source>\n    <ResourceURL>xsl://transform-" + (index % Math.max(1, xslResources)) + ".xsl</ResourceURL>\n    <OutputVariable>response.content</OutputVariable>\n</XSL>\n";
+		case WSDL_VALIDATION:
+			return open + "    <Source>request</Source>\n    <ResourceURL>wsdl://service-" + (index % Math.max(1, wsdlResources)) + ".wsdl</ResourceURL>\n</MessageValidation>\n";
+		case XSD_VALIDATION:
+			return open + "    <Source>request</Source>\n    <ResourceURL>xsd://schema-" + (index % Math.max(1, xsdResources)) + ".xsd</ResourceURL>\n</MessageValidation>\n";
+		case SERVICE_CALLOUT:
+			return open + "    <Request variable=\"calloutRequest-" + index + "\"/>\n    <Response>calloutResponse-" + index + "</Response>\n"
+					+ "    <HTTPTargetConnection>\n        <URL>https://backend.example.com/callout</URL>\n    </HTTPTargetConnection>\n</ServiceCallout>\n";
+		case RESPONSE_CACHE:
+			return open + "    <CacheKey>\n        <Prefix>cache-" + index + "</Prefix>\n        <KeyFragment ref=\"request.uri\"/>\n    </CacheKey>\n"
+					+ "    <ExpirySettings>\n        <TimeoutInSec>300</TimeoutInSec>\n    </ExpirySettings>\n    <ExcludeErrorResponse>true</ExcludeErrorResponse>\n</ResponseCache>\n";
+		case JSON_THREAT_PROTECTION:
+		default:
+			return open + "    <Source>request</Source>\n    <ContainerDepth>10</ContainerDepth>\n</JSONThreatProtection>\n";
+		}
+	}
+
+	private static List<String> names(String prefix, int count) {
+		List<String> names = new ArrayList<>();
+		for(int i = 0; i < count; i++) {
+			names.add(prefix + "-" + i);
+		}
+		return names;
+	}
+
+	private static String list(String listElement, String itemElement, List<String> items) {
+		if(items.isEmpty()) {
+			return "    <" + listElement + "/>\n";
+		}
+		StringBuilder list = new StringBuilder("    <").append(listElement).append(">\n");
+		items.forEach(item -> list.append("        <").append(itemElement).append(">").append(item).append("</").append(itemElement).append(">\n"));
+		return list.append("    </").append(listElement).append(">\n").toString();
+	}
+
+	private static void write(Path file, List<Path> files, String content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		files.add(file);
+	}
+}
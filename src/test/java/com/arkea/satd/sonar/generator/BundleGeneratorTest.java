@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Credit Mutuel Arkea
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+package com.arkea.satd.sonar.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.arkea.satd.sonar.generator.BundleGenerator.PolicyType;
+
+public class BundleGeneratorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void test_generated_tree() throws Exception {
+
+		Path baseDir = temporaryFolder.newFolder().toPath();
+		BundleGenerator generator = new BundleGenerator()
+				.proxies(2)
+				.sharedFlows(1)
+				.proxyEndpoints(2)
+				.targetEndpoints(3)
+				.flowsPerEndpoint(4)
+				.stepsPerFlow(2)
+				.resources(2, 1, 0);
+		List<Path> files = generator.generate(baseDir);
+
+		// (2 endpoints * 4 flows + 3 targets) * 2 steps
+		assertThat(generator.policiesPerProxy()).isEqualTo(22);
+		assertThat(generator.filesPerProxy()).isEqualTo(1 + 2 + 3 + 22 + 3);
+		assertThat(files).hasSize(2 * generator.filesPerProxy() + 2 + 2);
+		assertThat(files).contains(
+				baseDir.resolve("proxy-001/apiproxy/proxy-001.xml"),
+				baseDir.resolve("proxy-001/apiproxy/proxies/endpoint-1.xml"),
+				baseDir.resolve("proxy-001/apiproxy/targets/target-2.xml"),
+				baseDir.resolve("proxy-001/apiproxy/resources/xsl/transform-1.xsl"),
+				baseDir.resolve("proxy-001/apiproxy/resources/wsdl/service-0.wsdl"),
+				baseDir.resolve("sharedflow-000/sharedflowbundle/sharedflow-000.xml"),
+				baseDir.resolve("sharedflow-000/sharedflowbundle/sharedflows/default.xml"));
+
+		// All the files are well-formed
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		for(Path file : files) {
+			factory.newDocumentBuilder().parse(file.toFile());
+		}
+	}
+
+	@Test
+	public void test_policy_mix() throws Exception {
+
+		Path baseDir = temporaryFolder.newFolder().toPath();
+		List<Path> files = new BundleGenerator()
+				.policyMix(PolicyType.QUOTA)
+				.generate(baseDir);
+
+		assertThat(files.stream().filter(file -> file.getParent().endsWith("policies")))
+			.hasSize(8)
+			.allMatch(file -> file.getFileName().toString().startsWith("Quota-"));
+		assertThat(new String(Files.readAllBytes(baseDir.resolve("proxy-000/apiproxy/policies/Quota-0000.xml")), "UTF-8"))
+			.contains("<Quota name=\"Quota-0000\">");
+	}
+
+	@Test
+	public void test_generation_is_deterministic() throws Exception {
+
+		Path firstDir = temporaryFolder.newFolder().toPath();
+		Path secondDir = temporaryFolder.newFolder().toPath();
+		List<Path> firstFiles = new BundleGenerator().proxies(3).sharedFlows(1).generate(firstDir);
+		List<Path> secondFiles = new BundleGenerator().proxies(5).sharedFlows(1).generate(secondDir);
+
+		// Adding proxies does not change the previous ones
+		for(Path firstFile : firstFiles) {
+			Path secondFile = secondDir.resolve(firstDir.relativize(firstFile));
+			assertThat(secondFiles).contains(secondFile);
+			assertThat(Files.readAllBytes(secondFile)).isEqualTo(Files.readAllBytes(firstFile));
+		}
+
+		// Another seed draws other policies
+		Path otherSeedDir = temporaryFolder.newFolder().toPath();
+		List<Path> otherSeedFiles = new BundleGenerator().proxies(3).sharedFlows(1).seed(7).generate(otherSeedDir);
+		assertThat(otherSeedFiles).hasSameSizeAs(firstFiles);
+		assertThat(otherSeedFiles.stream().map(otherSeedDir::relativize).collect(Collectors.toList()))
+			.isNotEqualTo(firstFiles.stream().map(firstDir::relativize).collect(Collectors.toList()));
+	}
+}